@@ -1,10 +1,15 @@
 package com.branow.file.kit.io;
 
+import com.branow.file.kit.utils.ByteSearcher;
+import com.branow.file.kit.utils.FileDelta;
+import com.branow.file.kit.utils.FileHasher;
 import com.branow.file.kit.utils.FileIOUtils;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.stream.LongStream;
 
 /**
  * An abstraction of any existing computer file that let read and write bytes.
@@ -136,7 +141,7 @@ public class ByteFile extends FileEntity {
      * @see FileIOUtils#append(Path, ByteBuffer)
      */
     public void appendBytes(byte[] bytes) {
-        FileIOUtils.overwrite(path(), ByteBuffer.wrap(bytes));
+        FileIOUtils.append(path(), ByteBuffer.wrap(bytes));
     }
 
     /**
@@ -147,6 +152,151 @@ public class ByteFile extends FileEntity {
      * @see FileIOUtils#append(Path, ByteBuffer, long)
      */
     public void appendBytes(byte[] bytes, long off) {
-        FileIOUtils.overwrite(path(), ByteBuffer.wrap(bytes), off);
+        FileIOUtils.append(path(), ByteBuffer.wrap(bytes), off);
+    }
+
+
+    /**
+     * Returns the offset of the first occurrence of the given bytes in this file.
+     *
+     * @param pattern The bytes to search.
+     * @return The byte offset of the first occurrence or {@code -1} if there is no occurrence.
+     * @see ByteFile#findAll(byte[])
+     */
+    public long indexOf(byte[] pattern) {
+        try (LongStream offsets = findAll(pattern)) {
+            return offsets.findFirst().orElse(-1);
+        }
+    }
+
+    /**
+     * Returns the lazy stream of offsets of all occurrences of the given bytes in this file
+     * in ascending order. The file is searched by mapped chunks concurrently.
+     *
+     * @param pattern The bytes to search.
+     * @return The stream of byte offsets of the occurrences.
+     * @see ByteSearcher#findAll(Path, byte[])
+     */
+    public LongStream findAll(byte[] pattern) {
+        return ByteSearcher.findAll(path(), pattern);
+    }
+
+    /**
+     * Opens the view of this file that reads and writes primitive values at random offsets
+     * through a mapped window. The view must be closed after using.
+     *
+     * @return The opened view of this file.
+     * @see ByteFileView
+     */
+    public ByteFileView view() {
+        return new ByteFileView(path());
+    }
+
+    /**
+     * Computes the checksum of the stored bytes of this file. The file is read by mapped chunks,
+     * the leaves of {@link FileHasher.Algorithm#TREE_SHA_256} are hashed concurrently.
+     *
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of this file.
+     * @see FileHasher#checksum(Path, FileHasher.Algorithm)
+     */
+    public byte[] checksum(FileHasher.Algorithm algorithm) {
+        return FileHasher.checksum(path(), algorithm);
+    }
+
+    /**
+     * Computes the signature of this file: the weak rolling and strong checksums of its blocks.
+     * The signature of an old version is used to compute the delta to a new version.
+     *
+     * @param blockSize The size of a block in bytes.
+     * @return The signature of this file.
+     * @see FileDelta#signature(Path, int)
+     */
+    public FileDelta.Signature signature(int blockSize) {
+        return FileDelta.signature(path(), blockSize);
+    }
+
+    /**
+     * Computes the delta that turns the file described by the signature into this file.
+     *
+     * @param signature The signature of the old version.
+     * @return The delta from the old version to this file.
+     * @see FileDelta#delta(Path, FileDelta.Signature)
+     */
+    public FileDelta.Delta delta(FileDelta.Signature signature) {
+        return FileDelta.delta(path(), signature);
+    }
+
+    /**
+     * Applies the delta to this file. Only the changed blocks are written if the unchanged ones
+     * keep their positions, otherwise the file is rebuilt from its blocks and literal bytes.
+     *
+     * @param delta The delta from this file to the new version.
+     * @return The number of written bytes.
+     * @see FileDelta#applyDelta(Path, FileDelta.Delta)
+     */
+    public long applyDelta(FileDelta.Delta delta) {
+        return FileDelta.applyDelta(path(), delta);
+    }
+
+    /**
+     * Checks whether this file and the other file have equal content. Files of different sizes
+     * are unequal without reading them, otherwise they are compared by mapped segments concurrently.
+     * If any of the files is compressed, the uncompressed bytes are compared as streams.
+     *
+     * @param other The file to compare with.
+     * @return {@code True} if the files have equal content.
+     * @see FileIOUtils#contentEquals(Path, Path)
+     */
+    public boolean contentEquals(ByteFile other) {
+        if (isStored() && other.isStored())
+            return FileIOUtils.contentEquals(path(), other.path());
+        return contentSize() == other.contentSize() && firstMismatch(other) == -1;
+    }
+
+    /**
+     * Finds the position of the first mismatched byte of this file and the other file.
+     * If any of the files is compressed, the uncompressed bytes are compared as streams.
+     *
+     * @param other The file to compare with.
+     * @return The position of the first mismatch or {@code -1} if the files have equal content.
+     * @see FileIOUtils#mismatch(Path, Path)
+     * @see FileIOUtils#mismatch(InputStream, InputStream)
+     */
+    public long firstMismatch(ByteFile other) {
+        if (isStored() && other.isStored())
+            return FileIOUtils.mismatch(path(), other.path());
+        try (InputStream in = newContentStream(); InputStream otherIn = other.newContentStream()) {
+            return FileIOUtils.mismatch(in, otherIn);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * @return {@code True} if the content of this file is its stored bytes, so the file can be mapped.
+     */
+    boolean isStored() {
+        return true;
+    }
+
+    /**
+     * @return The number of bytes of the content of this file.
+     * @throws RuntimeIOException if IOException is thrown during reading the size.
+     */
+    long contentSize() {
+        try {
+            return Files.size(path());
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * @return The new input stream of the content of this file.
+     * @throws IOException if it is thrown during opening the file.
+     */
+    InputStream newContentStream() throws IOException {
+        return Files.newInputStream(path());
     }
 }
@@ -0,0 +1,368 @@
+package com.branow.file.kit.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code ByteFileView} gives random access to primitive values of a file. The file is accessed
+ * through a mapped window (up to {@value WINDOW_SIZE} bytes), which is moved only when an accessed
+ * value is out of it, so small typed reads and writes are memory loads and stores instead of system calls.
+ * The byte order of values is {@link ByteOrder#BIG_ENDIAN} by default.<br><br>
+ * <p>
+ * Writes beyond the end of the file extend the file. If the file isn't writable, the view is read-only
+ * and its writes throw {@link ReadOnlyBufferException}. The view of a file which content isn't stored
+ * as is (see {@link CompressedByteFile#view()}) is read-only too, its window holds the decoded content.
+ * The view isn't thread-safe and must be closed after using.
+ */
+public class ByteFileView implements AutoCloseable {
+
+    /**
+     * The maximum size of the mapped window in bytes.
+     */
+    public static final int WINDOW_SIZE = 64 << 20;
+
+    private static final int ALIGNMENT = 1 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final int windowSize;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+    private ByteBuffer window;
+    private long windowStart;
+    private long size;
+
+    /**
+     * Opens the view of the given file.
+     *
+     * @param path The path of the file. Must be already existed.
+     * @throws RuntimeIOException if IOException is thrown during opening.
+     */
+    public ByteFileView(Path path) {
+        this.path = path;
+        FileChannel channel;
+        boolean readOnly = false;
+        try {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (AccessDeniedException e) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                readOnly = true;
+            }
+            this.size = channel.size();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        this.channel = channel;
+        this.readOnly = readOnly;
+        this.windowSize = WINDOW_SIZE;
+    }
+
+    /**
+     * Creates the read-only view which reads the content by {@link ByteFileView#map(long, int)}
+     * instead of mapping the file.
+     *
+     * @param path       The path of the file.
+     * @param size       The size of the content in bytes.
+     * @param windowSize The size of the window in bytes.
+     */
+    ByteFileView(Path path, long size, int windowSize) {
+        this.path = path;
+        this.channel = null;
+        this.readOnly = true;
+        this.size = size;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Sets the byte order of the read and written values.
+     *
+     * @param order The byte order.
+     * @return This view.
+     */
+    public ByteFileView order(ByteOrder order) {
+        if (order == null) throw new NullPointerException("order is null");
+        this.order = order;
+        if (window != null)
+            window.order(order);
+        return this;
+    }
+
+    /**
+     * @return The byte order of the read and written values.
+     */
+    public ByteOrder order() {
+        return order;
+    }
+
+    /**
+     * @return {@code True} if the file isn't writable.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return The size of the file in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @return The read byte.
+     * @throws IllegalArgumentException if the value is out of the file.
+     */
+    public byte readByte(long offset) {
+        return window(offset, Byte.BYTES, false).get(index(offset));
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @return The read short.
+     * @throws IllegalArgumentException if the value is out of the file.
+     */
+    public short readShort(long offset) {
+        return window(offset, Short.BYTES, false).getShort(index(offset));
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @return The read int.
+     * @throws IllegalArgumentException if the value is out of the file.
+     */
+    public int readInt(long offset) {
+        return window(offset, Integer.BYTES, false).getInt(index(offset));
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @return The read long.
+     * @throws IllegalArgumentException if the value is out of the file.
+     */
+    public long readLong(long offset) {
+        return window(offset, Long.BYTES, false).getLong(index(offset));
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @return The read float.
+     * @throws IllegalArgumentException if the value is out of the file.
+     */
+    public float readFloat(long offset) {
+        return window(offset, Float.BYTES, false).getFloat(index(offset));
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @return The read double.
+     * @throws IllegalArgumentException if the value is out of the file.
+     */
+    public double readDouble(long offset) {
+        return window(offset, Double.BYTES, false).getDouble(index(offset));
+    }
+
+    /**
+     * Reads bytes to fill the given array.
+     *
+     * @param offset The byte offset in the file of the first byte.
+     * @param dst    The array to fill.
+     * @throws IllegalArgumentException if the bytes are out of the file.
+     */
+    public void readBytes(long offset, byte[] dst) {
+        checkRange(offset, dst.length, false);
+        for (int i = 0; i < dst.length; ) {
+            long pos = offset + i;
+            int length = (int) Math.min(dst.length - i, WINDOW_SIZE - pos % ALIGNMENT);
+            window(pos, length, false).get(index(pos), dst, i, length);
+            i += length;
+        }
+    }
+
+    /**
+     * Reads longs to fill the given array. The longs are read by bulk copies from the mapped window.
+     *
+     * @param offset The byte offset in the file of the first long.
+     * @param dst    The array to fill.
+     * @throws IllegalArgumentException if the longs are out of the file.
+     */
+    public void readLongs(long offset, long[] dst) {
+        checkRange(offset, (long) dst.length * Long.BYTES, false);
+        int maxLongs = (WINDOW_SIZE - ALIGNMENT) / Long.BYTES;
+        for (int i = 0; i < dst.length; ) {
+            long pos = offset + (long) i * Long.BYTES;
+            int length = Math.min(dst.length - i, maxLongs);
+            window(pos, length * Long.BYTES, false)
+                    .slice(index(pos), length * Long.BYTES)
+                    .order(order)
+                    .asLongBuffer()
+                    .get(dst, i, length);
+            i += length;
+        }
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @param value  The byte to write.
+     */
+    public void writeByte(long offset, byte value) {
+        window(offset, Byte.BYTES, true).put(index(offset), value);
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @param value  The short to write.
+     */
+    public void writeShort(long offset, short value) {
+        window(offset, Short.BYTES, true).putShort(index(offset), value);
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @param value  The int to write.
+     */
+    public void writeInt(long offset, int value) {
+        window(offset, Integer.BYTES, true).putInt(index(offset), value);
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @param value  The long to write.
+     */
+    public void writeLong(long offset, long value) {
+        window(offset, Long.BYTES, true).putLong(index(offset), value);
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @param value  The float to write.
+     */
+    public void writeFloat(long offset, float value) {
+        window(offset, Float.BYTES, true).putFloat(index(offset), value);
+    }
+
+    /**
+     * @param offset The byte offset in the file.
+     * @param value  The double to write.
+     */
+    public void writeDouble(long offset, double value) {
+        window(offset, Double.BYTES, true).putDouble(index(offset), value);
+    }
+
+    /**
+     * Writes the longs from the given array by bulk copies to the mapped window.
+     *
+     * @param offset The byte offset in the file of the first long.
+     * @param src    The array to write.
+     */
+    public void writeLongs(long offset, long[] src) {
+        checkRange(offset, (long) src.length * Long.BYTES, true);
+        int maxLongs = (WINDOW_SIZE - ALIGNMENT) / Long.BYTES;
+        for (int i = 0; i < src.length; ) {
+            long pos = offset + (long) i * Long.BYTES;
+            int length = Math.min(src.length - i, maxLongs);
+            window(pos, length * Long.BYTES, true)
+                    .slice(index(pos), length * Long.BYTES)
+                    .order(order)
+                    .asLongBuffer()
+                    .put(src, i, length);
+            i += length;
+        }
+    }
+
+    /**
+     * Forces the written values to the storage device.
+     */
+    public void force() {
+        if (window instanceof MappedByteBuffer mapped && !readOnly)
+            mapped.force();
+    }
+
+    /**
+     * Closes the file. The written values are written to the file by the operating system.
+     *
+     * @throws RuntimeIOException if IOException is thrown during closing.
+     */
+    @Override
+    public void close() {
+        window = null;
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Maps the region of the file into the window.
+     *
+     * @param start  The position of the region.
+     * @param length The length of the region.
+     * @return The buffer of the region.
+     * @throws IOException if it is thrown during mapping.
+     */
+    ByteBuffer map(long start, int length) throws IOException {
+        return channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, start, length);
+    }
+
+    /**
+     * @return The current size of the file.
+     * @throws IOException if it is thrown during reading the size.
+     */
+    long currentSize() throws IOException {
+        return channel.size();
+    }
+
+
+    private ByteBuffer window(long offset, int length, boolean write) {
+        if (window != null && offset >= windowStart && offset + length <= windowStart + window.capacity())
+            return window;
+
+        checkRange(offset, length, write);
+        long start = offset - offset % ALIGNMENT;
+        long end = Math.max(offset + length, Math.min(size, start + windowSize));
+        try {
+            window = map(start, (int) (end - start));
+            window.order(order);
+            windowStart = start;
+            size = Math.max(size, end);
+            return window;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private int index(long offset) {
+        return (int) (offset - windowStart);
+    }
+
+    private void checkRange(long offset, long length, boolean write) {
+        if (offset < 0)
+            throw new IllegalArgumentException("offset is negative: " + offset);
+        if (write && readOnly)
+            throw new ReadOnlyBufferException();
+        if (write || offset + length <= size)
+            return;
+        try {
+            size = currentSize();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        if (offset + length > size)
+            throw new IllegalArgumentException("The range is out of the file: offset - " + offset + ", length - " + length + ", size - " + size);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + path + " : " + order + " : " + size + " ]";
+    }
+}
@@ -0,0 +1,78 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.utils.FileIOUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+
+/**
+ * The {@code CharOffsetCounter} converts ascending byte offsets of a text file to char offsets
+ * (indexes in the string returned by {@link TextFile#readString()}). It remembers the last
+ * converted offset and decodes only the bytes between it and the next one, so converting
+ * all offsets costs one decoding pass over the file at most.
+ */
+class CharOffsetCounter {
+
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    private final Path path;
+    private final CharsetDecoder decoder;
+    private final CharBuffer out = CharBuffer.allocate(8192);
+    private long bytes;
+    private long chars;
+
+    /**
+     * @param path   The path of the text file.
+     * @param layout The layout of the text file data.
+     */
+    CharOffsetCounter(Path path, CharsetLayout layout) {
+        this.path = path;
+        this.decoder = layout.charset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = layout.bom();
+    }
+
+    /**
+     * Returns the number of chars decoded from the bytes before the given offset.
+     *
+     * @param offset The byte offset. It must not be less than the previous one.
+     * @return The char offset.
+     * @throws IllegalArgumentException if the offset is less than the previous one.
+     */
+    long charOffset(long offset) {
+        if (offset < bytes)
+            throw new IllegalArgumentException("The offsets are not ascending: previous - " + bytes + ", next - " + offset);
+
+        while (bytes < offset) {
+            int length = (int) Math.min(WINDOW_SIZE, offset - bytes);
+            ByteBuffer in = read(bytes, length);
+            while (true) {
+                CoderResult result = decoder.decode(in, out, false);
+                chars += out.position();
+                out.clear();
+                if (result.isUnderflow())
+                    break;
+            }
+            if (in.position() == 0)
+                break;
+            bytes += in.position();
+        }
+        return chars;
+    }
+
+    /**
+     * Reads the bytes of the text file. The overriding method may return fewer bytes than requested.
+     *
+     * @param pos    The position of the first byte.
+     * @param length The maximum number of bytes to read.
+     * @return The buffer ready to read with the read bytes.
+     */
+    protected ByteBuffer read(long pos, int length) {
+        return FileIOUtils.map(path, pos, length);
+    }
+}
@@ -0,0 +1,136 @@
+package com.branow.file.kit.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * The {@code CharsetLayout} describes how characters of a charset are laid out in a file:
+ * the length of a byte order mark, the code unit size and the bytes of line separators.
+ * It resolves charsets with a byte order mark ({@link StandardCharsets#UTF_16}) to the charset
+ * of the actual byte order, so that any part of the file can be decoded on its own.
+ */
+class CharsetLayout {
+
+    private static final Set<String> SELF_SYNCHRONIZING = Set.of("UTF-8", "UTF-16BE", "UTF-16LE", "UTF-32", "UTF-32BE", "UTF-32LE");
+
+    private final Charset charset;
+    private final int bom;
+    private final byte[] lf;
+    private final byte[] cr;
+
+    /**
+     * Creates the layout of the given charset for a file starting with the given bytes.
+     *
+     * @param charset The charset of the file data.
+     * @param head    The first bytes of the file (at least two if the file has them).
+     * @return The layout of the file data.
+     */
+    static CharsetLayout of(Charset charset, ByteBuffer head) {
+        if (charset.equals(StandardCharsets.UTF_16)) {
+            if (head.remaining() >= 2) {
+                int b0 = head.get(head.position()) & 0xFF;
+                int b1 = head.get(head.position() + 1) & 0xFF;
+                if (b0 == 0xFF && b1 == 0xFE)
+                    return new CharsetLayout(StandardCharsets.UTF_16LE, 2);
+                if (b0 == 0xFE && b1 == 0xFF)
+                    return new CharsetLayout(StandardCharsets.UTF_16BE, 2);
+            }
+            return new CharsetLayout(StandardCharsets.UTF_16BE, 0);
+        }
+        return new CharsetLayout(charset, 0);
+    }
+
+    /**
+     * Creates the layout of an already resolved charset.
+     *
+     * @param charset The charset to decode any aligned part of the file.
+     * @param bom     The number of bytes of the byte order mark at the start of the file.
+     * @return The layout of the file data.
+     */
+    static CharsetLayout of(Charset charset, int bom) {
+        return new CharsetLayout(charset, bom);
+    }
+
+    private CharsetLayout(Charset charset, int bom) {
+        this.charset = charset;
+        this.bom = bom;
+        this.lf = "\n".getBytes(charset);
+        this.cr = "\r".getBytes(charset);
+    }
+
+    /**
+     * @return The charset to decode any aligned part of the file.
+     */
+    Charset charset() {
+        return charset;
+    }
+
+    /**
+     * @return The number of bytes of the byte order mark at the start of the file.
+     */
+    int bom() {
+        return bom;
+    }
+
+    /**
+     * @return The number of bytes to which every character start is aligned.
+     */
+    int unit() {
+        return lf.length;
+    }
+
+    /**
+     * Checks whether the encoded chars can be found only at char starts, so that the encoded text
+     * can be searched as bytes. It is true for UTF-8, UTF-16, UTF-32 and single-byte charsets,
+     * while in other multibyte charsets (e.g. Shift_JIS) a trailing byte may be equal to another char.
+     *
+     * @return {@code True} if a byte search of the encoded text finds only the text.
+     */
+    boolean isSelfSynchronizing() {
+        return SELF_SYNCHRONIZING.contains(charset.name())
+                || charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1;
+    }
+
+    /**
+     * Checks whether the bytes of the line feed character start at the given buffer position.
+     *
+     * @param buffer The buffer to check.
+     * @param pos    The absolute position in the buffer.
+     * @return {@code True} if there is a line feed at the position.
+     */
+    boolean isLineFeed(ByteBuffer buffer, int pos) {
+        return matches(buffer, pos, lf);
+    }
+
+    /**
+     * Decodes the bytes of one line removing its line separator ({@code \n} or {@code \r\n}).
+     *
+     * @param bytes The bytes of the line including its separator if there is one.
+     * @return The string of the line.
+     */
+    String decodeLine(ByteBuffer bytes) {
+        int end = bytes.limit();
+        if (end - lf.length >= bytes.position() && matches(bytes, end - lf.length, lf)) {
+            end -= lf.length;
+            if (end - cr.length >= bytes.position() && matches(bytes, end - cr.length, cr))
+                end -= cr.length;
+        }
+        return charset.decode(bytes.limit(end)).toString();
+    }
+
+    private static boolean matches(ByteBuffer buffer, int pos, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(pos + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + charset + " : " + bom + " : " + Arrays.toString(lf) + " ]";
+    }
+}
@@ -0,0 +1,381 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.utils.Chunker;
+import com.branow.file.kit.utils.FileCreator;
+import com.branow.file.kit.utils.FileIOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The {@code ChunkStore} is a local content-addressable store of file chunks. Files are split into
+ * chunks by content-defined chunking (see {@link Chunker}), every chunk is stored once in a file named
+ * by its SHA-256 digest, so storing many similar files writes only their unique chunks. Chunk files
+ * are laid out in hashed subdirectories: {@code root/ab/cd/abcd...}.<br><br>
+ * <p>
+ * Storing a file returns a {@link Manifest}: the list of digests and lengths of its chunks, which is enough
+ * to reconstruct the file. Chunks are hashed and written concurrently in batches (several chunks per
+ * processor core). Chunk bytes are transferred between files by {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)} without copying them into the heap.
+ */
+public class ChunkStore {
+
+    private static final int CHUNKS_PER_TASK = 16;
+    private static final int HASH_LENGTH = 64;
+
+    private final Path root;
+    private final int averageSize;
+
+    /**
+     * Opens the store in the given directory with the default average chunk size.
+     * The directory is created if it doesn't exist.
+     *
+     * @param root The root directory of the store.
+     * @see ChunkStore#ChunkStore(Path, int)
+     */
+    public ChunkStore(Path root) {
+        this(root, Chunker.DEFAULT_AVERAGE_SIZE);
+    }
+
+    /**
+     * Opens the store in the given directory. The directory is created if it doesn't exist.
+     *
+     * @param root        The root directory of the store.
+     * @param averageSize The average size of chunks in bytes (see {@link Chunker#chunks(Path, int)}).
+     * @throws NullPointerException     if {@code root} is null.
+     * @throws IllegalArgumentException if {@code averageSize} isn't a power of two from 64 to 2^27.
+     * @throws RuntimeIOException       if IOException is thrown during creating the directory.
+     */
+    public ChunkStore(Path root, int averageSize) {
+        if (root == null) throw new NullPointerException("root is null");
+        if (averageSize < 64 || Integer.bitCount(averageSize) != 1 || averageSize > (1 << 27))
+            throw new IllegalArgumentException("averageSize must be a power of two from 64 to 2^27: " + averageSize);
+        FileCreator.of(FileCreator.CreateOption.DIRECTORY, FileCreator.CreateOption.NONEXISTENT_PARENT,
+                FileCreator.CreateOption.MAY_EXIST).create(root);
+        this.root = root;
+        this.averageSize = averageSize;
+    }
+
+    /**
+     * Stores the given file. The number of chunks hashed concurrently depends on the number of available processors.
+     *
+     * @param file The file to store.
+     * @return The manifest of the file.
+     * @see ChunkStore#store(ByteFile, int)
+     */
+    public Manifest store(ByteFile file) {
+        return store(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stores the given file. The file is split into chunks, the chunks are hashed and those that
+     * aren't in the store are written into it. A chunk is written to a temporary file and then moved,
+     * so the store never contains a partially written chunk.
+     *
+     * @param file        The file to store.
+     * @param parallelism The number of concurrent tasks of hashing and writing.
+     * @return The manifest of the file.
+     * @throws NullPointerException     if {@code file} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one or {@code file} isn't stored as is
+     *                                  (e.g. a {@link CompressedByteFile}).
+     * @throws RuntimeIOException       if IOException is thrown during reading or writing.
+     */
+    public Manifest store(ByteFile file, int parallelism) {
+        if (file == null) throw new NullPointerException("file is null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        if (!file.isStored())
+            throw new IllegalArgumentException("The stored file must be stored as is: " + file.path());
+
+        Path path = file.path();
+        List<Entry> entries = new ArrayList<>();
+        AtomicLong written = new AtomicLong();
+        try (Stream<Chunker.Chunk> stream = Chunker.chunks(path, averageSize)) {
+            Iterator<Chunker.Chunk> chunks = stream.iterator();
+            List<Chunker.Chunk> batch = new ArrayList<>();
+            while (chunks.hasNext()) {
+                batch.add(chunks.next());
+                if (batch.size() == parallelism * CHUNKS_PER_TASK || !chunks.hasNext()) {
+                    List<Chunker.Chunk> current = batch;
+                    IntStream.range(0, current.size()).parallel()
+                            .mapToObj(i -> storeChunk(path, current.get(i), written))
+                            .forEachOrdered(entries::add);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        long size = entries.stream().mapToLong(Entry::length).sum();
+        return new Manifest(entries, size, written.get());
+    }
+
+    /**
+     * Reconstructs the file described by the manifest. The target file is created if it doesn't exist,
+     * or overwritten otherwise. The digest of every chunk is verified before the chunk is written,
+     * so a corrupted chunk file is never copied into the target.
+     *
+     * @param manifest The manifest of the file.
+     * @param target   The path of the reconstructed file.
+     * @throws NullPointerException  if {@code manifest} or {@code target} is null.
+     * @throws IllegalStateException if a chunk is missing in the store, has a wrong length or is corrupted.
+     * @throws RuntimeIOException    if IOException is thrown during reading or writing.
+     */
+    public void restore(Manifest manifest, Path target) {
+        if (manifest == null) throw new NullPointerException("manifest is null");
+        if (target == null) throw new NullPointerException("target is null");
+
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : manifest.entries()) {
+                Path chunk = chunkPath(entry.hash());
+                if (!Files.exists(chunk))
+                    throw new IllegalStateException("The chunk is missing in the store: " + entry.hash());
+                if (Files.size(chunk) != entry.length())
+                    throw new IllegalStateException("The chunk has a wrong length: " + entry.hash());
+                ByteBuffer bytes = FileIOUtils.map(chunk, 0, entry.length());
+                MessageDigest digest = sha256();
+                digest.update(bytes.duplicate());
+                if (!HexFormat.of().formatHex(digest.digest()).equals(entry.hash()))
+                    throw new IllegalStateException("The chunk is corrupted: " + entry.hash());
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * @param hash The hexadecimal SHA-256 digest of a chunk.
+     * @return {@code True} if the store contains the chunk.
+     * @throws IllegalArgumentException if {@code hash} isn't a lowercase hexadecimal SHA-256 digest.
+     */
+    public boolean contains(String hash) {
+        return Files.exists(chunkPath(hash));
+    }
+
+    /**
+     * @param hash The hexadecimal SHA-256 digest of a chunk.
+     * @return The path of the chunk file in the store.
+     * @throws NullPointerException     if {@code hash} is null.
+     * @throws IllegalArgumentException if {@code hash} isn't a lowercase hexadecimal SHA-256 digest.
+     */
+    public Path chunkPath(String hash) {
+        if (hash == null) throw new NullPointerException("hash is null");
+        if (!isHash(hash))
+            throw new IllegalArgumentException("The hash isn't a lowercase hexadecimal SHA-256 digest: " + hash);
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    /**
+     * @return The root directory of the store.
+     */
+    public Path root() {
+        return root;
+    }
+
+
+    private Entry storeChunk(Path source, Chunker.Chunk chunk, AtomicLong written) {
+        MessageDigest digest = sha256();
+        digest.update(FileIOUtils.map(source, chunk.offset(), chunk.length()));
+        String hash = HexFormat.of().formatHex(digest.digest());
+        Path target = chunkPath(hash);
+        if (Files.exists(target))
+            return new Entry(hash, chunk.length());
+
+        try {
+            Path dir = target.getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, hash, ".tmp");
+            try {
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    for (long done = 0; done < chunk.length(); ) {
+                        long n = in.transferTo(chunk.offset() + done, chunk.length() - done, out);
+                        if (n <= 0)
+                            throw new IllegalStateException("The file ends unexpectedly: " + source);
+                        done += n;
+                    }
+                }
+                Files.move(temp, target);
+                written.addAndGet(chunk.length());
+            } catch (FileAlreadyExistsException e) {
+                // the same chunk is stored concurrently
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return new Entry(hash, chunk.length());
+    }
+
+    private static boolean isHash(String hash) {
+        if (hash.length() != HASH_LENGTH)
+            return false;
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+                return false;
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + root + " : " + averageSize + " ]";
+    }
+
+    /**
+     * A chunk of a manifest: its hexadecimal SHA-256 digest and length in bytes.
+     */
+    public static class Entry {
+
+        private final String hash;
+        private final int length;
+
+        private Entry(String hash, int length) {
+            this.hash = hash;
+            this.length = length;
+        }
+
+        /**
+         * @return The hexadecimal SHA-256 digest of the chunk.
+         */
+        public String hash() {
+            return hash;
+        }
+
+        /**
+         * @return The length of the chunk in bytes.
+         */
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + hash + " : " + length + " ]";
+        }
+    }
+
+    /**
+     * The manifest of a stored file: the ordered list of its chunks. A manifest is saved as a text file,
+     * which first line is the size of the file and every next line is a digest and a length of a chunk.
+     */
+    public static class Manifest {
+
+        private final List<Entry> entries;
+        private final long size;
+        private final long writtenBytes;
+
+        private Manifest(List<Entry> entries, long size, long writtenBytes) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.size = size;
+            this.writtenBytes = writtenBytes;
+        }
+
+        /**
+         * Reads the manifest from the given file.
+         *
+         * @param path The path of the manifest file.
+         * @return The read manifest.
+         * @throws IllegalArgumentException if the file isn't a manifest.
+         * @throws RuntimeIOException       if IOException is thrown during reading.
+         */
+        public static Manifest read(Path path) {
+            try {
+                List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+                if (lines.isEmpty())
+                    throw new IllegalArgumentException("The file isn't a manifest: " + path);
+                List<Entry> entries = new ArrayList<>();
+                long size = 0;
+                for (String line : lines.subList(1, lines.size())) {
+                    String[] parts = line.split(" ");
+                    if (parts.length != 2 || !isHash(parts[0]))
+                        throw new IllegalArgumentException("The file isn't a manifest: " + path);
+                    Entry entry = new Entry(parts[0], Integer.parseInt(parts[1]));
+                    if (entry.length() < 0)
+                        throw new IllegalArgumentException("The file isn't a manifest: " + path);
+                    entries.add(entry);
+                    size += entry.length();
+                }
+                if (size != Long.parseLong(lines.get(0)))
+                    throw new IllegalArgumentException("The manifest has a wrong size: " + path);
+                return new Manifest(entries, size, 0);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The file isn't a manifest: " + path, e);
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+        }
+
+        /**
+         * Writes this manifest to the given file. The file is created if it doesn't exist, or overwritten otherwise.
+         *
+         * @param path The path of the manifest file.
+         * @throws RuntimeIOException if IOException is thrown during writing.
+         */
+        public void write(Path path) {
+            StringBuilder sb = new StringBuilder().append(size).append('\n');
+            for (Entry entry : entries) {
+                sb.append(entry.hash()).append(' ').append(entry.length()).append('\n');
+            }
+            try {
+                Files.writeString(path, sb, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+        }
+
+        /**
+         * @return The unmodifiable list of chunks in the order of the file.
+         */
+        public List<Entry> entries() {
+            return entries;
+        }
+
+        /**
+         * @return The size of the file in bytes.
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * @return The number of bytes of new chunks written while storing the file
+         * ({@code 0} for a manifest read from a file).
+         */
+        public long writtenBytes() {
+            return writtenBytes;
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + size + " : " + entries.size() + " : " + writtenBytes + " ]";
+        }
+    }
+}
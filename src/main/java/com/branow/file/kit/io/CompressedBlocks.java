@@ -0,0 +1,755 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.utils.ByteSearcher;
+import com.branow.file.kit.utils.FileDelta;
+import com.branow.file.kit.utils.FileHasher;
+import com.branow.file.kit.utils.FileIOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The {@code CompressedBlocks} stores data in a file as a sequence of independently compressed blocks.
+ * Every block is {@code [raw length][compressed length][deflated bytes]}, where lengths are 4-byte integers.
+ * An empty file contains no blocks.<br><br>
+ * <p>
+ * The index of blocks (their positions in the file and in the data) is built in memory by reading
+ * only the block headers, and it is extended when the file grows. Positional reads inflate only the
+ * blocks containing the requested range, the last inflated block is cached for sequential reads.
+ * Appending adds new blocks (the last block is recompressed if it isn't full). Writing and inserting
+ * in the middle rebuild the file in a temporary file: the blocks before the changed one are copied
+ * compressed as they are, the rest of the data is streamed through bounded buffers and recompressed.<br><br>
+ * <p>
+ * The blocks can be read through a channel opened by the caller: the channel isn't closed and
+ * the blocks are read-only, they are read from the opened file even if it is renamed or replaced.
+ */
+class CompressedBlocks implements TextFileFollower.Source {
+
+    static final int BLOCK_SIZE = 64 << 10;
+    private static final int HEADER_SIZE = 8;
+    private static final int VIEW_WINDOW_SIZE = 16 * BLOCK_SIZE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private long[] blockPositions = new long[16];
+    private long[] blockStarts = new long[17];
+    private int blocks;
+    private long indexedSize;
+    private long indexedModified;
+    private int cachedBlock = -1;
+    private byte[] cached;
+
+    /**
+     * @param path The path of the file with compressed blocks.
+     */
+    CompressedBlocks(Path path) {
+        this(path, null);
+    }
+
+    /**
+     * @param path    The path of the file with compressed blocks.
+     * @param channel The channel of the file opened for reading, it isn't closed by the blocks.
+     */
+    CompressedBlocks(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * @return The path of the file with compressed blocks.
+     */
+    Path path() {
+        return path;
+    }
+
+    /**
+     * @return The number of bytes of the uncompressed data.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     */
+    @Override
+    public synchronized long size() {
+        refresh();
+        return blockStarts[blocks];
+    }
+
+    /**
+     * Reads the uncompressed bytes starting from the given position into the given buffer.
+     *
+     * @param dst The buffer into which the bytes are read.
+     * @param pos The position in the uncompressed data.
+     * @return The number of read bytes or {@code -1} if the position is at the end of the data.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     */
+    @Override
+    public int read(ByteBuffer dst, long pos) {
+        ByteBuffer bytes = read(pos, dst.remaining());
+        if (!bytes.hasRemaining())
+            return dst.hasRemaining() ? -1 : 0;
+        int length = bytes.remaining();
+        dst.put(bytes);
+        return length;
+    }
+
+    /**
+     * Reads all uncompressed bytes after the given position.
+     *
+     * @param pos The position in the uncompressed data.
+     * @return The array of the read bytes.
+     * @throws IllegalStateException if the bytes don't fit in an array.
+     * @throws RuntimeIOException    if IOException is thrown during reading.
+     */
+    byte[] readBytes(long pos) {
+        long length = Math.max(0, size() - pos);
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalStateException("The uncompressed data is too long for an array: " + length + ", " + path);
+        return readBytes(pos, (int) length);
+    }
+
+    /**
+     * Reads the uncompressed bytes starting from the given position.
+     *
+     * @param pos    The position in the uncompressed data.
+     * @param length The maximum number of bytes to read.
+     * @return The array of the read bytes.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     */
+    byte[] readBytes(long pos, int length) {
+        ByteBuffer buffer = read(pos, length);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads the uncompressed bytes starting from the given position. Only the blocks containing the bytes are inflated.
+     *
+     * @param pos    The position in the uncompressed data.
+     * @param length The maximum number of bytes to read.
+     * @return The buffer ready to read with the read bytes.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     */
+    synchronized ByteBuffer read(long pos, int length) {
+        refresh();
+        long end = Math.min(blockStarts[blocks], pos + length);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, end - pos));
+        for (int i = block(pos); buffer.hasRemaining(); i++) {
+            byte[] block = inflate(i);
+            int from = (int) (pos + buffer.position() - blockStarts[i]);
+            buffer.put(block, from, Math.min(block.length - from, buffer.remaining()));
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @return The input stream of the uncompressed data, which inflates the blocks one by one.
+     */
+    InputStream newInputStream() {
+        return new InputStream() {
+            private long pos;
+            private ByteBuffer block = ByteBuffer.allocate(0);
+
+            @Override
+            public int read() {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0)
+                    return 0;
+                if (!block.hasRemaining()) {
+                    block = CompressedBlocks.this.read(pos, BLOCK_SIZE);
+                    if (!block.hasRemaining())
+                        return -1;
+                    pos += block.remaining();
+                }
+                int n = Math.min(len, block.remaining());
+                block.get(b, off, n);
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Returns the read-only channel of the uncompressed data. The channel holds no resources,
+     * its reads inflate only the blocks containing the read bytes.
+     *
+     * @return The read-only channel of the uncompressed data.
+     */
+    SeekableByteChannel newChannel() {
+        return new SeekableByteChannel() {
+            private long position;
+            private boolean open = true;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (!open)
+                    throw new ClosedChannelException();
+                int n = CompressedBlocks.this.read(dst, position);
+                position += Math.max(0, n);
+                return n;
+            }
+
+            @Override
+            public int write(ByteBuffer src) {
+                throw new NonWritableChannelException();
+            }
+
+            @Override
+            public long position() {
+                return position;
+            }
+
+            @Override
+            public SeekableByteChannel position(long newPosition) {
+                if (newPosition < 0) throw new IllegalArgumentException("newPosition is negative: " + newPosition);
+                position = newPosition;
+                return this;
+            }
+
+            @Override
+            public long size() {
+                return CompressedBlocks.this.size();
+            }
+
+            @Override
+            public SeekableByteChannel truncate(long size) {
+                throw new NonWritableChannelException();
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
+
+    /**
+     * Opens the read-only view of the uncompressed data. The window of the view holds
+     * the inflated blocks containing the accessed values.
+     *
+     * @return The opened read-only view of the uncompressed data.
+     * @see ByteFileView
+     */
+    ByteFileView view() {
+        return new ByteFileView(path, size(), VIEW_WINDOW_SIZE) {
+            @Override
+            ByteBuffer map(long start, int length) {
+                return CompressedBlocks.this.read(start, length).asReadOnlyBuffer();
+            }
+
+            @Override
+            long currentSize() {
+                return CompressedBlocks.this.size();
+            }
+        };
+    }
+
+    /**
+     * Returns the lazy stream of offsets of all occurrences of the given bytes in the uncompressed data
+     * in ascending order. The blocks are inflated and searched one by one.
+     *
+     * @param pattern The bytes to search.
+     * @return The stream of offsets of the occurrences.
+     * @see ByteSearcher#findAll(InputStream, byte[])
+     */
+    LongStream findAll(byte[] pattern) {
+        return ByteSearcher.findAll(newInputStream(), pattern);
+    }
+
+    /**
+     * Computes the checksum of the uncompressed data, so it is equal to the checksum of the decompressed
+     * file. The blocks are inflated and hashed one by one.
+     *
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of the uncompressed data.
+     * @see FileHasher#checksum(InputStream, FileHasher.Algorithm)
+     */
+    byte[] checksum(FileHasher.Algorithm algorithm) {
+        return FileHasher.checksum(newInputStream(), algorithm);
+    }
+
+    /**
+     * Computes the signature of the uncompressed data.
+     *
+     * @param blockSize The size of a signature block in bytes.
+     * @return The signature of the uncompressed data.
+     * @see FileDelta#signature(SeekableByteChannel, int)
+     */
+    FileDelta.Signature signature(int blockSize) {
+        return FileDelta.signature(newChannel(), blockSize);
+    }
+
+    /**
+     * Computes the delta that turns the file described by the signature into the uncompressed data.
+     *
+     * @param signature The signature of the old version.
+     * @return The delta from the old version to the uncompressed data.
+     * @see FileDelta#delta(SeekableByteChannel, FileDelta.Signature)
+     */
+    FileDelta.Delta delta(FileDelta.Signature signature) {
+        return FileDelta.delta(newChannel(), signature);
+    }
+
+    /**
+     * Returns the output stream that appends bytes to the end of the uncompressed data. The bytes are
+     * buffered and appended by full blocks, the rest is appended when the stream is closed.
+     *
+     * @return The output stream appending to the uncompressed data.
+     */
+    OutputStream newOutputStream() {
+        return new OutputStream() {
+            private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+
+            @Override
+            public void write(int b) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                while (len > 0) {
+                    int n = Math.min(len, block.remaining());
+                    block.put(b, off, n);
+                    off += n;
+                    len -= n;
+                    if (!block.hasRemaining())
+                        flush();
+                }
+            }
+
+            @Override
+            public void flush() {
+                append(block.flip());
+                block.clear();
+            }
+
+            @Override
+            public void close() {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Appends the given bytes to the end of the uncompressed data.
+     *
+     * @param bytes The bytes to append.
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    synchronized void append(ByteBuffer bytes) {
+        refresh();
+        if (!bytes.hasRemaining())
+            return;
+        checkWritable();
+        Deflater deflater = new Deflater();
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long pos = indexedSize;
+            ByteBuffer tail = ByteBuffer.allocate(0);
+            if (blocks > 0 && blockStarts[blocks] - blockStarts[blocks - 1] < BLOCK_SIZE) {
+                tail = ByteBuffer.wrap(inflate(blocks - 1));
+                pos = blockPositions[blocks - 1];
+                blocks--;
+            }
+
+            byte[] raw = new byte[BLOCK_SIZE];
+            while (tail.hasRemaining() || bytes.hasRemaining()) {
+                int length = Math.min(tail.remaining(), raw.length);
+                tail.get(raw, 0, length);
+                int rest = Math.min(bytes.remaining(), raw.length - length);
+                bytes.get(raw, length, rest);
+                length += rest;
+
+                ByteBuffer block = deflate(deflater, raw, length);
+                addBlock(pos, length);
+                while (block.hasRemaining()) {
+                    pos += fc.write(block, pos);
+                }
+            }
+            fc.truncate(pos);
+            indexed(pos);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Truncates the uncompressed data to the given size. Only the block containing the new end is recompressed.
+     *
+     * @param size The new size of the uncompressed data.
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    synchronized void truncate(long size) {
+        refresh();
+        if (size >= blockStarts[blocks])
+            return;
+        checkWritable();
+        int i = block(size);
+        byte[] head = Arrays.copyOf(inflate(i), (int) (size - blockStarts[i]));
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            fc.truncate(blockPositions[i]);
+            indexed(blockPositions[i]);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        blocks = i;
+        append(ByteBuffer.wrap(head));
+    }
+
+    /**
+     * Replaces the uncompressed data after the given position with the given bytes.
+     *
+     * @param bytes The bytes to write.
+     * @param pos   The position in the uncompressed data.
+     */
+    synchronized void overwrite(ByteBuffer bytes, long pos) {
+        truncate(pos);
+        append(bytes);
+    }
+
+    /**
+     * Replaces the uncompressed bytes from the given position to the position plus the number of the given bytes.
+     *
+     * @param bytes The bytes to write.
+     * @param pos   The position in the uncompressed data.
+     * @throws RuntimeIOException if IOException is thrown during reading or writing.
+     * @see CompressedBlocks#splice(ByteBuffer, long, long)
+     */
+    synchronized void write(ByteBuffer bytes, long pos) {
+        splice(bytes, pos, bytes.remaining());
+    }
+
+    /**
+     * Inserts the given bytes at the given position of the uncompressed data.
+     *
+     * @param bytes The bytes to insert.
+     * @param pos   The position in the uncompressed data.
+     * @throws RuntimeIOException if IOException is thrown during reading or writing.
+     * @see CompressedBlocks#splice(ByteBuffer, long, long)
+     */
+    synchronized void insert(ByteBuffer bytes, long pos) {
+        splice(bytes, pos, 0);
+    }
+
+    /**
+     * Applies the delta to the uncompressed data. The new version is assembled from the blocks of the
+     * uncompressed data and the literal bytes in a temporary file in the same directory, which is compressed
+     * the same way and replaces the file keeping its permissions and owner.
+     *
+     * @param delta The delta from the uncompressed data to the new version.
+     * @return The number of written uncompressed bytes.
+     * @throws IllegalArgumentException if the size of the uncompressed data doesn't equal to the size the delta is computed for.
+     * @throws RuntimeIOException       if IOException is thrown during reading or writing.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    synchronized long applyDelta(FileDelta.Delta delta) {
+        checkWritable();
+        long size = size();
+        if (size != delta.basisSize())
+            throw new IllegalArgumentException("The delta is computed for another basis: expected size - "
+                    + delta.basisSize() + ", actual size - " + size);
+
+        long written = 0;
+        for (FileDelta.Instruction instruction : delta.instructions()) {
+            written += instruction.length();
+        }
+        rebuild(0, out -> {
+            for (FileDelta.Instruction instruction : delta.instructions()) {
+                if (instruction.isCopy()) {
+                    long from = (long) instruction.block() * delta.blockSize();
+                    if (copy(from, from + instruction.length(), out) < instruction.length())
+                        throw new IllegalStateException("The basis ends unexpectedly: " + path);
+                } else {
+                    out.write(instruction.data());
+                }
+            }
+        });
+        return written;
+    }
+
+    /**
+     * Replaces the file with the given compressed file keeping its permissions and owner.
+     * The blocks are read from the replaced file after that.
+     *
+     * @param temp The compressed file in the same directory that replaces the file.
+     * @throws IOException if an I/O error occurs.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    synchronized void replace(Path temp) throws IOException {
+        checkWritable();
+        FileIOUtils.replace(path, temp);
+        reset();
+    }
+
+
+    /**
+     * Replaces {@code length} uncompressed bytes at the given position with the given bytes. The blocks before
+     * the block containing the position are copied compressed, the rest of the data is streamed by blocks.
+     *
+     * @param bytes  The bytes to write.
+     * @param pos    The position in the uncompressed data.
+     * @param length The number of the replaced uncompressed bytes.
+     * @throws RuntimeIOException if IOException is thrown during reading or writing.
+     */
+    private void splice(ByteBuffer bytes, long pos, long length) {
+        checkWritable();
+        long size = size();
+        long from = Math.min(pos, size);
+        long to = Math.min(size, from + length);
+        int first = block(from);
+        long start = first < blocks ? blockStarts[first] : size;
+        rebuild(first < blocks ? blockPositions[first] : indexedSize, out -> {
+            copy(start, from, out);
+            byte[] buffer = new byte[Math.min(BLOCK_SIZE, bytes.remaining())];
+            while (bytes.hasRemaining()) {
+                int n = Math.min(buffer.length, bytes.remaining());
+                bytes.get(buffer, 0, n);
+                out.write(buffer, 0, n);
+            }
+            copy(to, size, out);
+        });
+    }
+
+    /**
+     * Rebuilds the file in a temporary file in the same directory, which replaces the file keeping its
+     * permissions and owner. The compressed blocks before the given position are copied as they are.
+     *
+     * @param prefix The position in the file of the first block which isn't copied.
+     * @param rest   The writer of the uncompressed data after the copied blocks.
+     * @throws RuntimeIOException if IOException is thrown during reading or writing.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    private void rebuild(long prefix, Content rest) {
+        Path absolute = path.toAbsolutePath();
+        try {
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    for (long done = 0; done < prefix; ) {
+                        long n = in.transferTo(done, prefix - done, out);
+                        if (n <= 0)
+                            throw new IllegalStateException("The file ends unexpectedly: " + path);
+                        done += n;
+                    }
+                }
+                try (OutputStream out = new CompressedBlocks(temp).newOutputStream()) {
+                    rest.write(out);
+                }
+                replace(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Writes the uncompressed bytes from {@code from} to {@code to} to the stream block by block.
+     *
+     * @return The number of written bytes, it is less than requested if the data ends.
+     */
+    private long copy(long from, long to, OutputStream out) throws IOException {
+        long pos = from;
+        while (pos < to) {
+            ByteBuffer block = read(pos, (int) Math.min(BLOCK_SIZE, to - pos));
+            if (!block.hasRemaining())
+                break;
+            out.write(block.array(), 0, block.remaining());
+            pos += block.remaining();
+        }
+        return pos - from;
+    }
+
+    private void refresh() {
+        try {
+            long size = channel != null ? channel.size() : Files.size(path);
+            long modified = channel != null ? indexedModified : Files.getLastModifiedTime(path).toMillis();
+            if (size == indexedSize && modified == indexedModified)
+                return;
+            if (size <= indexedSize || blocks > 0 && !sameLastHeader())
+                reset();
+            scan(size);
+            indexedModified = modified;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private boolean sameLastHeader() throws IOException {
+        FileChannel fc = openRead();
+        try {
+            ByteBuffer header = readHeader(fc, blockPositions[blocks - 1]);
+            return header.getInt() == blockStarts[blocks] - blockStarts[blocks - 1]
+                    && blockPositions[blocks - 1] + HEADER_SIZE + header.getInt() == indexedSize;
+        } finally {
+            release(fc);
+        }
+    }
+
+    private void scan(long size) throws IOException {
+        FileChannel fc = openRead();
+        try {
+            long pos = indexedSize;
+            while (pos < size) {
+                ByteBuffer header = readHeader(fc, pos);
+                if (header.remaining() < HEADER_SIZE)
+                    throw new IllegalStateException("The file has a corrupted block at " + pos + ": " + path);
+                int rawLength = header.getInt();
+                int compressedLength = header.getInt();
+                if (rawLength < 0 || compressedLength < 0 || pos + HEADER_SIZE + compressedLength > size)
+                    throw new IllegalStateException("The file has a corrupted block at " + pos + ": " + path);
+                addBlock(pos, rawLength);
+                pos += HEADER_SIZE + compressedLength;
+            }
+            indexedSize = pos;
+        } finally {
+            release(fc);
+        }
+    }
+
+    private void reset() {
+        blocks = 0;
+        indexedSize = 0;
+        cachedBlock = -1;
+    }
+
+    private FileChannel openRead() throws IOException {
+        return channel != null ? channel : FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    private void release(FileChannel fc) throws IOException {
+        if (fc != channel)
+            fc.close();
+    }
+
+    private void checkWritable() {
+        if (channel != null)
+            throw new UnsupportedOperationException("The blocks read through an opened channel are read-only: " + path);
+    }
+
+    private void indexed(long size) throws IOException {
+        indexedSize = size;
+        indexedModified = Files.getLastModifiedTime(path).toMillis();
+        cachedBlock = -1;
+    }
+
+    private void addBlock(long pos, int rawLength) {
+        if (blocks == blockPositions.length) {
+            blockPositions = Arrays.copyOf(blockPositions, blocks * 2);
+            blockStarts = Arrays.copyOf(blockStarts, blocks * 2 + 1);
+        }
+        blockPositions[blocks] = pos;
+        blockStarts[blocks + 1] = blockStarts[blocks] + rawLength;
+        blocks++;
+    }
+
+    private int block(long pos) {
+        int i = Arrays.binarySearch(blockStarts, 0, blocks + 1, pos);
+        i = i >= 0 ? i : -i - 2;
+        while (i > 0 && i >= blocks) {
+            i--;
+        }
+        while (i + 1 < blocks && blockStarts[i + 1] == pos) {
+            i++;
+        }
+        return i;
+    }
+
+    private byte[] inflate(int i) {
+        if (i == cachedBlock)
+            return cached;
+        Inflater inflater = new Inflater();
+        try {
+            FileChannel fc = openRead();
+            ByteBuffer compressed;
+            byte[] raw;
+            try {
+                ByteBuffer header = readHeader(fc, blockPositions[i]);
+                raw = new byte[header.getInt()];
+                compressed = ByteBuffer.allocate(header.getInt());
+                while (compressed.hasRemaining() && fc.read(compressed, blockPositions[i] + HEADER_SIZE + compressed.position()) >= 0) ;
+            } finally {
+                release(fc);
+            }
+
+            inflater.setInput(compressed.array());
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                length += n;
+            }
+            if (length != raw.length)
+                throw new IllegalStateException("The file has a corrupted block at " + blockPositions[i] + ": " + path);
+            cachedBlock = i;
+            cached = raw;
+            return raw;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("The file has a corrupted block at " + blockPositions[i] + ": " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer deflate(Deflater deflater, byte[] raw, int length) {
+        deflater.reset();
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+        byte[] compressed = new byte[HEADER_SIZE + length + (length >> 4) + 64];
+        int size = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (size == compressed.length)
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+        return ByteBuffer.wrap(compressed, 0, size)
+                .putInt(0, length)
+                .putInt(4, size - HEADER_SIZE);
+    }
+
+    private static ByteBuffer readHeader(FileChannel fc, long pos) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && fc.read(header, pos + header.position()) >= 0) ;
+        return header.flip();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + path + " : " + blocks + " : " + indexedSize + " ]";
+    }
+
+    /**
+     * The writer of the uncompressed data of a rebuilt file.
+     */
+    private interface Content {
+
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,266 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.utils.FileDelta;
+import com.branow.file.kit.utils.FileHasher;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.stream.LongStream;
+
+/**
+ * An abstraction of an existing computer file that stores bytes compressed. The bytes are
+ * stored in independently deflated blocks (see {@link CompressedBlocks}), so positional reads
+ * inflate only the blocks they need and appends add new blocks without rewriting the file.
+ * All reading and writing methods of {@link ByteFile} work with the uncompressed bytes,
+ * while {@link FileEntity#size()} returns the size of the stored (compressed) data.
+ * The search streams the inflated blocks, the view is read-only.
+ */
+public class CompressedByteFile extends ByteFile {
+
+    private CompressedBlocks blocks;
+
+    /**
+     * @see FileEntity#FileEntity(File)
+     */
+    public CompressedByteFile(File file) {
+        super(file);
+    }
+
+    /**
+     * @see FileEntity#FileEntity(String)
+     */
+    public CompressedByteFile(String path) {
+        super(path);
+    }
+
+    /**
+     * @see FileEntity#FileEntity(Path)
+     */
+    public CompressedByteFile(Path path) {
+        super(path);
+    }
+
+
+    /**
+     * Returns the number of the uncompressed bytes of this file.
+     *
+     * @return The number of the uncompressed bytes.
+     */
+    public long uncompressedSize() {
+        return blocks().size();
+    }
+
+    /**
+     * Returns the input stream of the uncompressed bytes. The blocks are inflated one by one,
+     * so the file is never held in the heap as a whole.
+     *
+     * @return The input stream of the uncompressed bytes.
+     */
+    public InputStream newInputStream() {
+        return blocks().newInputStream();
+    }
+
+    /**
+     * Reads all uncompressed bytes of the file and returns them.
+     *
+     * @return The uncompressed bytes of the file.
+     * @throws IllegalStateException if the uncompressed bytes don't fit in an array.
+     */
+    @Override
+    public byte[] readBytes() {
+        return blocks().readBytes(0);
+    }
+
+    /**
+     * Reads uncompressed bytes of the file and returns them.
+     *
+     * @param length The maximum number of bytes to read.
+     * @return The uncompressed bytes.
+     */
+    @Override
+    public byte[] readBytes(int length) {
+        return blocks().readBytes(0, length);
+    }
+
+    /**
+     * Reads uncompressed bytes of the file and returns them.
+     *
+     * @param off The offset at which it starts reading bytes.
+     * @return The uncompressed bytes.
+     * @throws IllegalStateException if the uncompressed bytes don't fit in an array.
+     */
+    @Override
+    public byte[] readBytes(long off) {
+        return blocks().readBytes(off);
+    }
+
+    /**
+     * Reads uncompressed bytes of the file and returns them. Only the blocks containing the bytes are inflated.
+     *
+     * @param off    The offset at which it starts reading bytes.
+     * @param length The maximum number of bytes to read.
+     * @return The uncompressed bytes.
+     */
+    @Override
+    public byte[] readBytes(long off, int length) {
+        return blocks().readBytes(off, length);
+    }
+
+    /**
+     * Writes all the given bytes to this file replacing the uncompressed bytes at the same positions.
+     *
+     * @param bytes The bytes array that is written into the file.
+     */
+    @Override
+    public void writeBytes(byte[] bytes) {
+        writeBytes(bytes, 0);
+    }
+
+    /**
+     * Writes all the given bytes to this file replacing the uncompressed bytes after {@code off} position.
+     *
+     * @param bytes The bytes array that is written into the file.
+     * @param off   The offset at which it starts writing bytes.
+     */
+    @Override
+    public void writeBytes(byte[] bytes, long off) {
+        blocks().write(ByteBuffer.wrap(bytes), off);
+    }
+
+    /**
+     * Overwrites all the given bytes to this file. All previous bytes of this file are removed.
+     *
+     * @param bytes The bytes array that is overwritten into the file.
+     */
+    @Override
+    public void overwriteBytes(byte[] bytes) {
+        overwriteBytes(bytes, 0);
+    }
+
+    /**
+     * Overwrites all the given bytes to this file. All uncompressed bytes after {@code off} position are removed.
+     *
+     * @param bytes The bytes array that is overwritten into the file.
+     * @param off   The offset at which it starts overwriting bytes.
+     */
+    @Override
+    public void overwriteBytes(byte[] bytes, long off) {
+        blocks().overwrite(ByteBuffer.wrap(bytes), off);
+    }
+
+    /**
+     * Appends all the given bytes to the end of this file. They are stored in new blocks.
+     *
+     * @param bytes The bytes array that is appending to the file.
+     */
+    @Override
+    public void appendBytes(byte[] bytes) {
+        blocks().append(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Inserts all the given bytes to this file skipping the given number of uncompressed bytes.
+     *
+     * @param bytes The bytes array that is appending to the file.
+     * @param off   The offset at which it starts appending bytes.
+     */
+    @Override
+    public void appendBytes(byte[] bytes, long off) {
+        blocks().insert(ByteBuffer.wrap(bytes), off);
+    }
+
+    /**
+     * Returns the lazy stream of offsets of all occurrences of the given bytes in the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#findAll(byte[])
+     */
+    @Override
+    public LongStream findAll(byte[] pattern) {
+        return blocks().findAll(pattern);
+    }
+
+    /**
+     * Computes the checksum of the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#checksum(FileHasher.Algorithm)
+     */
+    @Override
+    public byte[] checksum(FileHasher.Algorithm algorithm) {
+        return blocks().checksum(algorithm);
+    }
+
+    /**
+     * Computes the signature of the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#signature(int)
+     */
+    @Override
+    public FileDelta.Signature signature(int blockSize) {
+        return blocks().signature(blockSize);
+    }
+
+    /**
+     * Computes the delta that turns the file described by the signature into the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#delta(FileDelta.Signature)
+     */
+    @Override
+    public FileDelta.Delta delta(FileDelta.Signature signature) {
+        return blocks().delta(signature);
+    }
+
+    /**
+     * Applies the delta to the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#applyDelta(FileDelta.Delta)
+     */
+    @Override
+    public long applyDelta(FileDelta.Delta delta) {
+        return blocks().applyDelta(delta);
+    }
+
+    /**
+     * Opens the read-only view of the uncompressed bytes of this file. Its writes throw
+     * {@link java.nio.ReadOnlyBufferException}, the file is changed by the writing methods of this file.
+     *
+     * @return The opened read-only view of the uncompressed bytes.
+     * @see CompressedBlocks#view()
+     */
+    @Override
+    public ByteFileView view() {
+        return blocks().view();
+    }
+
+
+    /**
+     * @return {@code False}, the content of this file is the uncompressed bytes.
+     */
+    @Override
+    boolean isStored() {
+        return false;
+    }
+
+    /**
+     * @return The number of the uncompressed bytes.
+     */
+    @Override
+    long contentSize() {
+        return uncompressedSize();
+    }
+
+    /**
+     * @return The input stream of the uncompressed bytes.
+     */
+    @Override
+    InputStream newContentStream() {
+        return newInputStream();
+    }
+
+    private synchronized CompressedBlocks blocks() {
+        if (blocks == null || !blocks.path().equals(path()))
+            blocks = new CompressedBlocks(path());
+        return blocks;
+    }
+}
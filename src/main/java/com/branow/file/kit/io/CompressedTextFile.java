@@ -0,0 +1,624 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.utils.FileDelta;
+import com.branow.file.kit.utils.FileHasher;
+import com.branow.file.kit.utils.FileIOUtils;
+import com.branow.file.kit.utils.Transcoder;
+import com.branow.outfits.util.UniChar;
+import com.branow.outfits.util.UniCharString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+/**
+ * The {@code CompressedTextFile} is a {@link TextFile} that stores its encoded text compressed
+ * in independently deflated blocks (see {@link CompressedBlocks}). Reading methods inflate the blocks
+ * one by one, appending adds new blocks without rewriting the file. All reading and writing methods
+ * of {@link TextFile}, {@link UniCharFile} and {@link ByteFile} work with the uncompressed data,
+ * while {@link FileEntity#size()} returns the size of the stored (compressed) data.<br><br>
+ * <p>
+ * Reading lines, search and transcoding stream the inflated blocks, following reads the uncompressed
+ * data appended to the file, the view is read-only. The line index holds the uncompressed offsets of
+ * the lines, so reading a line inflates only the blocks containing it. The editor reads the inflated
+ * blocks and compresses the edited text on committing.
+ */
+public class CompressedTextFile extends TextFile {
+
+    private CompressedBlocks blocks;
+
+    /**
+     * Calls super constructor {@link TextFile#TextFile(Path)}.
+     *
+     * @param path The path of the file. Must be already existed.
+     */
+    public CompressedTextFile(Path path) {
+        super(path);
+    }
+
+    /**
+     * Calls super constructor {@link TextFile#TextFile(Path, Charset)}.
+     *
+     * @param path    The path of the file. Must be already existed.
+     * @param charset The charset of the file data.
+     */
+    public CompressedTextFile(Path path, Charset charset) {
+        super(path, charset);
+    }
+
+
+    /**
+     * Returns the number of the uncompressed bytes of this file.
+     *
+     * @return The number of the uncompressed bytes.
+     */
+    public long uncompressedSize() {
+        return blocks().size();
+    }
+
+    /**
+     * Returns the input stream of the uncompressed bytes. The blocks are inflated one by one,
+     * so the file is never held in the heap as a whole.
+     *
+     * @return The input stream of the uncompressed bytes.
+     */
+    public InputStream newInputStream() {
+        return blocks().newInputStream();
+    }
+
+    /**
+     * Reads the whole file and returns string of them.
+     *
+     * @return The string of file data.
+     */
+    @Override
+    public String readString() {
+        return new String(readBytes(), charset());
+    }
+
+    /**
+     * Reads the whole file and returns string of them. It is the same as {@link CompressedTextFile#readString()}.
+     *
+     * @return The string of file data.
+     */
+    @Override
+    public String readStringParallel() {
+        return readString();
+    }
+
+    /**
+     * Checks whether the file data is a valid sequence of characters in the charset of this file.
+     * The blocks are inflated and decoded one by one.
+     *
+     * @return {@code True} if the file doesn't contain malformed or unmappable bytes.
+     */
+    @Override
+    public boolean validate() {
+        try (Reader reader = new InputStreamReader(newInputStream(), charset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT))) {
+            char[] buffer = new char[8192];
+            while (reader.read(buffer) >= 0) ;
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Overwrites the given string to this file.
+     *
+     * @param text The string to overwrite into the file.
+     */
+    @Override
+    public void overwriteString(String text) {
+        blocks().overwrite(charset().encode(text), 0);
+    }
+
+    /**
+     * Overwrites the given string to this file skipping the given number of chars.
+     *
+     * @param text The string to overwrite into the file.
+     * @param off  The offset at which it starts overwriting.
+     */
+    @Override
+    public void overwriteString(String text, int off) {
+        overwriteString(readString().substring(0, off) + text);
+    }
+
+    /**
+     * Writes the given string to this file.
+     *
+     * @param text The string to write into the file.
+     */
+    @Override
+    public void writeString(String text) {
+        writeString(text, 0);
+    }
+
+    /**
+     * Writes the given string to this file skipping the given number of chars.
+     *
+     * @param text The string to write into the file.
+     * @param off  The offset at which it starts writing string.
+     */
+    @Override
+    public void writeString(String text, int off) {
+        String read = readString();
+        overwriteString(read.substring(0, off) + text + (off + text.length() < read.length() ? read.substring(off + text.length()) : ""));
+    }
+
+    /**
+     * Appends the given string to this file. The encoded string is stored in new blocks.
+     *
+     * @param text The string to append into the file.
+     */
+    @Override
+    public void appendString(String text) {
+        CompressedBlocks blocks = blocks();
+        if (blocks.size() == 0)
+            blocks.append(charset().encode(text));
+        else
+            blocks.append(layout().charset().encode(text));
+    }
+
+    /**
+     * Appends the given string to this file skipping the given number of chars.
+     *
+     * @param text The string to append into the file.
+     * @param off  The offset at which it starts appending chars.
+     */
+    @Override
+    public void appendString(String text, int off) {
+        String read = readString();
+        overwriteString(read.substring(0, off) + text + read.substring(off));
+    }
+
+    /**
+     * Writes all the given uni chars to this file.
+     *
+     * @param uniChars The uni char array to write into the file.
+     */
+    @Override
+    public void writeUniChars(UniChar[] uniChars) {
+        writeString(UniCharString.toString(uniChars, charset()));
+    }
+
+    /**
+     * Writes all the given uni chars to this file skipping the given number of uni chars.
+     *
+     * @param uniChars The uni char array to write into the file.
+     * @param off      The offset at which it starts writing uni chars.
+     */
+    @Override
+    public void writeUniChars(UniChar[] uniChars, int off) {
+        writeString(UniCharString.toString(uniChars, charset()), off);
+    }
+
+    /**
+     * Overwrites all the given uni chars to this file.
+     *
+     * @param uniChars The uni char array to overwrite into the file.
+     */
+    @Override
+    public void overwriteUniChars(UniChar[] uniChars) {
+        overwriteString(UniCharString.toString(uniChars, charset()));
+    }
+
+    /**
+     * Overwrites all the given uni chars to this file skipping the given number of uni chars.
+     *
+     * @param uniChars The uni char array to overwrite into the file.
+     * @param off      The offset at which it starts overwriting uni chars.
+     */
+    @Override
+    public void overwriteUniChars(UniChar[] uniChars, int off) {
+        overwriteString(UniCharString.toString(uniChars, charset()), off);
+    }
+
+    /**
+     * Appends all the given uni chars to this file.
+     *
+     * @param uniChars The uni char array to append into the file.
+     */
+    @Override
+    public void appendUniChars(UniChar[] uniChars) {
+        appendString(UniCharString.toString(uniChars, charset()));
+    }
+
+    /**
+     * Appends all the given uni chars to this file skipping the given number of uni chars.
+     *
+     * @param uniChars The uni char array to append into the file.
+     * @param off      The offset at which it starts appending uni chars.
+     */
+    @Override
+    public void appendUniChars(UniChar[] uniChars, int off) {
+        appendString(UniCharString.toString(uniChars, charset()), off);
+    }
+
+    /**
+     * Reads all uncompressed bytes of the file and returns them.
+     *
+     * @return The uncompressed bytes of the file.
+     * @throws IllegalStateException if the uncompressed bytes don't fit in an array.
+     */
+    @Override
+    public byte[] readBytes() {
+        return blocks().readBytes(0);
+    }
+
+    /**
+     * Reads uncompressed bytes of the file and returns them.
+     *
+     * @param length The maximum number of bytes to read.
+     * @return The uncompressed bytes.
+     */
+    @Override
+    public byte[] readBytes(int length) {
+        return blocks().readBytes(0, length);
+    }
+
+    /**
+     * Reads uncompressed bytes of the file and returns them.
+     *
+     * @param off The offset at which it starts reading bytes.
+     * @return The uncompressed bytes.
+     * @throws IllegalStateException if the uncompressed bytes don't fit in an array.
+     */
+    @Override
+    public byte[] readBytes(long off) {
+        return blocks().readBytes(off);
+    }
+
+    /**
+     * Reads uncompressed bytes of the file and returns them. Only the blocks containing the bytes are inflated.
+     *
+     * @param off    The offset at which it starts reading bytes.
+     * @param length The maximum number of bytes to read.
+     * @return The uncompressed bytes.
+     */
+    @Override
+    public byte[] readBytes(long off, int length) {
+        return blocks().readBytes(off, length);
+    }
+
+    /**
+     * Writes all the given bytes to this file replacing the uncompressed bytes at the same positions.
+     *
+     * @param bytes The bytes array that is written into the file.
+     */
+    @Override
+    public void writeBytes(byte[] bytes) {
+        writeBytes(bytes, 0);
+    }
+
+    /**
+     * Writes all the given bytes to this file replacing the uncompressed bytes after {@code off} position.
+     *
+     * @param bytes The bytes array that is written into the file.
+     * @param off   The offset at which it starts writing bytes.
+     */
+    @Override
+    public void writeBytes(byte[] bytes, long off) {
+        blocks().write(ByteBuffer.wrap(bytes), off);
+    }
+
+    /**
+     * Overwrites all the given bytes to this file. All previous bytes of this file are removed.
+     *
+     * @param bytes The bytes array that is overwritten into the file.
+     */
+    @Override
+    public void overwriteBytes(byte[] bytes) {
+        overwriteBytes(bytes, 0);
+    }
+
+    /**
+     * Overwrites all the given bytes to this file. All uncompressed bytes after {@code off} position are removed.
+     *
+     * @param bytes The bytes array that is overwritten into the file.
+     * @param off   The offset at which it starts overwriting bytes.
+     */
+    @Override
+    public void overwriteBytes(byte[] bytes, long off) {
+        blocks().overwrite(ByteBuffer.wrap(bytes), off);
+    }
+
+    /**
+     * Appends all the given bytes to the end of this file. They are stored in new blocks.
+     *
+     * @param bytes The bytes array that is appending to the file.
+     */
+    @Override
+    public void appendBytes(byte[] bytes) {
+        blocks().append(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Inserts all the given bytes to this file skipping the given number of uncompressed bytes.
+     *
+     * @param bytes The bytes array that is appending to the file.
+     * @param off   The offset at which it starts appending bytes.
+     */
+    @Override
+    public void appendBytes(byte[] bytes, long off) {
+        blocks().insert(ByteBuffer.wrap(bytes), off);
+    }
+
+    /**
+     * Returns the lazy stream of offsets of all occurrences of the given bytes in the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#findAll(byte[])
+     */
+    @Override
+    public LongStream findAll(byte[] pattern) {
+        return blocks().findAll(pattern);
+    }
+
+    /**
+     * Creates the mapper that reads uni chars of the uncompressed data from the beginning.
+     *
+     * @return The new mapper of this file.
+     */
+    @Override
+    protected UniCharFileMapper mapper() {
+        CompressedBlocks blocks = blocks();
+        return new UniCharFileMapper(path(), blocks.size(), charset()) {
+            @Override
+            protected ByteBuffer read(long pos, int size) {
+                return blocks.read(pos, size);
+            }
+        };
+    }
+
+    /**
+     * Computes the checksum of the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#checksum(FileHasher.Algorithm)
+     */
+    @Override
+    public byte[] checksum(FileHasher.Algorithm algorithm) {
+        return blocks().checksum(algorithm);
+    }
+
+    /**
+     * Computes the signature of the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#signature(int)
+     */
+    @Override
+    public FileDelta.Signature signature(int blockSize) {
+        return blocks().signature(blockSize);
+    }
+
+    /**
+     * Computes the delta that turns the file described by the signature into the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#delta(FileDelta.Signature)
+     */
+    @Override
+    public FileDelta.Delta delta(FileDelta.Signature signature) {
+        return blocks().delta(signature);
+    }
+
+    /**
+     * Applies the delta to the uncompressed bytes of this file.
+     *
+     * @see CompressedBlocks#applyDelta(FileDelta.Delta)
+     */
+    @Override
+    public long applyDelta(FileDelta.Delta delta) {
+        return blocks().applyDelta(delta);
+    }
+
+    /**
+     * Opens the read-only view of the uncompressed bytes of this file. Its writes throw
+     * {@link java.nio.ReadOnlyBufferException}, the file is changed by the writing methods of this file.
+     *
+     * @return The opened read-only view of the uncompressed bytes.
+     * @see CompressedBlocks#view()
+     */
+    @Override
+    public ByteFileView view() {
+        return blocks().view();
+    }
+
+    /**
+     * Starts following the uncompressed data of this file from the given uncompressed byte offset.
+     * The blocks are read through the opened file, so the rest of a rotated file is read too.
+     *
+     * @param lineSink The consumer of read lines (without line separators).
+     * @param offset   The uncompressed byte offset of the line start from which the file is read.
+     * @return The started follower, which must be closed to stop following.
+     * @see TextFileFollower
+     */
+    @Override
+    public TextFileFollower follow(Consumer<String> lineSink, long offset) {
+        return TextFileFollower.start(path(), charset(), lineSink, e -> {}, offset,
+                TextFileFollower.DEFAULT_POLL_INTERVAL, channel -> new CompressedBlocks(path(), channel));
+    }
+
+    /**
+     * Opens the editor of the uncompressed data of this file. The original content is read from the inflated
+     * blocks, the edited text is compressed to a temporary file, which replaces this file on committing.
+     *
+     * @return The opened editor.
+     * @see TextFileEditor
+     */
+    @Override
+    public TextFileEditor edit() {
+        CompressedBlocks blocks = blocks();
+        return new TextFileEditor(path(), charset()) {
+            @Override
+            long contentSize() {
+                return blocks.size();
+            }
+
+            @Override
+            ByteBuffer readContent(long pos, long length) {
+                return blocks.read(pos, (int) length);
+            }
+
+            @Override
+            WritableByteChannel newTarget(Path temp) {
+                return Channels.newChannel(new CompressedBlocks(temp).newOutputStream());
+            }
+
+            @Override
+            void replace(Path temp) throws IOException {
+                blocks.replace(temp);
+            }
+        };
+    }
+
+    /**
+     * Converts this file to the target file in the given charset. The target file is compressed the same way,
+     * so it should be accessed by a new {@code CompressedTextFile}. The blocks are inflated, converted and
+     * compressed one by one. The numbers of bytes of the result are the numbers of the uncompressed bytes.
+     *
+     * @param target  The path of the converted file. It is created or overwritten.
+     * @param charset The charset of the converted file data.
+     * @return The result of the conversion with the number of bytes and the speed.
+     * @see Transcoder#transcode(InputStream, Charset, OutputStream, Charset)
+     */
+    @Override
+    public Transcoder.Result transcodeTo(Path target, Charset charset) {
+        try {
+            Files.write(target, new byte[0]);
+            try (InputStream in = newInputStream();
+                 OutputStream out = new CompressedBlocks(target).newOutputStream()) {
+                Transcoder.Result result = Transcoder.transcode(in, charset(), out, charset);
+                return new Transcoder.Result(target, result.bytesRead(), result.bytesWritten(), result.nanos());
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Converts this file to the given charset in place. The converted data is compressed to a temporary
+     * file in the same directory, which replaces this file keeping its permissions and owner. After that,
+     * the file should be accessed by a new {@code CompressedTextFile} with the given charset.
+     *
+     * @param charset The charset of the converted file data.
+     * @return The result of the conversion with the number of bytes and the speed.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    @Override
+    public Transcoder.Result transcode(Charset charset) {
+        Path absolute = path().toAbsolutePath();
+        try {
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                Transcoder.Result result = transcodeTo(temp, charset);
+                FileIOUtils.replace(path(), temp);
+                synchronized (this) {
+                    blocks = null;
+                }
+                return new Transcoder.Result(path(), result.bytesRead(), result.bytesWritten(), result.nanos());
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Reads the layout of the uncompressed data from its first bytes.
+     *
+     * @return The layout of the uncompressed data.
+     */
+    @Override
+    CharsetLayout layout() {
+        return CharsetLayout.of(charset(), blocks().read(0, 2));
+    }
+
+    /**
+     * Creates the counter that converts ascending uncompressed byte offsets to char offsets.
+     * It decodes the inflated blocks one by one.
+     *
+     * @param layout The layout of the uncompressed data.
+     * @return The new counter of this file.
+     */
+    @Override
+    CharOffsetCounter charOffsetCounter(CharsetLayout layout) {
+        CompressedBlocks blocks = blocks();
+        return new CharOffsetCounter(path(), layout) {
+            @Override
+            protected ByteBuffer read(long pos, int length) {
+                return blocks.read(pos, Math.min(length, CompressedBlocks.BLOCK_SIZE));
+            }
+        };
+    }
+
+    /**
+     * Brings the line index up to date with the uncompressed data. The blocks are inflated one by one.
+     *
+     * @param index The line index of this file.
+     */
+    @Override
+    void updateLineIndex(LineIndex index) {
+        index.update(path(), blocks());
+    }
+
+    /**
+     * Reads the lines of the uncompressed data by the line index. Only the blocks containing the lines are inflated.
+     *
+     * @param index The up-to-date line index of this file.
+     * @param from  The number of the first line to read.
+     * @param to    The number of the line after the last line to read.
+     * @return The list of read lines without line separators.
+     */
+    @Override
+    List<String> readIndexedLines(LineIndex index, long from, long to) {
+        return index.readLines(blocks(), from, to);
+    }
+
+    /**
+     * @return {@code False}, the content of this file is the uncompressed bytes.
+     */
+    @Override
+    boolean isStored() {
+        return false;
+    }
+
+    /**
+     * @return The number of the uncompressed bytes.
+     */
+    @Override
+    long contentSize() {
+        return uncompressedSize();
+    }
+
+    /**
+     * @return The input stream of the uncompressed bytes.
+     */
+    @Override
+    InputStream newContentStream() {
+        return newInputStream();
+    }
+
+
+    private synchronized CompressedBlocks blocks() {
+        if (blocks == null || !blocks.path().equals(path()))
+            blocks = new CompressedBlocks(path());
+        return blocks;
+    }
+}
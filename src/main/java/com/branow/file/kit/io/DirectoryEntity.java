@@ -1,10 +1,20 @@
 package com.branow.file.kit.io;
 
+import com.branow.file.kit.utils.DirectorySizer;
+import com.branow.file.kit.utils.FileHasher;
+import com.branow.file.kit.utils.FileMover;
+import com.branow.file.kit.utils.FileUtils;
+import com.branow.file.kit.utils.OperationProgress;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -17,6 +27,9 @@ import java.util.stream.Stream;
 public class DirectoryEntity implements SystemEntity {
 
     private File file;
+    private BasicFileAttributes attributes;
+    private long attributesTime;
+    private long attributesTtl;
 
     /**
      * @throws IllegalArgumentException if the file doesn't exist
@@ -43,10 +56,25 @@ public class DirectoryEntity implements SystemEntity {
         this(path.toFile());
     }
 
+    /**
+     * The trusted constructor for entities of directory listings. The directory isn't validated,
+     * the attributes read during listing are used as a snapshot while they are younger than {@code ttl}.
+     * @param path the path of the directory
+     * @param attributes the attributes of the directory read during listing
+     * @param ttl the time during which the attributes aren't read again
+     * */
+    DirectoryEntity(Path path, BasicFileAttributes attributes, Duration ttl) {
+        this.file = path.toFile();
+        this.attributes = attributes;
+        this.attributesTime = System.nanoTime();
+        this.attributesTtl = ttl.toNanos();
+    }
+
 
     /**
      * The method renames this directory to gotten directory name.
-     * The method calls the {@code move()} method of class {@link Files}.
+     * The directory is renamed atomically if it's possible, otherwise it's copied and deleted
+     * (see {@link FileMover}).
      * @param newName new name of the directory
      * @throws RuntimeIOException if IOException is thrown;
      * @throws NullPointerException if {@code newName} is null;
@@ -64,27 +92,46 @@ public class DirectoryEntity implements SystemEntity {
         if (src.toString().equalsIgnoreCase(target.toString()))
             throw new IllegalArgumentException("new name is the same as current: current - " + src + ", new - " + target);
 
-        try {
-            move(src, target);
-        } catch (IOException e) {
-            throw new RuntimeIOException(e);
-        }
+        FileMover.move(src, target);
         file = target.toFile();
+        attributes = null;
     }
 
     /**
      * The method return the size of all files of this directory (in bytes).
-     * The method uses the {@code size()} method of class {@link Files}.
+     * The directory tree is walked concurrently, the attributes of every entry are read once.
+     * Symbolic links are followed, every directory is counted once.
      * @throws RuntimeIOException if IOException is thrown;
-     * @see Files#size(Path)
+     * @see DirectorySizer#size(Path)
      * */
     @Override
     public long size() {
-        try {
-            return size(path());
-        } catch (IOException e) {
-            throw new RuntimeIOException(e);
-        }
+        return DirectorySizer.size(path());
+    }
+
+    /**
+     * The method return the size of all files of this directory (in bytes).
+     * @param parallelism the number of threads walking the directory tree
+     * @param policy the policy of handling symbolic links
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see DirectorySizer#size(Path, int, DirectorySizer.SymlinkPolicy)
+     * */
+    public long size(int parallelism, DirectorySizer.SymlinkPolicy policy) {
+        return DirectorySizer.size(path(), parallelism, policy);
+    }
+
+    /**
+     * The method return the size of all files of this directory (in bytes). The walked files are counted
+     * in the gotten progress, which lets watch and cancel the walking of a large tree.
+     * @param parallelism the number of threads walking the directory tree
+     * @param policy the policy of handling symbolic links
+     * @param progress the progress of walking
+     * @throws RuntimeIOException if IOException is thrown;
+     * @throws java.util.concurrent.CancellationException if the progress is cancelled;
+     * @see DirectorySizer#size(Path, int, DirectorySizer.SymlinkPolicy, OperationProgress)
+     * */
+    public long size(int parallelism, DirectorySizer.SymlinkPolicy policy, OperationProgress progress) {
+        return DirectorySizer.size(path(), parallelism, policy, progress);
     }
 
     /**
@@ -99,12 +146,49 @@ public class DirectoryEntity implements SystemEntity {
         return VolumeUnit.convert(size(), VolumeUnit.BYTE, unit);
     }
 
+    /**
+     * The method creates a cache of the sizes of this directory and all its subdirectories, which is
+     * updated by watching the changes of the directory tree. The cache must be closed after using.
+     * @return the new size cache of this directory
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see DirectorySizeCache
+     * */
+    public DirectorySizeCache sizeCache() {
+        return new DirectorySizeCache(path());
+    }
+
+    /**
+     * The method computes the checksum of this directory, which covers the relative paths
+     * and the contents of all its regular files.
+     * @param algorithm the checksum algorithm
+     * @return the checksum of this directory
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see FileHasher#checksumDirectory(Path, FileHasher.Algorithm)
+     * */
+    public byte[] checksum(FileHasher.Algorithm algorithm) {
+        return FileHasher.checksumDirectory(path(), algorithm);
+    }
+
+    /**
+     * The method returns the manifest of this directory: relative paths of all its regular files
+     * mapped to their hexadecimal checksums. The files are hashed concurrently.
+     * @param algorithm the checksum algorithm
+     * @return the unmodifiable sorted map of relative paths to checksums
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see FileHasher#manifest(Path, FileHasher.Algorithm)
+     * */
+    public SortedMap<String, String> manifest(FileHasher.Algorithm algorithm) {
+        return FileHasher.manifest(path(), algorithm);
+    }
+
     /**
      * The method checks weather this directory contains any file.
      * @return {@code true} if this directory contains no files.
      * */
     public boolean isEmpty() {
-        return children().isEmpty();
+        try (Stream<Path> stream = childrenStream()) {
+            return stream.findAny().isEmpty();
+        }
     }
 
     /**
@@ -119,18 +203,90 @@ public class DirectoryEntity implements SystemEntity {
         }
     }
 
+    /**
+     * The method returns the page of files of this directory: at most {@code limit} files
+     * that follow the first {@code cursor} files. Only the files of the page are kept in memory.
+     * @param cursor the number of files to skip (the sum of sizes of previous pages)
+     * @param limit the maximum number of files of the page
+     * @return list of files of the page
+     * @throws IllegalArgumentException if {@code cursor} or {@code limit} is minus;
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see FileUtils#children(Path, long, int)
+     * */
+    public List<Path> children(long cursor, int limit) {
+        return FileUtils.children(path(), cursor, limit);
+    }
+
+    /**
+     * The method returns the lazy stream of files of this directory, which is read
+     * while the stream is consumed. The stream must be closed after using.
+     * @return stream of files of this directory
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see FileUtils#childrenStream(Path)
+     * */
+    public Stream<Path> childrenStream() {
+        return FileUtils.childrenStream(path());
+    }
+
+    /**
+     * The method returns the lazy stream of files of this directory which names match
+     * the glob pattern. The stream must be closed after using.
+     * @param glob the glob pattern of file names
+     * @return stream of matching files of this directory
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see FileUtils#childrenStream(Path, String)
+     * */
+    public Stream<Path> childrenStream(String glob) {
+        return FileUtils.childrenStream(path(), glob);
+    }
+
     /**
      * The method return unmodifiable list of files of this directory wrapped into SystemEntity.
      * Directories are changed into to {@link DirectoryEntity}, files to {@link FileEntity}.
+     * The attributes of every file are read once during listing; the entities aren't validated again
+     * and read their attributes again on every request.
      * @return list of files of this directory
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see DirectoryEntity#childEntities(Duration)
      * */
     public List<SystemEntity> childEntities() {
-        return children().stream().map(e -> {
-            if (Files.isDirectory(e))
-                return new DirectoryEntity(e);
-            else
-                return new FileEntity(e);
-        }).toList();
+        return childEntities(Duration.ZERO);
+    }
+
+    /**
+     * The method return unmodifiable list of files of this directory wrapped into SystemEntity.
+     * Directories are changed into to {@link DirectoryEntity}, files to {@link FileEntity}.
+     * The attributes of every file are read once during listing and kept in the entity as a snapshot:
+     * the size and the type of the entity are answered by the snapshot until it is older than {@code ttl},
+     * then the attributes are read again. Files that disappear during listing are skipped.
+     * @param ttl the time to live of the attributes snapshot
+     * @return list of files of this directory
+     * @throws NullPointerException if {@code ttl} is null;
+     * @throws IllegalArgumentException if {@code ttl} is negative;
+     * @throws RuntimeIOException if IOException is thrown;
+     * */
+    public List<SystemEntity> childEntities(Duration ttl) {
+        if (ttl == null) throw new NullPointerException("ttl is null");
+        if (ttl.isNegative()) throw new IllegalArgumentException("ttl is negative: " + ttl);
+
+        List<SystemEntity> entities = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path())) {
+            for (Path child : stream) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(child, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attrs.isDirectory())
+                    entities.add(new DirectoryEntity(child, attrs, ttl));
+                else
+                    entities.add(new FileEntity(child, attrs, ttl));
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return Collections.unmodifiableList(entities);
     }
 
     /**
@@ -142,6 +298,28 @@ public class DirectoryEntity implements SystemEntity {
     }
 
 
+    /**
+     * The method returns the basic attributes of this directory. The attributes are read again
+     * only if the snapshot is older than its time to live; the time to live of entities created
+     * by public constructors is zero, so the attributes are always actual for them.
+     * @return the basic attributes of this directory
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see FileEntity#attributes()
+     * */
+    @Override
+    public BasicFileAttributes attributes() {
+        long now = System.nanoTime();
+        if (attributes == null || now - attributesTime >= attributesTtl) {
+            try {
+                attributes = Files.readAttributes(path(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+            attributesTime = now;
+        }
+        return attributes;
+    }
+
     /**
      * The method returns {@link File} instance of this directory
      * @return {@link File} class instance
@@ -189,36 +367,4 @@ public class DirectoryEntity implements SystemEntity {
         }
     }
 
-    private void move(Path src, Path target) throws IOException {
-        Files.createDirectory(target);
-        try (Stream<Path> stream = Files.list(src)) {
-            List<Path> children = stream.toList();
-            if (!children.isEmpty()) {
-                for (Path child: children) {
-                    Path childTarget = Path.of(target.toString(), child.getFileName().toString());
-                    if (Files.isDirectory(child)) {
-                        move(child, target);
-                    } else {
-                        Files.move(child, childTarget);
-                    }
-                }
-            }
-        }
-        Files.delete(src);
-    }
-
-    private long size(Path path) throws IOException {
-        if (Files.isDirectory(path)) {
-            long size = 0;
-            try (Stream<Path> stream = Files.list(path)) {
-                List<Path> children = stream.toList();
-                for (Path child: children) {
-                    size += size(child);
-                }
-            }
-            return size;
-        }
-        return Files.size(path);
-    }
-
 }
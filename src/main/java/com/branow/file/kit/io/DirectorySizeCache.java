@@ -0,0 +1,281 @@
+package com.branow.file.kit.io;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code DirectorySizeCache} keeps the aggregated sizes of all subdirectories of a directory tree
+ * and maintains them incrementally. Every directory of the tree is registered in a {@link WatchService}.
+ * The pending events are processed on every call of {@link DirectorySizeCache#size()}: only the directories
+ * that have changed are listed again, and the difference of their size is added to their ancestors up to
+ * the root. So repeated calls cost a poll of the watch service between changes. If the watch service
+ * overflows, the whole tree is rescanned.<br><br>
+ * <p>
+ * Symbolic links aren't followed and their sizes aren't counted. The cache must be closed after using.
+ */
+public class DirectorySizeCache implements AutoCloseable {
+
+    private final Path root;
+    private final WatchService watcher;
+    private final Map<Path, Node> nodes = new HashMap<>();
+    private final Map<WatchKey, Node> keys = new HashMap<>();
+    private long rescans;
+
+    /**
+     * Scans the directory tree and registers all its directories in a watch service.
+     *
+     * @param root The root directory of the tree.
+     * @throws NullPointerException     if {@code root} is null.
+     * @throws IllegalArgumentException if {@code root} isn't a directory.
+     * @throws RuntimeIOException       if IOException is thrown during scanning.
+     */
+    public DirectorySizeCache(Path root) {
+        if (root == null) throw new NullPointerException("root is null");
+        if (!Files.isDirectory(root))
+            throw new IllegalArgumentException("The file is not a directory - " + root);
+        this.root = root;
+        try {
+            this.watcher = root.getFileSystem().newWatchService();
+            scan(root, null);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Processes the pending changes and returns the size of all files of the tree.
+     *
+     * @return The size of the tree in bytes.
+     * @throws IllegalStateException if the cache is closed.
+     * @throws RuntimeIOException    if IOException is thrown during scanning the changed directories.
+     */
+    public synchronized long size() {
+        return size(root);
+    }
+
+    /**
+     * Processes the pending changes and returns the size of all files of the given subdirectory of the tree.
+     *
+     * @param dir The directory of the tree.
+     * @return The size of the subdirectory in bytes.
+     * @throws IllegalArgumentException if the directory isn't in the tree.
+     * @throws IllegalStateException    if the cache is closed.
+     * @throws RuntimeIOException       if IOException is thrown during scanning the changed directories.
+     */
+    public synchronized long size(Path dir) {
+        refresh();
+        Node node = nodes.get(dir);
+        if (node == null)
+            throw new IllegalArgumentException("The directory isn't in the tree: " + dir);
+        return node.total;
+    }
+
+    /**
+     * Processes the pending changes of the tree. The changed directories are listed again and the sizes
+     * of their ancestors are corrected. On an overflow of the watch service the whole tree is rescanned.
+     *
+     * @throws IllegalStateException if the cache is closed.
+     * @throws RuntimeIOException    if IOException is thrown during scanning.
+     */
+    public synchronized void refresh() {
+        Set<Node> changed = new LinkedHashSet<>();
+        boolean overflow = false;
+        try {
+            WatchKey key;
+            while ((key = watcher.poll()) != null) {
+                Node node = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        overflow = true;
+                }
+                if (node != null)
+                    changed.add(node);
+                if (!key.reset())
+                    keys.remove(key);
+            }
+        } catch (ClosedWatchServiceException e) {
+            throw new IllegalStateException("The cache is closed: " + root, e);
+        }
+
+        try {
+            if (overflow) {
+                rescan();
+                return;
+            }
+            for (Node node : changed) {
+                if (nodes.get(node.path) == node)
+                    update(node);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * @return The number of full rescans of the tree caused by overflows of the watch service.
+     */
+    public synchronized long rescans() {
+        return rescans;
+    }
+
+    /**
+     * @return The root directory of the tree.
+     */
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * Closes the watch service.
+     *
+     * @throws RuntimeIOException if IOException is thrown during closing.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+
+    private Node scan(Path dir, Node parent) throws IOException {
+        Node node = new Node(dir, parent);
+        try {
+            node.key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (NoSuchFileException e) {
+            if (parent == null)
+                throw e;
+            return null;
+        }
+        nodes.put(dir, node);
+        keys.put(node.key, node);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                BasicFileAttributes attrs = attributes(child);
+                if (attrs == null || attrs.isSymbolicLink())
+                    continue;
+                if (attrs.isDirectory()) {
+                    Node childNode = scan(child, node);
+                    if (childNode != null) {
+                        node.children.put(child, childNode);
+                        node.total += childNode.total;
+                    }
+                } else {
+                    node.files += attrs.size();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            if (parent == null)
+                throw e;
+        }
+        node.total += node.files;
+        return node;
+    }
+
+    private void update(Node node) throws IOException {
+        long files = 0;
+        Map<Path, Node> children = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(node.path)) {
+            for (Path child : stream) {
+                BasicFileAttributes attrs = attributes(child);
+                if (attrs == null || attrs.isSymbolicLink())
+                    continue;
+                if (attrs.isDirectory()) {
+                    Node childNode = node.children.remove(child);
+                    if (childNode != null && !childNode.key.isValid()) {
+                        remove(childNode);
+                        childNode = null;
+                    }
+                    if (childNode == null)
+                        childNode = scan(child, node);
+                    if (childNode != null)
+                        children.put(child, childNode);
+                } else {
+                    files += attrs.size();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            if (node.parent == null)
+                throw e;
+        }
+        for (Node removed : node.children.values()) {
+            remove(removed);
+        }
+        node.children = children;
+        node.files = files;
+
+        long total = files;
+        for (Node child : children.values()) {
+            total += child.total;
+        }
+        long delta = total - node.total;
+        for (Node n = node; n != null; n = n.parent) {
+            n.total += delta;
+        }
+    }
+
+    private void remove(Node node) {
+        nodes.remove(node.path);
+        keys.remove(node.key);
+        node.key.cancel();
+        for (Node child : node.children.values()) {
+            remove(child);
+        }
+    }
+
+    private void rescan() throws IOException {
+        for (WatchKey key : new ArrayList<>(keys.keySet())) {
+            key.cancel();
+        }
+        keys.clear();
+        nodes.clear();
+        rescans++;
+        scan(root, null);
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + root + " : " + nodes.size() + " ]";
+    }
+
+    private static class Node {
+
+        private final Path path;
+        private final Node parent;
+        private Map<Path, Node> children = new HashMap<>();
+        private WatchKey key;
+        private long files;
+        private long total;
+
+        private Node(Path path, Node parent) {
+            this.path = path;
+            this.parent = parent;
+        }
+    }
+}
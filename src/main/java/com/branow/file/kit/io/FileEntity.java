@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.nio.file.CopyOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.Objects;
 
 /**
@@ -16,6 +18,9 @@ import java.util.Objects;
 public class FileEntity implements SystemEntity {
 
     private File file;
+    private BasicFileAttributes attributes;
+    private long attributesTime;
+    private long attributesTtl;
 
     /**
      * @throws IllegalArgumentException if the file doesn't exist
@@ -42,6 +47,20 @@ public class FileEntity implements SystemEntity {
         this(path.toFile());
     }
 
+    /**
+     * The trusted constructor for entities of directory listings. The file isn't validated,
+     * the attributes read during listing are used as a snapshot while they are younger than {@code ttl}.
+     * @param path the path of the file
+     * @param attributes the attributes of the file read during listing
+     * @param ttl the time during which the attributes aren't read again
+     * */
+    FileEntity(Path path, BasicFileAttributes attributes, Duration ttl) {
+        this.file = path.toFile();
+        this.attributes = attributes;
+        this.attributesTime = System.nanoTime();
+        this.attributesTtl = ttl.toNanos();
+    }
+
     /**
      * The method rename this file to gotten filename.
      * The method calls the {@code move()} method of class {@link Files}.
@@ -85,22 +104,42 @@ public class FileEntity implements SystemEntity {
             throw new RuntimeIOException(e);
         }
         file = path.toFile();
+        attributes = null;
     }
 
 
     /**
      * The method return the size of this file (in bytes).
-     * The method calls the {@code size()} method of class {@link Files}.
+     * The size is taken from the attributes of the file.
      * @throws RuntimeIOException if IOException is thrown;
-     * @see Files#size(Path)
+     * @see FileEntity#attributes()
      * */
     @Override
     public long size() {
-        try {
-            return Files.size(file.toPath());
-        } catch (IOException e) {
-            throw new RuntimeIOException(e);
+        return attributes().size();
+    }
+
+    /**
+     * The method returns the basic attributes of this file. The attributes are read again
+     * only if the snapshot is older than its time to live; the time to live of entities created
+     * by public constructors is zero, so the attributes are always actual for them.
+     * Entities of {@link DirectoryEntity#childEntities(Duration)} carry the attributes read during listing.
+     * @return the basic attributes of this file
+     * @throws RuntimeIOException if IOException is thrown;
+     * @see Files#readAttributes(Path, Class, java.nio.file.LinkOption...)
+     * */
+    @Override
+    public BasicFileAttributes attributes() {
+        long now = System.nanoTime();
+        if (attributes == null || now - attributesTime >= attributesTtl) {
+            try {
+                attributes = Files.readAttributes(path(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+            attributesTime = now;
         }
+        return attributes;
     }
 
     /**
@@ -0,0 +1,362 @@
+package com.branow.file.kit.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@code LineIndex} keeps the byte offsets of the line starts of a text file in a primitive
+ * array, so that any line can be read by one positional read instead of scanning the file.
+ * The index is built in one streaming pass. If the file seems to have only grown since the last pass,
+ * only the appended bytes are scanned, what makes the index cheap to keep up to date for append-only logs.
+ * Otherwise, the index is rebuilt. The growth is checked by samples: the file must have the same file key
+ * (it isn't replaced by another file), not be shorter, and have the same first and last {@value SAMPLE_SIZE}
+ * bytes of the indexed part. An in-place change of the middle of the indexed part isn't detected, so the
+ * incremental update is meant for files that are only appended or rewritten entirely.<br><br>
+ * <p>
+ * Lines are separated by {@code \n}, a trailing {@code \r} is removed from the read lines.
+ * The index can be saved to a sidecar file (offsets are delta-encoded) and loaded later. The index of
+ * a compressed file is built over its uncompressed data (see {@link CompressedTextFile#lineIndex()}).
+ */
+public class LineIndex {
+
+    private static final int MAGIC = 0x4C494459;
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+    private static final int SAMPLE_SIZE = 32;
+
+    private final Charset charset;
+    private CharsetLayout layout;
+    private long[] starts = new long[1024];
+    private int count;
+    private long fileSize = -1;
+    private long modified;
+    private long indexedSize;
+    private boolean lineStart;
+    private String fileKey;
+    private byte[] head = new byte[0];
+    private byte[] tail = new byte[0];
+
+    /**
+     * Builds the line index of the given file.
+     *
+     * @param path    The path of the file to index.
+     * @param charset The charset of the file data.
+     * @return The line index of the file.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     */
+    public static LineIndex build(Path path, Charset charset) {
+        LineIndex index = new LineIndex(charset);
+        index.update(path);
+        return index;
+    }
+
+    /**
+     * Loads the line index from the given sidecar file created by {@link LineIndex#save(Path)}.
+     * The loaded index should be updated with {@link LineIndex#update(Path)} before using.
+     *
+     * @param sidecar The path of the sidecar file.
+     * @return The loaded line index.
+     * @throws IllegalArgumentException if the file is not a line index.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    public static LineIndex load(Path sidecar) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC)
+                throw new IllegalArgumentException("The file is not a line index: " + sidecar);
+            LineIndex index = new LineIndex(Charset.forName(in.readUTF()));
+            index.layout = CharsetLayout.of(Charset.forName(in.readUTF()), in.readInt());
+            index.fileSize = in.readLong();
+            index.modified = in.readLong();
+            index.indexedSize = in.readLong();
+            index.lineStart = in.readBoolean();
+            index.fileKey = in.readBoolean() ? in.readUTF() : null;
+            index.head = in.readNBytes(in.readInt());
+            index.tail = in.readNBytes(in.readInt());
+            int count = in.readInt();
+            index.starts = new long[Math.max(count, 1)];
+            long offset = 0;
+            for (int i = 0; i < count; i++) {
+                offset += readVarLong(in);
+                index.starts[i] = offset;
+            }
+            index.count = count;
+            return index;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Creates the empty index, which is built by the first update.
+     *
+     * @param charset The charset of the indexed data.
+     */
+    LineIndex(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Brings the index up to date with the given file. If the file wasn't changed, it does nothing.
+     * If the file seems to have only grown (see {@link LineIndex}), it scans only the appended bytes.
+     * Otherwise, it rebuilds the index.
+     *
+     * @param path The path of the indexed file.
+     * @return {@code True} if the index was changed.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     */
+    public synchronized boolean update(Path path) {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return update(path, new TextFileFollower.FileSource(fc));
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Brings the index up to date with the data read from the given source.
+     *
+     * @param path   The path of the file storing the data, its attributes tell whether the data was changed.
+     * @param source The source of the indexed data.
+     * @return {@code True} if the index was changed.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     * @see LineIndex#update(Path)
+     */
+    synchronized boolean update(Path path, TextFileFollower.Source source) {
+        try {
+            long size = source.size();
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            long modified = attrs.lastModifiedTime().toMillis();
+            String fileKey = attrs.fileKey() == null ? null : attrs.fileKey().toString();
+            if (size == fileSize && modified == this.modified && Objects.equals(fileKey, this.fileKey))
+                return false;
+
+            if (indexedSize == 0 || size < indexedSize || !Objects.equals(fileKey, this.fileKey)
+                    || !Arrays.equals(head, readSample(source, 0)) || !Arrays.equals(tail, readSample(source, indexedSize)))
+                reset(source);
+            scan(source, size);
+            head = readSample(source, 0);
+            tail = readSample(source, indexedSize);
+            fileSize = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Saves this index to the given sidecar file. The line offsets are delta-encoded.
+     *
+     * @param sidecar The path of the sidecar file. It is created or overwritten.
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    public synchronized void save(Path sidecar) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(sidecar)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(charset.name());
+            out.writeUTF(layout.charset().name());
+            out.writeInt(layout.bom());
+            out.writeLong(fileSize);
+            out.writeLong(modified);
+            out.writeLong(indexedSize);
+            out.writeBoolean(lineStart);
+            out.writeBoolean(fileKey != null);
+            if (fileKey != null)
+                out.writeUTF(fileKey);
+            out.writeInt(head.length);
+            out.write(head);
+            out.writeInt(tail.length);
+            out.write(tail);
+            out.writeInt(count);
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarLong(out, starts[i] - previous);
+                previous = starts[i];
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * @return The number of indexed lines.
+     */
+    public synchronized long lineCount() {
+        return count;
+    }
+
+    /**
+     * Returns the byte offset at which the given line starts.
+     *
+     * @param line The number of the line (starting from zero).
+     * @return The byte offset of the line start.
+     * @throws IllegalArgumentException if there is no such line.
+     */
+    public synchronized long lineStart(long line) {
+        checkLine(line);
+        return starts[(int) line];
+    }
+
+    /**
+     * Returns the byte offset at which the given line ends (the offset after its line separator).
+     *
+     * @param line The number of the line (starting from zero).
+     * @return The byte offset of the line end.
+     * @throws IllegalArgumentException if there is no such line.
+     */
+    public synchronized long lineEnd(long line) {
+        checkLine(line);
+        return line + 1 < count ? starts[(int) line + 1] : indexedSize;
+    }
+
+    /**
+     * @return The charset of the indexed file.
+     */
+    public Charset charset() {
+        return charset;
+    }
+
+    /**
+     * Reads the lines with numbers from {@code from} (inclusive) to {@code to} (exclusive) by one positional read.
+     *
+     * @param path The path of the indexed file.
+     * @param from The number of the first line to read.
+     * @param to   The number of the line after the last line to read.
+     * @return The list of read lines without line separators.
+     * @throws IllegalArgumentException if there is no such lines.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    List<String> readLines(Path path, long from, long to) {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readLines(new TextFileFollower.FileSource(fc), from, to);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Reads the lines with numbers from {@code from} (inclusive) to {@code to} (exclusive) from the given source.
+     *
+     * @param source The source of the indexed data.
+     * @param from   The number of the first line to read.
+     * @param to     The number of the line after the last line to read.
+     * @return The list of read lines without line separators.
+     * @throws IllegalArgumentException if there is no such lines.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    synchronized List<String> readLines(TextFileFollower.Source source, long from, long to) {
+        if (from < 0 || to > count || from > to)
+            throw new IllegalArgumentException("Illegal line range: from - " + from + ", to - " + to + ", count - " + count);
+        if (from == to)
+            return new ArrayList<>();
+
+        long start = starts[(int) from];
+        long end = lineEnd(to - 1);
+        if (end - start > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The lines are too long to read at once: from - " + from + ", to - " + to);
+
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        try {
+            while (bytes.hasRemaining() && source.read(bytes, start + bytes.position()) >= 0) ;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+
+        List<String> lines = new ArrayList<>((int) (to - from));
+        for (long line = from; line < to; line++) {
+            int lineFrom = (int) (starts[(int) line] - start);
+            int lineTo = (int) (lineEnd(line) - start);
+            lines.add(layout.decodeLine(bytes.limit(lineTo).position(lineFrom)));
+        }
+        return lines;
+    }
+
+
+    private void reset(TextFileFollower.Source source) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(2);
+        source.read(head, 0);
+        layout = CharsetLayout.of(charset, head.flip());
+        count = 0;
+        indexedSize = layout.bom();
+        lineStart = true;
+    }
+
+    private void scan(TextFileFollower.Source source, long size) throws IOException {
+        int unit = layout.unit();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_SIZE);
+        long pos = indexedSize;
+        while (size - pos >= unit) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - pos));
+            while (buffer.hasRemaining() && source.read(buffer, pos + buffer.position()) >= 0) ;
+            buffer.flip();
+
+            int aligned = buffer.limit() - buffer.limit() % unit;
+            for (int i = 0; i < aligned; i += unit) {
+                if (lineStart) {
+                    add(pos + i);
+                    lineStart = false;
+                }
+                if (layout.isLineFeed(buffer, i))
+                    lineStart = true;
+            }
+            pos += aligned;
+        }
+        indexedSize = pos;
+    }
+
+    private void add(long start) {
+        if (count == starts.length)
+            starts = Arrays.copyOf(starts, count * 2);
+        starts[count++] = start;
+    }
+
+    private byte[] readSample(TextFileFollower.Source source, long pos) throws IOException {
+        long from = Math.max(0, Math.min(pos, indexedSize - SAMPLE_SIZE));
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SAMPLE_SIZE, indexedSize));
+        while (buffer.hasRemaining() && source.read(buffer, from + buffer.position()) >= 0) ;
+        return buffer.array();
+    }
+
+    private void checkLine(long line) {
+        if (line < 0 || line >= count)
+            throw new IllegalArgumentException("There is no such line: line - " + line + ", count - " + count);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + charset + " : " + count + " : " + indexedSize + " ]";
+    }
+}
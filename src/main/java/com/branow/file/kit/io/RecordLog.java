@@ -0,0 +1,393 @@
+package com.branow.file.kit.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * The {@code RecordLog} is an append-only log of binary records stored in a {@link ByteFile}.
+ * Every record is framed as {@code [length][CRC32C][bytes]}, where length and checksum are 4-byte
+ * integers. The checksum covers the length as well as the bytes, so a zero-filled tail never passes for
+ * an empty record. Appended records are collected in a batch buffer and written by one write when the
+ * buffer is full, or on {@link RecordLog#flush()}, {@link RecordLog#sync()} and {@link RecordLog#close()}.<br><br>
+ * <p>
+ * On opening, the log is scanned and the torn tail (an incomplete frame or a frame with a wrong checksum
+ * left by a crash during appending) is truncated. The positions of every {@value INDEX_INTERVAL}th
+ * record are kept in a sparse index, so a record is found by its number by reading a few frame headers.
+ */
+public class RecordLog implements AutoCloseable {
+
+    /**
+     * The number of records between two entries of the sparse index.
+     */
+    public static final int INDEX_INTERVAL = 64;
+
+    /**
+     * The maximum length of a record.
+     */
+    public static final int MAX_RECORD_LENGTH = Integer.MAX_VALUE - 16;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int BATCH_SIZE = 64 << 10;
+
+    private final ByteFile file;
+    private final FileChannel channel;
+    private final ByteBuffer batch = ByteBuffer.allocate(BATCH_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private long[] index = new long[16];
+    private long count;
+    private long size;
+    private long written;
+    private long truncated;
+
+    /**
+     * Opens the log stored in the given file. The file is scanned, its torn tail is truncated
+     * and the sparse index is built.
+     *
+     * @param file The file of the log. Must be already existed.
+     * @throws NullPointerException     if {@code file} is null.
+     * @throws IllegalArgumentException if {@code file} isn't stored as is (e.g. a {@link CompressedByteFile}).
+     * @throws RuntimeIOException       if IOException is thrown during reading or truncating.
+     */
+    public RecordLog(ByteFile file) {
+        if (file == null) throw new NullPointerException("file is null");
+        if (!file.isStored())
+            throw new IllegalArgumentException("The log file must be stored as is: " + file.path());
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file.path(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Appends the record to the log. The record is written when the batch buffer is full
+     * or the log is flushed.
+     *
+     * @param record The bytes of the record.
+     * @return The number of the appended record.
+     * @throws NullPointerException     if {@code record} is null.
+     * @throws IllegalArgumentException if {@code record} is too long.
+     * @throws RuntimeIOException       if IOException is thrown during writing.
+     */
+    public synchronized long append(byte[] record) {
+        if (record == null) throw new NullPointerException("record is null");
+        if (record.length > MAX_RECORD_LENGTH)
+            throw new IllegalArgumentException("The record is too long: " + record.length);
+
+        try {
+            if (batch.remaining() < HEADER_SIZE + record.length)
+                flushBatch();
+            if (batch.remaining() >= HEADER_SIZE + record.length) {
+                frame(record, batch);
+            } else {
+                ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + record.length);
+                frame(record, frame);
+                write(frame.flip());
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        if (count % INDEX_INTERVAL == 0)
+            addIndex(size);
+        size += HEADER_SIZE + record.length;
+        return count++;
+    }
+
+    /**
+     * Appends all the records to the log as one batch.
+     *
+     * @param records The records to append.
+     * @return The number of the first appended record.
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    public synchronized long appendAll(Iterable<byte[]> records) {
+        long first = count;
+        for (byte[] record : records) {
+            append(record);
+        }
+        return first;
+    }
+
+    /**
+     * Writes the appended records that are still in the batch buffer to the file.
+     *
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    public synchronized void flush() {
+        try {
+            flushBatch();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the appended records and forces them to the storage device.
+     *
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    public synchronized void sync() {
+        try {
+            flushBatch();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Reads the record with the given number. The sparse index is used to find the nearest
+     * preceding indexed record, the rest of the way is passed by reading frame headers.
+     *
+     * @param n The number of the record (starting from zero).
+     * @return The bytes of the record.
+     * @throws IllegalArgumentException if there is no such record.
+     * @throws IllegalStateException    if the record is corrupted.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    public synchronized byte[] read(long n) {
+        return readAt(position(n));
+    }
+
+    /**
+     * Returns the position of the frame of the record with the given number in the file.
+     *
+     * @param n The number of the record (starting from zero).
+     * @return The byte position of the record frame.
+     * @throws IllegalArgumentException if there is no such record.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    public synchronized long position(long n) {
+        if (n < 0 || n >= count)
+            throw new IllegalArgumentException("There is no such record: record - " + n + ", count - " + count);
+        try {
+            flushBatch();
+            long pos = index[(int) (n / INDEX_INTERVAL)];
+            for (long i = n - n % INDEX_INTERVAL; i < n; i++) {
+                pos += HEADER_SIZE + readHeader(pos).getInt();
+            }
+            return pos;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Reads the record which frame starts at the given position of the file.
+     *
+     * @param position The byte position of the record frame.
+     * @return The bytes of the record.
+     * @throws IllegalArgumentException if there is no frame at the position.
+     * @throws IllegalStateException    if the record is corrupted.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    public synchronized byte[] readAt(long position) {
+        if (position < 0 || position + HEADER_SIZE > size)
+            throw new IllegalArgumentException("There is no record at the position: position - " + position + ", size - " + size);
+        try {
+            flushBatch();
+            ByteBuffer header = readHeader(position);
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + HEADER_SIZE + length > size)
+                throw new IllegalArgumentException("There is no record at the position: " + position);
+            byte[] record = new byte[length];
+            readFully(ByteBuffer.wrap(record), position + HEADER_SIZE);
+            if (checksum(record) != checksum)
+                throw new IllegalStateException("The record is corrupted at the position: " + position);
+            return record;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Returns the sequential stream of records starting from the record with the given number.
+     * The records appended after creating the stream aren't included.
+     *
+     * @param from The number of the first record.
+     * @return The stream of records.
+     * @throws IllegalArgumentException if there is no such record.
+     * @throws RuntimeIOException       if IOException is thrown during reading.
+     */
+    public synchronized Stream<byte[]> stream(long from) {
+        if (from < 0 || from > count)
+            throw new IllegalArgumentException("There is no such record: record - " + from + ", count - " + count);
+        long start = from == count ? size : position(from);
+        long end = size;
+        long records = count - from;
+        Iterator<byte[]> iterator = new Iterator<>() {
+            private long pos = start;
+
+            @Override
+            public boolean hasNext() {
+                return pos < end;
+            }
+
+            @Override
+            public byte[] next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                byte[] record = readAt(pos);
+                pos += HEADER_SIZE + record.length;
+                return record;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(iterator, records,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the sequential stream of all records.
+     *
+     * @return The stream of records.
+     * @see RecordLog#stream(long)
+     */
+    public Stream<byte[]> stream() {
+        return stream(0);
+    }
+
+    /**
+     * @return The number of records of this log.
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * @return The size of this log in bytes including the records that are in the batch buffer.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return The number of bytes of the torn tail truncated on opening.
+     */
+    public long truncated() {
+        return truncated;
+    }
+
+    /**
+     * @return The file of this log.
+     */
+    public ByteFile file() {
+        return file;
+    }
+
+    /**
+     * Flushes the appended records and closes the file.
+     *
+     * @throws RuntimeIOException if IOException is thrown during writing.
+     */
+    @Override
+    public synchronized void close() {
+        try (channel) {
+            flushBatch();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+
+    private void recover() throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_SIZE);
+        long pos = 0;
+        while (pos + HEADER_SIZE <= fileSize) {
+            ByteBuffer header = readHeader(pos);
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || length > MAX_RECORD_LENGTH || pos + HEADER_SIZE + length > fileSize)
+                break;
+            if (checksum(pos + HEADER_SIZE, length, buffer) != checksum)
+                break;
+            if (count % INDEX_INTERVAL == 0)
+                addIndex(pos);
+            count++;
+            pos += HEADER_SIZE + length;
+        }
+        if (pos < fileSize) {
+            channel.truncate(pos);
+            truncated = fileSize - pos;
+        }
+        size = pos;
+        written = pos;
+    }
+
+    private int checksum(long pos, int length, ByteBuffer buffer) throws IOException {
+        reset(length);
+        for (long end = pos + length; pos < end; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - pos));
+            readFully(buffer, pos);
+            pos += buffer.position();
+            crc.update(buffer.flip());
+        }
+        return (int) crc.getValue();
+    }
+
+    private int checksum(byte[] record) {
+        reset(record.length);
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private void reset(int length) {
+        crc.reset();
+        crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(length).flip());
+    }
+
+    private void frame(byte[] record, ByteBuffer buffer) {
+        buffer.putInt(record.length).putInt(checksum(record)).put(record);
+    }
+
+    private void flushBatch() throws IOException {
+        if (batch.position() == 0)
+            return;
+        write(batch.flip());
+        batch.clear();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, written);
+        }
+    }
+
+    private ByteBuffer readHeader(long pos) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, pos);
+        return header.flip();
+    }
+
+    private void readFully(ByteBuffer buffer, long pos) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, pos + buffer.position()) < 0)
+                throw new IllegalStateException("The log file ends unexpectedly: " + file.path());
+        }
+    }
+
+    private void addIndex(long pos) {
+        int i = (int) (count / INDEX_INTERVAL);
+        if (i == index.length)
+            index = Arrays.copyOf(index, i * 2);
+        index[i] = pos;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + file.path() + " : " + count + " : " + size + " ]";
+    }
+}
@@ -1,7 +1,10 @@
 package com.branow.file.kit.io;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * The {@code SystemEntity} is an interface that contains methods common
@@ -38,4 +41,18 @@ public interface SystemEntity {
      * */
     Path path();
 
+    /**
+     * The method returns the basic attributes of this file. By default they are read
+     * on every call; implementations may return a snapshot read during a directory listing.
+     * @return the basic attributes of this file
+     * @throws RuntimeIOException if there is thrown {@link IOException} during reading
+     * */
+    default BasicFileAttributes attributes() {
+        try {
+            return Files.readAttributes(path(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
 }
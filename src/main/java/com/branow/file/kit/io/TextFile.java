@@ -1,11 +1,24 @@
 package com.branow.file.kit.io;
 
 import com.branow.file.kit.utils.FileIOUtils;
+import com.branow.file.kit.utils.ParallelDecoder;
+import com.branow.file.kit.utils.Transcoder;
 import com.branow.outfits.util.UniChar;
 import com.branow.outfits.util.UniCharString;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * The {@code UniCharFile} lets to read, write, overwrite and append
@@ -14,6 +27,10 @@ import java.nio.file.Path;
  */
 public class TextFile extends UniCharFile {
 
+    private static final int SEARCH_BUFFER_SIZE = 64 << 10;
+
+    private LineIndex lineIndex;
+
     /**
      * Calls super constructor {@link UniCharFile#UniCharFile(Path)}.
      *
@@ -44,6 +61,205 @@ public class TextFile extends UniCharFile {
         return FileIOUtils.readString(path(), charset());
     }
 
+    /**
+     * Reads the whole file and returns string of them. The file is split into chunks that
+     * are decoded concurrently, so the method is much faster than {@link TextFile#readString()}
+     * for big files in UTF-8 or single-byte charsets. The result is the same.
+     * It calls {@link ParallelDecoder#decode(Path, Charset)}.
+     *
+     * @return The string of file data.
+     * @see ParallelDecoder#decode(Path, Charset)
+     */
+    public String readStringParallel() {
+        return ParallelDecoder.decode(path(), charset());
+    }
+
+    /**
+     * Checks whether the file data is a valid sequence of characters in the charset of this file.
+     * The file is split into chunks that are validated concurrently without decoding them into string.
+     * It calls {@link ParallelDecoder#validate(Path, Charset)}.
+     *
+     * @return {@code True} if the file doesn't contain malformed or unmappable bytes.
+     * @see ParallelDecoder#validate(Path, Charset)
+     */
+    public boolean validate() {
+        return ParallelDecoder.validate(path(), charset());
+    }
+
+    /**
+     * Reads the line with the given number. It uses the line index of this file,
+     * so the line is read by one positional read.
+     *
+     * @param n The number of the line (starting from zero).
+     * @return The read line without line separator.
+     * @throws IllegalArgumentException if there is no such line.
+     * @see TextFile#lineIndex()
+     */
+    public String readLine(long n) {
+        return readIndexedLines(lineIndex(), n, n + 1).get(0);
+    }
+
+    /**
+     * Reads the lines with the numbers from {@code from} (inclusive) to {@code to} (exclusive).
+     * It uses the line index of this file, so the lines are read by one positional read.
+     *
+     * @param from The number of the first line to read.
+     * @param to   The number of the line after the last line to read.
+     * @return The list of read lines without line separators.
+     * @throws IllegalArgumentException if there are no such lines.
+     * @see TextFile#lineIndex()
+     */
+    public List<String> readLines(long from, long to) {
+        return readIndexedLines(lineIndex(), from, to);
+    }
+
+    /**
+     * Returns the number of lines of this file. It uses the line index of this file.
+     *
+     * @return The number of lines.
+     * @see TextFile#lineIndex()
+     */
+    public long lineCount() {
+        return lineIndex().lineCount();
+    }
+
+    /**
+     * Returns the line index of this file. The index is built at the first call and kept with
+     * this object. At the next calls it is updated: if the file only grew, only the appended
+     * bytes are scanned.
+     *
+     * @return The up-to-date line index of this file.
+     * @see LineIndex#update(Path)
+     */
+    public synchronized LineIndex lineIndex() {
+        if (lineIndex == null)
+            lineIndex = new LineIndex(charset());
+        updateLineIndex(lineIndex);
+        return lineIndex;
+    }
+
+    /**
+     * Loads the line index of this file from the given sidecar file saved by {@link LineIndex#save(Path)}
+     * and updates it, so only the bytes appended since saving are scanned.
+     *
+     * @param sidecar The path of the sidecar file.
+     * @throws IllegalArgumentException if the index was built for another charset.
+     * @see LineIndex#load(Path)
+     */
+    public synchronized void loadLineIndex(Path sidecar) {
+        LineIndex index = LineIndex.load(sidecar);
+        if (!index.charset().equals(charset()))
+            throw new IllegalArgumentException("The line index charset is different: index - " + index.charset() + ", file - " + charset());
+        updateLineIndex(index);
+        lineIndex = index;
+    }
+
+    /**
+     * Returns the lazy stream of char offsets of all occurrences of the given text in this file
+     * in ascending order. The offsets are equal to the indexes of the occurrences in the string
+     * returned by {@link TextFile#readString()}. If every encoded char can be found only at
+     * a char start (UTF-8, UTF-16, UTF-32 and single-byte charsets), the encoded text is searched
+     * as bytes by mapped chunks concurrently, and only the bytes before the found occurrences are
+     * decoded to count chars. In other charsets (e.g. Shift_JIS or GBK) a trailing byte of a char
+     * may look like another char, so the file is decoded and the text is searched in the chars.
+     *
+     * @param text The text to search.
+     * @return The stream of char offsets of the occurrences.
+     * @throws NullPointerException     if {@code text} is null.
+     * @throws IllegalArgumentException if {@code text} is empty.
+     * @see ByteFile#findAll(byte[])
+     */
+    public LongStream find(String text) {
+        if (text == null) throw new NullPointerException("text is null");
+        if (text.isEmpty()) throw new IllegalArgumentException("text is empty");
+
+        CharsetLayout layout = layout();
+        if (!layout.isSelfSynchronizing())
+            return findDecoded(text);
+        CharOffsetCounter counter = charOffsetCounter(layout);
+        PrimitiveIterator.OfLong offsets = findAll(text.getBytes(layout.charset()))
+                .filter(e -> e >= layout.bom() && (e - layout.bom()) % layout.unit() == 0)
+                .iterator();
+        PrimitiveIterator.OfLong iterator = new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return offsets.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return counter.charOffset(offsets.nextLong());
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Starts following this file from the beginning: every complete line already written and
+     * appended later is passed to the given sink. Only the appended bytes are read at every poll.
+     * It calls {@link TextFileFollower#start(Path, Charset, Consumer, long, long)}.
+     *
+     * @param lineSink The consumer of read lines (without line separators).
+     * @return The started follower, which must be closed to stop following.
+     * @see TextFileFollower
+     */
+    public TextFileFollower follow(Consumer<String> lineSink) {
+        return follow(lineSink, 0);
+    }
+
+    /**
+     * Starts following this file from the given byte offset, for example, returned by
+     * {@link TextFileFollower#offset()} of the previous follower.
+     * It calls {@link TextFileFollower#start(Path, Charset, Consumer, long, long)}.
+     *
+     * @param lineSink The consumer of read lines (without line separators).
+     * @param offset   The byte offset of the line start from which the file is read.
+     * @return The started follower, which must be closed to stop following.
+     * @see TextFileFollower
+     */
+    public TextFileFollower follow(Consumer<String> lineSink, long offset) {
+        return TextFileFollower.start(path(), charset(), lineSink, offset, TextFileFollower.DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * Opens the piece-table editor of this file. The edits are kept in memory and
+     * written to the file once by {@link TextFileEditor#commit()}.
+     *
+     * @return The editor of this file.
+     * @see TextFileEditor
+     */
+    public TextFileEditor edit() {
+        return new TextFileEditor(path(), charset());
+    }
+
+    /**
+     * Converts this file to the target file in the given charset. The data is streamed
+     * through fixed buffers, so the content is never held in the heap as a whole.
+     * It calls {@link Transcoder#transcode(Path, Charset, Path, Charset)}.
+     *
+     * @param target  The path of the converted file. It is created or overwritten.
+     * @param charset The charset of the converted file data.
+     * @return The result of the conversion with the number of bytes and the speed.
+     * @see Transcoder#transcode(Path, Charset, Path, Charset)
+     */
+    public Transcoder.Result transcodeTo(Path target, Charset charset) {
+        return Transcoder.transcode(path(), charset(), target, charset);
+    }
+
+    /**
+     * Converts this file to the given charset in place. After that, the file should be
+     * accessed by a new {@code TextFile} with the given charset.
+     * It calls {@link Transcoder#transcode(Path, Charset, Charset)}.
+     *
+     * @param charset The charset of the converted file data.
+     * @return The result of the conversion with the number of bytes and the speed.
+     * @see Transcoder#transcode(Path, Charset, Charset)
+     */
+    public Transcoder.Result transcode(Charset charset) {
+        return Transcoder.transcode(path(), charset(), charset);
+    }
+
     /**
      * Reads a string with the given length from the file and returns it.
      * It uses super method {@link UniCharFile#readUniChars(int)} and converter
@@ -159,6 +375,120 @@ public class TextFile extends UniCharFile {
         FileIOUtils.append(path(), text, off, charset());
     }
 
+    /**
+     * Reads the layout of this file data (the byte order mark and the byte order) from its first bytes.
+     *
+     * @return The layout of this file data.
+     */
+    CharsetLayout layout() {
+        return CharsetLayout.of(charset(), FileIOUtils.readByteBuffer(path(), 0, 2));
+    }
+
+    /**
+     * Creates the counter that converts ascending byte offsets of this file to char offsets.
+     *
+     * @param layout The layout of this file data.
+     * @return The new counter of this file.
+     */
+    CharOffsetCounter charOffsetCounter(CharsetLayout layout) {
+        return new CharOffsetCounter(path(), layout);
+    }
+
+    /**
+     * Brings the line index up to date with this file data.
+     *
+     * @param index The line index of this file.
+     * @see LineIndex#update(Path)
+     */
+    void updateLineIndex(LineIndex index) {
+        index.update(path());
+    }
+
+    /**
+     * Reads the lines of this file data by the line index.
+     *
+     * @param index The up-to-date line index of this file.
+     * @param from  The number of the first line to read.
+     * @param to    The number of the line after the last line to read.
+     * @return The list of read lines without line separators.
+     */
+    List<String> readIndexedLines(LineIndex index, long from, long to) {
+        return index.readLines(path(), from, to);
+    }
+
+
+
+    /**
+     * Searches the text in the chars decoded from the content of this file chunk by chunk.
+     *
+     * @param text The text to search.
+     * @return The stream of char offsets of the occurrences, which closes the content stream.
+     */
+    private LongStream findDecoded(String text) {
+        Reader reader;
+        try {
+            reader = new InputStreamReader(newContentStream(), charset());
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        PrimitiveIterator.OfLong iterator = new PrimitiveIterator.OfLong() {
+            private final StringBuilder window = new StringBuilder();
+            private final char[] buffer = new char[SEARCH_BUFFER_SIZE];
+            private long windowStart;
+            private int from;
+            private long next = -1;
+            private boolean ended;
+
+            @Override
+            public boolean hasNext() {
+                while (next < 0 && !ended) {
+                    int index = window.indexOf(text, from);
+                    if (index >= 0) {
+                        next = windowStart + index;
+                        from = index + 1;
+                    } else {
+                        int keep = Math.max(from, window.length() - text.length() + 1);
+                        window.delete(0, keep);
+                        windowStart += keep;
+                        from = 0;
+                        read();
+                    }
+                }
+                return next >= 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                long result = next;
+                next = -1;
+                return result;
+            }
+
+            private void read() {
+                try {
+                    int n = reader.read(buffer);
+                    if (n < 0)
+                        ended = true;
+                    else
+                        window.append(buffer, 0, n);
+                } catch (IOException e) {
+                    throw new RuntimeIOException(e);
+                }
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new RuntimeIOException(e);
+                    }
+                });
+    }
+
     /**
      * Returns string representation of this object.
      *
@@ -0,0 +1,480 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.utils.FileIOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code TextFileEditor} is an in-memory piece table over a text file. The edits don't touch
+ * the file: the text is kept as a list of pieces, each of them refers either to a range of the
+ * original file content or to a range of the buffer of added text. Reads are served from the pieces,
+ * the original content is decoded from the mapped file on demand. The file is rewritten once by
+ * {@link TextFileEditor#commit()}, which writes unchanged ranges from the mapped original file directly
+ * (without decoding them).<br><br>
+ * <p>
+ * Positions are char positions like in {@link TextFile#readString()}. The editor keeps char-to-byte
+ * checkpoints of the original content, so a read or a commit decodes only the parts it needs.
+ */
+public class TextFileEditor {
+
+    private static final int CHECKPOINT_INTERVAL = 1 << 16;
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    private final Path path;
+    private final Charset charset;
+    private final StringBuilder added = new StringBuilder();
+    private final List<Piece> pieces = new ArrayList<>();
+    private CharsetLayout layout;
+    private long[] checkpointChars;
+    private long[] checkpointBytes;
+    private int checkpoints;
+    private long originalLength;
+    private long originalSize;
+    private long originalModified;
+    private long length;
+    private boolean modified;
+
+    /**
+     * Opens the editor of the given file. The original content is decoded once to count its chars.
+     *
+     * @param path    The path of the file to edit.
+     * @param charset The charset of the file data.
+     * @throws NullPointerException if {@code path} or {@code charset} is null.
+     * @throws RuntimeIOException   if IOException is thrown during reading.
+     */
+    public TextFileEditor(Path path, Charset charset) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (charset == null) throw new NullPointerException("charset is null");
+        this.path = path;
+        this.charset = charset;
+        load();
+    }
+
+    /**
+     * @return The number of chars of the edited text.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return {@code True} if there are edits that aren't committed.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Returns the whole edited text.
+     *
+     * @return The edited text.
+     * @throws IllegalStateException if the text is too long for a string.
+     */
+    public String read() {
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalStateException("The text is too long for a string: " + length);
+        return read(0, (int) length);
+    }
+
+    /**
+     * Returns the part of the edited text.
+     *
+     * @param pos    The char position of the part start.
+     * @param length The maximum number of chars to read.
+     * @return The read part of the text.
+     * @throws IllegalArgumentException if {@code pos} is out of the text or {@code length} is negative.
+     */
+    public String read(long pos, int length) {
+        checkPosition(pos);
+        if (length < 0) throw new IllegalArgumentException("length is negative: " + length);
+        long end = Math.min(this.length, pos + length);
+        StringBuilder sb = new StringBuilder((int) (end - pos));
+        long start = 0;
+        for (Piece piece : pieces) {
+            long from = Math.max(pos, start);
+            long to = Math.min(end, start + piece.length);
+            if (from < to)
+                sb.append(text(piece, from - start, to - start));
+            start += piece.length;
+            if (start >= end)
+                break;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Inserts the text at the given position. It is the same as {@link TextFile#appendString(String, int)}.
+     *
+     * @param text The text to insert.
+     * @param pos  The char position at which the text is inserted.
+     * @throws IllegalArgumentException if {@code pos} is out of the text.
+     */
+    public void insert(String text, long pos) {
+        checkPosition(pos);
+        if (text.isEmpty())
+            return;
+
+        modified = true;
+        int index = split(pos);
+        if (index > 0) {
+            Piece previous = pieces.get(index - 1);
+            if (!previous.original && previous.start + previous.length == added.length()) {
+                added.append(text);
+                previous.length += text.length();
+                length += text.length();
+                return;
+            }
+        }
+        pieces.add(index, new Piece(false, added.length(), text.length()));
+        added.append(text);
+        length += text.length();
+    }
+
+    /**
+     * Appends the text to the end.
+     *
+     * @param text The text to append.
+     */
+    public void append(String text) {
+        insert(text, length);
+    }
+
+    /**
+     * Deletes the chars in the given range.
+     *
+     * @param pos    The char position of the first deleted char.
+     * @param length The maximum number of chars to delete.
+     * @throws IllegalArgumentException if {@code pos} is out of the text or {@code length} is negative.
+     */
+    public void delete(long pos, long length) {
+        checkPosition(pos);
+        if (length < 0) throw new IllegalArgumentException("length is negative: " + length);
+        long end = Math.min(this.length, pos + length);
+        if (end == pos)
+            return;
+
+        modified = true;
+        int from = split(pos);
+        int to = split(end);
+        pieces.subList(from, to).clear();
+        this.length -= end - pos;
+    }
+
+    /**
+     * Replaces the chars after the given position with the text. It is the same as
+     * {@link TextFile#writeString(String, int)}.
+     *
+     * @param text The text to write.
+     * @param pos  The char position at which the text is written.
+     * @throws IllegalArgumentException if {@code pos} is out of the text.
+     */
+    public void write(String text, long pos) {
+        delete(pos, text.length());
+        insert(text, pos);
+    }
+
+    /**
+     * Deletes all chars after the given position and appends the text. It is the same as
+     * {@link TextFile#overwriteString(String, int)}.
+     *
+     * @param text The text to write.
+     * @param pos  The char position at which the text is written.
+     * @throws IllegalArgumentException if {@code pos} is out of the text.
+     */
+    public void overwrite(String text, long pos) {
+        delete(pos, length - pos);
+        insert(text, pos);
+    }
+
+    /**
+     * Writes the edited text to the file. The text is written to a temporary file in the same
+     * directory, which gets the permissions and the owner of the file and replaces it (atomically
+     * if the file system supports it), so the file becomes another inode: hard links and channels
+     * opened before keep the old content. The ranges of the original content are written
+     * byte by byte without decoding.
+     * After committing, the editor continues with the written text as the original content.
+     *
+     * @throws IllegalStateException if the file was changed after the editor was opened.
+     * @throws RuntimeIOException    if IOException is thrown during writing.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    public void commit() {
+        try {
+            if (contentSize() != originalSize || Files.getLastModifiedTime(path).toMillis() != originalModified)
+                throw new IllegalStateException("The file was changed after the editor was opened: " + path);
+
+            Path absolute = path.toAbsolutePath();
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                try (WritableByteChannel dst = newTarget(temp)) {
+                    writeFully(dst, ByteBuffer.wrap(header()));
+                    for (Piece piece : pieces) {
+                        writePiece(piece, dst);
+                    }
+                }
+                replace(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        added.setLength(0);
+        load();
+    }
+
+    /**
+     * Discards all edits that aren't committed.
+     */
+    public void discard() {
+        added.setLength(0);
+        pieces.clear();
+        if (originalLength > 0)
+            pieces.add(new Piece(true, 0, originalLength));
+        length = originalLength;
+        modified = false;
+    }
+
+
+    /**
+     * Returns the size of the content of the file. The content is the data the editor reads and writes.
+     *
+     * @return The number of bytes of the content.
+     * @throws IOException if an I/O error occurs.
+     */
+    long contentSize() throws IOException {
+        return Files.size(path);
+    }
+
+    /**
+     * Reads the bytes of the content of the file. The returned buffer may be shorter if the content ends.
+     *
+     * @param pos    The position of the first byte.
+     * @param length The number of bytes to read.
+     * @return The buffer of the read bytes.
+     */
+    ByteBuffer readContent(long pos, long length) {
+        return FileIOUtils.map(path, pos, length);
+    }
+
+    /**
+     * Opens the channel that writes the content to the given temporary file.
+     *
+     * @param temp The temporary file in the same directory, which replaces the file after writing.
+     * @return The opened channel.
+     * @throws IOException if an I/O error occurs.
+     */
+    WritableByteChannel newTarget(Path temp) throws IOException {
+        return FileChannel.open(temp, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Replaces the file with the written temporary file.
+     *
+     * @param temp The temporary file with the written content.
+     * @throws IOException if an I/O error occurs.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    void replace(Path temp) throws IOException {
+        FileIOUtils.replace(path, temp);
+    }
+
+
+    private void load() {
+        try {
+            originalSize = contentSize();
+            originalModified = Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        layout = CharsetLayout.of(charset, readContent(0, Math.min(2, originalSize)));
+        checkpointChars = new long[16];
+        checkpointBytes = new long[16];
+        checkpoints = 0;
+        addCheckpoint(0, layout.bom());
+
+        CharsetDecoder decoder = decoder();
+        CharBuffer out = CharBuffer.allocate(8192);
+        long bytes = layout.bom();
+        long chars = 0;
+        while (bytes < originalSize) {
+            ByteBuffer in = readContent(bytes, Math.min(WINDOW_SIZE, originalSize - bytes));
+            boolean endOfInput = bytes + in.limit() == originalSize;
+            CoderResult result;
+            do {
+                result = decoder.decode(in, out, endOfInput);
+                chars += out.position();
+                out.clear();
+                if (chars - checkpointChars[checkpoints - 1] >= CHECKPOINT_INTERVAL)
+                    addCheckpoint(chars, bytes + in.position());
+            } while (result.isOverflow());
+            if (endOfInput) {
+                decoder.flush(out);
+                chars += out.position();
+                out.clear();
+                break;
+            }
+            if (in.position() == 0)
+                break;
+            bytes += in.position();
+        }
+        originalLength = chars;
+        discard();
+    }
+
+    private void addCheckpoint(long chars, long bytes) {
+        if (checkpoints == checkpointChars.length) {
+            checkpointChars = Arrays.copyOf(checkpointChars, checkpoints * 2);
+            checkpointBytes = Arrays.copyOf(checkpointBytes, checkpoints * 2);
+        }
+        checkpointChars[checkpoints] = chars;
+        checkpointBytes[checkpoints] = bytes;
+        checkpoints++;
+    }
+
+    private int checkpoint(long chars) {
+        int index = Arrays.binarySearch(checkpointChars, 0, checkpoints, chars);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private String text(Piece piece, long from, long to) {
+        if (!piece.original)
+            return added.substring((int) (piece.start + from), (int) (piece.start + to));
+        return original(piece.start + from, piece.start + to);
+    }
+
+    private String original(long from, long to) {
+        int first = checkpoint(from);
+        int last = checkpoint(to - 1) + 1;
+        long bytesFrom = checkpointBytes[first];
+        long bytesTo = last < checkpoints ? checkpointBytes[last] : originalSize;
+        String decoded = layout.charset().decode(readContent(bytesFrom, bytesTo - bytesFrom)).toString();
+        long offset = checkpointChars[first];
+        return decoded.substring((int) (from - offset), (int) (to - offset));
+    }
+
+    private long byteOffset(long chars) {
+        if (chars == originalLength)
+            return originalSize;
+        int index = checkpoint(chars);
+        long skip = chars - checkpointChars[index];
+        if (skip == 0)
+            return checkpointBytes[index];
+
+        long bytesFrom = checkpointBytes[index];
+        long bytesTo = index + 1 < checkpoints ? checkpointBytes[index + 1] : originalSize;
+        ByteBuffer in = readContent(bytesFrom, bytesTo - bytesFrom);
+        CharBuffer out = CharBuffer.allocate((int) skip);
+        decoder().decode(in, out, false);
+        return out.hasRemaining() ? -1 : bytesFrom + in.position();
+    }
+
+    private void writePiece(Piece piece, WritableByteChannel dst) throws IOException {
+        if (piece.original) {
+            long from = byteOffset(piece.start);
+            long to = byteOffset(piece.start + piece.length);
+            if (from >= 0 && to >= 0) {
+                for (long pos = from; pos < to; ) {
+                    ByteBuffer bytes = readContent(pos, Math.min(WINDOW_SIZE, to - pos));
+                    if (!bytes.hasRemaining())
+                        throw new IllegalStateException("The file ends unexpectedly: " + path);
+                    pos += bytes.remaining();
+                    writeFully(dst, bytes);
+                }
+                return;
+            }
+        }
+        for (long pos = 0; pos < piece.length; ) {
+            long end = Math.min(piece.length, pos + CHECKPOINT_INTERVAL);
+            String text = text(piece, pos, end);
+            if (end < piece.length && Character.isHighSurrogate(text.charAt(text.length() - 1)))
+                text = text(piece, pos, ++end);
+            writeFully(dst, layout.charset().encode(text));
+            pos = end;
+        }
+    }
+
+    private byte[] header() {
+        if (originalSize > 0) {
+            ByteBuffer bom = readContent(0, layout.bom());
+            byte[] bytes = new byte[bom.remaining()];
+            bom.get(bytes);
+            return bytes;
+        }
+        if (length == 0)
+            return new byte[0];
+        byte[] withBom = "\n".getBytes(charset);
+        return Arrays.copyOf(withBom, withBom.length - layout.unit());
+    }
+
+    private static void writeFully(WritableByteChannel dst, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            dst.write(buffer);
+        }
+    }
+
+    private CharsetDecoder decoder() {
+        return layout.charset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Splits the piece containing the given position, so that a piece starts at the position.
+     *
+     * @return The index of the piece starting at the position.
+     */
+    private int split(long pos) {
+        long start = 0;
+        for (int i = 0; i < pieces.size(); i++) {
+            Piece piece = pieces.get(i);
+            if (pos == start)
+                return i;
+            if (pos < start + piece.length) {
+                long head = pos - start;
+                pieces.add(i + 1, new Piece(piece.original, piece.start + head, piece.length - head));
+                piece.length = head;
+                return i + 1;
+            }
+            start += piece.length;
+        }
+        return pieces.size();
+    }
+
+    private void checkPosition(long pos) {
+        if (pos < 0 || pos > length)
+            throw new IllegalArgumentException("The position is out of the text: position - " + pos + ", length - " + length);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + path + " : " + charset + " : " + length + " : " + pieces.size() + " ]";
+    }
+
+    private static class Piece {
+
+        private final boolean original;
+        private final long start;
+        private long length;
+
+        private Piece(boolean original, long start, long length) {
+            this.original = original;
+            this.start = start;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.branow.file.kit.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The {@code TextFileFollower} reads a growing text file incrementally and passes every complete
+ * line to the given sink. It remembers the byte offset of the read data, so every poll reads only
+ * the bytes appended since the previous one. An incomplete last line is kept until its line feed
+ * is appended.<br><br>
+ * <p>
+ * The follower polls the file in a daemon thread when the parent directory reports a change by
+ * {@link WatchService} or when the poll interval elapses (the fallback when the file system doesn't
+ * support watching or misses events). The file can be also polled manually with
+ * {@link TextFileFollower#poll()}.<br><br>
+ * <p>
+ * If the file became shorter than the read offset (truncation), the follower starts reading the file
+ * from the beginning. The followed file is kept open between polls, so if it was replaced by another file
+ * with the same name (rotation), the rest of the old file is read through the open channel (an incomplete
+ * last line is passed as a line) before the new file is read from the beginning.<br><br>
+ * <p>
+ * An exception thrown by the sink or by reading doesn't stop the background thread: it is passed to the
+ * error handler, kept as {@link TextFileFollower#failure()} and the file is polled again after the poll
+ * interval. A line rejected by the sink isn't passed again.
+ */
+public class TextFileFollower implements AutoCloseable {
+
+    /**
+     * The default interval in milliseconds after which the file is polled if no change is reported.
+     */
+    public static final long DEFAULT_POLL_INTERVAL = 1000;
+
+    private static final int READ_BUFFER_SIZE = 64 << 10;
+
+    private final Path path;
+    private final Charset charset;
+    private final Consumer<String> sink;
+    private final Consumer<? super RuntimeException> errorHandler;
+    private final Function<FileChannel, Source> sources;
+    private final long pollInterval;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+    private final WatchService watchService;
+    private CharsetLayout layout;
+    private FileChannel channel;
+    private Source source;
+    private Object fileKey;
+    private long offset;
+    private byte[] pending = new byte[1024];
+    private int pendingLength;
+    private int scanned;
+
+    /**
+     * Creates and starts the follower of the given file.
+     *
+     * @param path         The path of the file to follow.
+     * @param charset      The charset of the file data.
+     * @param sink         The consumer of read lines (without line separators).
+     * @param offset       The byte offset from which the file is read (the start of a line).
+     * @param pollInterval The interval in milliseconds after which the file is polled if no change is reported.
+     * @return The started follower.
+     * @throws NullPointerException     if {@code path}, {@code charset} or {@code sink} is null.
+     * @throws IllegalArgumentException if {@code offset} is negative or {@code pollInterval} is not positive.
+     */
+    public static TextFileFollower start(Path path, Charset charset, Consumer<String> sink, long offset, long pollInterval) {
+        return start(path, charset, sink, e -> {}, offset, pollInterval);
+    }
+
+    /**
+     * Creates and starts the follower of the given file with the handler of errors of the background thread.
+     *
+     * @param path         The path of the file to follow.
+     * @param charset      The charset of the file data.
+     * @param sink         The consumer of read lines (without line separators).
+     * @param errorHandler The consumer of exceptions thrown by the sink or by reading in the background thread.
+     * @param offset       The byte offset from which the file is read (the start of a line).
+     * @param pollInterval The interval in milliseconds after which the file is polled if no change is reported.
+     * @return The started follower.
+     * @throws NullPointerException     if {@code path}, {@code charset}, {@code sink} or {@code errorHandler} is null.
+     * @throws IllegalArgumentException if {@code offset} is negative or {@code pollInterval} is not positive.
+     */
+    public static TextFileFollower start(Path path, Charset charset, Consumer<String> sink,
+                                         Consumer<? super RuntimeException> errorHandler, long offset, long pollInterval) {
+        return start(path, charset, sink, errorHandler, offset, pollInterval, FileSource::new);
+    }
+
+    /**
+     * Creates and starts the follower of the given file which reads the file data through the sources
+     * created over the channels of the followed file (for example, to follow the uncompressed data).
+     */
+    static TextFileFollower start(Path path, Charset charset, Consumer<String> sink,
+                                  Consumer<? super RuntimeException> errorHandler, long offset, long pollInterval,
+                                  Function<FileChannel, Source> sources) {
+        TextFileFollower follower = new TextFileFollower(path, charset, sink, errorHandler, offset, pollInterval, sources);
+        follower.thread.start();
+        return follower;
+    }
+
+    private TextFileFollower(Path path, Charset charset, Consumer<String> sink,
+                             Consumer<? super RuntimeException> errorHandler, long offset, long pollInterval,
+                             Function<FileChannel, Source> sources) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (charset == null) throw new NullPointerException("charset is null");
+        if (sink == null) throw new NullPointerException("sink is null");
+        if (errorHandler == null) throw new NullPointerException("errorHandler is null");
+        if (offset < 0) throw new IllegalArgumentException("offset is negative: " + offset);
+        if (pollInterval <= 0) throw new IllegalArgumentException("pollInterval must be positive: " + pollInterval);
+        this.path = path.toAbsolutePath();
+        this.charset = charset;
+        this.sink = sink;
+        this.errorHandler = errorHandler;
+        this.sources = sources;
+        this.offset = offset;
+        this.pollInterval = pollInterval;
+        this.watchService = register(this.path.getParent());
+        this.thread = new Thread(this::run, getClass().getSimpleName() + "-" + path.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Reads the bytes appended to the file since the previous poll and passes the complete lines
+     * to the sink. If the file was rotated, the rest of the old file is read first. If the file
+     * doesn't exist (for example, during rotation), it reads nothing more.
+     *
+     * @return The number of lines passed to the sink.
+     * @throws RuntimeIOException if IOException is thrown during reading.
+     * @throws RuntimeException   if it is thrown by the sink; the rejected line isn't passed again.
+     */
+    public synchronized int poll() {
+        try {
+            int lines = 0;
+            Object key = fileKey(path);
+            if (channel != null && !Objects.equals(fileKey, key)) {
+                if (layout != null) {
+                    lines += deliver() + read(source.size());
+                    int rest = pendingLength - pendingLength % layout.unit();
+                    if (rest > 0) {
+                        String line = layout.decodeLine(ByteBuffer.wrap(pending, 0, rest));
+                        pendingLength = 0;
+                        scanned = 0;
+                        sink.accept(line);
+                        lines++;
+                    }
+                }
+                closeChannel();
+                reset();
+            }
+            if (key == null)
+                return lines;
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                source = sources.apply(channel);
+                fileKey = key;
+            }
+
+            long size = source.size();
+            if (size < offset)
+                reset();
+            if (layout == null) {
+                ByteBuffer head = ByteBuffer.allocate(2);
+                while (head.hasRemaining() && source.read(head, head.position()) > 0) ;
+                if (charset.equals(StandardCharsets.UTF_16) && head.position() < 2)
+                    return lines;
+                layout = CharsetLayout.of(charset, head.flip());
+                offset = Math.max(offset, layout.bom());
+            }
+            return lines + deliver() + read(size);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * Returns the last exception thrown by the sink or by reading in the background thread.
+     *
+     * @return The last exception of the background thread or empty if there was no exception.
+     */
+    public Optional<RuntimeException> failure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * Returns the byte offset of the start of the line that will be passed to the sink next.
+     * The follower can be restarted from this offset later.
+     *
+     * @return The byte offset of the next line start.
+     */
+    public synchronized long offset() {
+        return offset - pendingLength;
+    }
+
+    /**
+     * @return {@code True} if the follower polls the file in the background.
+     */
+    public boolean isFollowing() {
+        return !closed && thread.isAlive();
+    }
+
+    /**
+     * Stops following the file and waits for the background thread to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            if (watchService != null)
+                watchService.close();
+            if (thread != Thread.currentThread())
+                thread.join();
+            synchronized (this) {
+                closeChannel();
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private void run() {
+        boolean watching = watchService != null;
+        while (!closed) {
+            try {
+                poll();
+                if (watching) {
+                    WatchKey key = watchService.poll(pollInterval, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        watching = key.reset();
+                    }
+                } else {
+                    Thread.sleep(pollInterval);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                if (closed)
+                    return;
+                failure = e;
+                try {
+                    errorHandler.accept(e);
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    return;
+                } catch (RuntimeException handlerFailure) {
+                    failure = handlerFailure;
+                }
+            }
+        }
+    }
+
+    private int read(long size) throws IOException {
+        int lines = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        while (offset < size) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - offset));
+            int read = source.read(buffer, offset);
+            if (read <= 0)
+                break;
+            offset += read;
+            lines += consume(buffer.flip());
+        }
+        return lines;
+    }
+
+    private int consume(ByteBuffer bytes) {
+        int length = bytes.remaining();
+        if (pendingLength + length > pending.length)
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        bytes.get(pending, pendingLength, length);
+        pendingLength += length;
+        return deliver();
+    }
+
+    /**
+     * Passes the complete pending lines to the sink. The pending bytes before {@code scanned}
+     * contain no line feed, so they aren't scanned again. The pending bytes are scanned once,
+     * and the passed lines are removed from them by one copy after scanning (or after the sink fails,
+     * so the rejected line isn't passed again).
+     */
+    private int deliver() {
+        int unit = layout.unit();
+        ByteBuffer buffer = ByteBuffer.wrap(pending);
+        int lines = 0;
+        int start = 0;
+        int i = scanned;
+        try {
+            for (; i + unit <= pendingLength; i += unit) {
+                if (layout.isLineFeed(buffer, i)) {
+                    String line = layout.decodeLine(ByteBuffer.wrap(pending, start, i + unit - start));
+                    start = i + unit;
+                    sink.accept(line);
+                    lines++;
+                }
+            }
+        } finally {
+            if (start > 0) {
+                System.arraycopy(pending, start, pending, 0, pendingLength - start);
+                pendingLength -= start;
+            }
+            scanned = Math.max(0, i - start);
+        }
+        return lines;
+    }
+
+    private void reset() {
+        layout = null;
+        offset = 0;
+        pendingLength = 0;
+        scanned = 0;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            source = null;
+            fileKey = null;
+        }
+    }
+
+    private static Object fileKey(Path path) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static WatchService register(Path dir) {
+        try {
+            WatchService watchService = dir.getFileSystem().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + path + " : " + charset + " : " + offset + " ]";
+    }
+
+
+    /**
+     * The source of the followed data read from an opened file.
+     */
+    interface Source {
+
+        /**
+         * @return The size of the data.
+         * @throws IOException if it is thrown during reading.
+         */
+        long size() throws IOException;
+
+        /**
+         * Reads the data starting from the given position into the given buffer.
+         *
+         * @param dst The buffer into which the data is read.
+         * @param pos The position in the data.
+         * @return The number of read bytes or {@code -1} if the position is at the end of the data.
+         * @throws IOException if it is thrown during reading.
+         */
+        int read(ByteBuffer dst, long pos) throws IOException;
+    }
+
+    /**
+     * The source of the data of an opened file.
+     */
+    static class FileSource implements Source {
+
+        private final FileChannel channel;
+
+        FileSource(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long pos) throws IOException {
+            return channel.read(dst, pos);
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class UniCharFile extends ByteFile {
      * @see UniCharFileMapper#next()
      */
     public UniChar[] readUniChars() {
-        UniCharFileMapper mapper = new UniCharFileMapper(path(), size(), charset);
+        UniCharFileMapper mapper = mapper();
         List<UniChar> list = new ArrayList<>();
         while (mapper.hasNext()) {
             list.add(mapper.next());
@@ -73,7 +73,7 @@ public class UniCharFile extends ByteFile {
      * @see UniCharFileMapper#next()
      */
     public UniChar[] readUniChars(int length) {
-        UniCharFileMapper mapper = new UniCharFileMapper(path(), size(), charset);
+        UniCharFileMapper mapper = mapper();
         UniChar[] uniChars = new UniChar[length];
         for (int i = 0; i < length && mapper.hasNext(); i++) {
             uniChars[i] = mapper.next();
@@ -90,7 +90,7 @@ public class UniCharFile extends ByteFile {
      * @see UniCharFileMapper#next()
      */
     public UniChar[] readUniChars(long off) {
-        UniCharFileMapper mapper = new UniCharFileMapper(path(), size(), charset);
+        UniCharFileMapper mapper = mapper();
         List<UniChar> list = new ArrayList<>();
         for (int i = 0; mapper.hasNext(); i++) {
             UniChar ch = mapper.next();
@@ -111,7 +111,7 @@ public class UniCharFile extends ByteFile {
      * @see UniCharFileMapper#next()
      */
     public UniChar[] readUniChars(long off, int length) {
-        UniCharFileMapper mapper = new UniCharFileMapper(path(), size(), charset);
+        UniCharFileMapper mapper = mapper();
         UniChar[] uniChars = new UniChar[length];
         for (long i = 0; i < off + length && mapper.hasNext(); i++) {
             UniChar ch = mapper.next();
@@ -209,7 +209,7 @@ public class UniCharFile extends ByteFile {
      * @return The number of uni chars of this file.
      */
     public long length() {
-        UniCharFileMapper mapper = new UniCharFileMapper(path(), size(), charset);
+        UniCharFileMapper mapper = mapper();
         long count = 0;
         while (mapper.hasNext()) {
             mapper.next();
@@ -218,6 +218,17 @@ public class UniCharFile extends ByteFile {
         return count;
     }
 
+    /**
+     * Creates the mapper that reads uni chars of this file from the beginning.
+     * All reading methods of this class use it.
+     *
+     * @return The new mapper of this file.
+     * @see UniCharFileMapper
+     */
+    protected UniCharFileMapper mapper() {
+        return new UniCharFileMapper(path(), size(), charset);
+    }
+
     /**
      * Returns the charset of this file.
      *
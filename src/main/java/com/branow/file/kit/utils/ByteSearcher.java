@@ -0,0 +1,283 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class contains static methods for searching a sequence of bytes in a file without loading
+ * the file into the heap. It uses the Boyer–Moore–Horspool algorithm over mapped chunks of the file.
+ * The chunks are searched in batches: every batch contains one chunk per processor core and its chunks
+ * are searched concurrently. Every chunk overlaps the next one by the pattern length minus one, so
+ * matches crossing chunk boundaries are found exactly once.<br><br>
+ * <p>
+ * The found offsets are returned as a lazy sequential stream in ascending order: the next batch is
+ * searched only when the offsets of the previous one are consumed, so short-circuiting operations
+ * (such as {@link LongStream#findFirst()}) stop the search.
+ */
+public class ByteSearcher {
+
+    private static final int CHUNK_SIZE = 8 << 20;
+    private static final int STREAM_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The method returns the offset of the first occurrence of the pattern in this file.
+     * The method is based on calling {@link ByteSearcher#findAll(Path, byte[])}.
+     *
+     * @param path The path of the file in which the pattern is searched.
+     * @param pattern The sequence of bytes to search.
+     * @return The byte offset of the first occurrence or {@code -1} if there is no occurrence.
+     * @throws NullPointerException if {@code path} or {@code pattern} is null.
+     * @throws IllegalArgumentException if {@code pattern} is empty.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see ByteSearcher#findAll(Path, byte[])
+     */
+    public static long indexOf(Path path, byte[] pattern) {
+        return findAll(path, pattern).findFirst().orElse(-1);
+    }
+
+    /**
+     * The method returns the lazy stream of offsets of all occurrences of the pattern in this file
+     * (overlapping occurrences included) in ascending order. The number of chunks searched concurrently
+     * equals to the number of available processors.
+     *
+     * @param path The path of the file in which the pattern is searched.
+     * @param pattern The sequence of bytes to search.
+     * @return The stream of byte offsets of the occurrences.
+     * @throws NullPointerException if {@code path} or {@code pattern} is null.
+     * @throws IllegalArgumentException if {@code pattern} is empty.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see ByteSearcher#findAll(Path, byte[], int)
+     */
+    public static LongStream findAll(Path path, byte[] pattern) {
+        return findAll(path, pattern, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The method returns the lazy stream of offsets of all occurrences of the pattern in this file
+     * (overlapping occurrences included) in ascending order.
+     *
+     * @param path The path of the file in which the pattern is searched.
+     * @param pattern The sequence of bytes to search.
+     * @param parallelism The number of chunks searched concurrently.
+     * @return The stream of byte offsets of the occurrences.
+     * @throws NullPointerException if {@code path} or {@code pattern} is null.
+     * @throws IllegalArgumentException if {@code pattern} is empty or {@code parallelism} is less than one.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     */
+    public static LongStream findAll(Path path, byte[] pattern, int parallelism) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (pattern == null) throw new NullPointerException("pattern is null");
+        if (pattern.length == 0) throw new IllegalArgumentException("pattern is empty");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        Spliterator.OfLong spliterator = Spliterators.spliteratorUnknownSize(
+                new MatchIterator(path, size, pattern, parallelism),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL);
+        return StreamSupport.longStream(spliterator, false);
+    }
+
+    /**
+     * The method returns the lazy stream of offsets of all occurrences of the pattern in the bytes
+     * of the input stream (overlapping occurrences included) in ascending order. The input stream
+     * is read sequentially by a fixed buffer, which keeps the last pattern length minus one bytes
+     * of the previous read, so the bytes are never held in the heap as a whole. The input stream
+     * is closed when the returned stream is closed.
+     *
+     * @param in The input stream in which bytes the pattern is searched.
+     * @param pattern The sequence of bytes to search.
+     * @return The stream of byte offsets of the occurrences.
+     * @throws NullPointerException if {@code in} or {@code pattern} is null.
+     * @throws IllegalArgumentException if {@code pattern} is empty.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     */
+    public static LongStream findAll(InputStream in, byte[] pattern) {
+        if (in == null) throw new NullPointerException("in is null");
+        if (pattern == null) throw new NullPointerException("pattern is null");
+        if (pattern.length == 0) throw new IllegalArgumentException("pattern is empty");
+
+        Spliterator.OfLong spliterator = Spliterators.spliteratorUnknownSize(
+                new StreamMatchIterator(in, pattern),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL);
+        return StreamSupport.longStream(spliterator, false).onClose(() -> {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+        });
+    }
+
+
+    private static int[] skipTable(byte[] pattern) {
+        int[] skip = new int[256];
+        Arrays.fill(skip, pattern.length);
+        for (int i = 0; i < pattern.length - 1; i++) {
+            skip[pattern[i] & 0xFF] = pattern.length - 1 - i;
+        }
+        return skip;
+    }
+
+    private static long[] search(ByteBuffer buffer, long base, byte[] pattern, int[] skip, int limit) {
+        long[] found = new long[16];
+        int count = 0;
+        int last = pattern.length - 1;
+        int end = buffer.limit() - pattern.length;
+        for (int i = 0; i <= end && i < limit; ) {
+            byte b = buffer.get(i + last);
+            if (b == pattern[last]) {
+                int j = last - 1;
+                while (j >= 0 && buffer.get(i + j) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    if (count == found.length)
+                        found = Arrays.copyOf(found, count * 2);
+                    found[count++] = base + i;
+                }
+            }
+            i += skip[b & 0xFF];
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static class MatchIterator implements PrimitiveIterator.OfLong {
+
+        private final Path path;
+        private final long size;
+        private final byte[] pattern;
+        private final int[] skip;
+        private final int parallelism;
+        private final long chunks;
+        private long nextChunk;
+        private long[][] batch = new long[0][];
+        private int batchIndex;
+        private int index;
+
+        private MatchIterator(Path path, long size, byte[] pattern, int parallelism) {
+            this.path = path;
+            this.size = size;
+            this.pattern = pattern;
+            this.skip = skipTable(pattern);
+            this.parallelism = parallelism;
+            this.chunks = size < pattern.length ? 0 : (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                while (batchIndex < batch.length && index == batch[batchIndex].length) {
+                    batchIndex++;
+                    index = 0;
+                }
+                if (batchIndex < batch.length)
+                    return true;
+                if (nextChunk == chunks)
+                    return false;
+                searchBatch();
+            }
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return batch[batchIndex][index++];
+        }
+
+        private void searchBatch() {
+            long first = nextChunk;
+            int count = (int) Math.min(parallelism, chunks - first);
+            batch = IntStream.range(0, count).parallel()
+                    .mapToObj(i -> searchChunk(first + i))
+                    .toArray(long[][]::new);
+            batchIndex = 0;
+            index = 0;
+            nextChunk += count;
+        }
+
+        private long[] searchChunk(long chunk) {
+            long from = chunk * CHUNK_SIZE;
+            int length = (int) Math.min(CHUNK_SIZE, size - from);
+            long to = Math.min(size, from + length + pattern.length - 1);
+            ByteBuffer buffer = FileIOUtils.map(path, from, to - from);
+            return search(buffer, from, pattern, skip, length);
+        }
+    }
+
+    private static class StreamMatchIterator implements PrimitiveIterator.OfLong {
+
+        private final InputStream in;
+        private final byte[] pattern;
+        private final int[] skip;
+        private final byte[] buffer;
+        private int length;
+        private long base;
+        private boolean endOfInput;
+        private long[] found = new long[0];
+        private int index;
+
+        private StreamMatchIterator(InputStream in, byte[] pattern) {
+            this.in = in;
+            this.pattern = pattern;
+            this.skip = skipTable(pattern);
+            this.buffer = new byte[Math.max(STREAM_BUFFER_SIZE, pattern.length * 2)];
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index == found.length) {
+                if (endOfInput)
+                    return false;
+                searchNext();
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return found[index++];
+        }
+
+        private void searchNext() {
+            int kept = Math.min(length, pattern.length - 1);
+            System.arraycopy(buffer, length - kept, buffer, 0, kept);
+            base += length - kept;
+            length = kept;
+            try {
+                while (length < buffer.length) {
+                    int read = in.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        endOfInput = true;
+                        break;
+                    }
+                    length += read;
+                }
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+            found = search(ByteBuffer.wrap(buffer, 0, length), base, pattern, skip, length);
+            index = 0;
+        }
+    }
+}
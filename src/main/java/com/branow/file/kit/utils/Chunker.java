@@ -0,0 +1,198 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class contains static methods for content-defined chunking of a file. The boundaries of chunks
+ * are found by the FastCDC algorithm: a Gear rolling hash ({@code hash = (hash << 1) + GEAR[byte]}) is
+ * computed over the bytes, and a chunk ends where the high bits of the hash are zero. Since a boundary
+ * depends only on the bytes before it, inserting or removing bytes changes only the chunks around the
+ * change, and equal regions of similar files are split into equal chunks.<br><br>
+ * <p>
+ * A chunk is never shorter than a quarter of the average size (except the last one) and never longer than
+ * eight average sizes. Normalized chunking is used: before the average size the boundary condition is stricter,
+ * after it is looser, so the sizes of chunks gather around the average. The file is read by mapped regions.
+ */
+public class Chunker {
+
+    /**
+     * The default average size of a chunk in bytes.
+     */
+    public static final int DEFAULT_AVERAGE_SIZE = 64 << 10;
+
+    private static final int REGION_SIZE = 8 << 20;
+    private static final long[] GEAR = new SplittableRandom(0x6765617248617368L).longs(256).toArray();
+
+    /**
+     * The method returns the lazy sequential stream of chunks of the file with the default average size.
+     *
+     * @param path The path of the file.
+     * @return The stream of chunks in the order of the file.
+     * @throws NullPointerException if {@code path} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading.
+     * @see Chunker#chunks(Path, int)
+     */
+    public static Stream<Chunk> chunks(Path path) {
+        return chunks(path, DEFAULT_AVERAGE_SIZE);
+    }
+
+    /**
+     * The method returns the lazy sequential stream of chunks of the file. The chunks cover the file
+     * without gaps; an empty file has no chunks.
+     *
+     * @param path        The path of the file.
+     * @param averageSize The average size of a chunk in bytes. It must be a power of two not less than 64.
+     * @return The stream of chunks in the order of the file.
+     * @throws NullPointerException     if {@code path} is null.
+     * @throws IllegalArgumentException if {@code averageSize} isn't a power of two or is less than 64.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during reading.
+     */
+    public static Stream<Chunk> chunks(Path path, int averageSize) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (averageSize < 64 || Integer.bitCount(averageSize) != 1 || averageSize > (1 << 27))
+            throw new IllegalArgumentException("averageSize must be a power of two from 64 to 2^27: " + averageSize);
+
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new ChunkIterator(path, size, averageSize), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+
+    private static long mask(int bits) {
+        return bits <= 0 ? 0 : -1L << (64 - bits);
+    }
+
+    /**
+     * A chunk of a file: its offset and length in bytes.
+     */
+    public static class Chunk {
+
+        private final long offset;
+        private final int length;
+
+        private Chunk(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @return The byte offset of this chunk in the file.
+         */
+        public long offset() {
+            return offset;
+        }
+
+        /**
+         * @return The length of this chunk in bytes.
+         */
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Chunk chunk = (Chunk) o;
+            return offset == chunk.offset && length == chunk.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(offset) * 31 + length;
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + offset + " : " + length + " ]";
+        }
+    }
+
+    private static class ChunkIterator implements Iterator<Chunk> {
+
+        private final Path path;
+        private final long size;
+        private final int minSize;
+        private final int averageSize;
+        private final int maxSize;
+        private final long strictMask;
+        private final long looseMask;
+        private ByteBuffer region = ByteBuffer.allocate(0);
+        private long regionStart;
+        private long offset;
+
+        private ChunkIterator(Path path, long size, int averageSize) {
+            this.path = path;
+            this.size = size;
+            this.minSize = averageSize / 4;
+            this.averageSize = averageSize;
+            this.maxSize = averageSize * 8;
+            int bits = Integer.numberOfTrailingZeros(averageSize);
+            this.strictMask = mask(bits + 2);
+            this.looseMask = mask(bits - 2);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return offset < size;
+        }
+
+        @Override
+        public Chunk next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int length = (int) Math.min(maxSize, size - offset);
+            if (length > minSize) {
+                ByteBuffer buffer = region(offset, length);
+                int base = (int) (offset - regionStart);
+                length = cut(buffer, base, length);
+            }
+            Chunk chunk = new Chunk(offset, length);
+            offset += length;
+            return chunk;
+        }
+
+        private int cut(ByteBuffer buffer, int base, int length) {
+            long hash = 0;
+            int normal = Math.min(averageSize, length);
+            int i = minSize;
+            for (; i < normal; i++) {
+                hash = (hash << 1) + GEAR[buffer.get(base + i) & 0xFF];
+                if ((hash & strictMask) == 0)
+                    return i + 1;
+            }
+            for (; i < length; i++) {
+                hash = (hash << 1) + GEAR[buffer.get(base + i) & 0xFF];
+                if ((hash & looseMask) == 0)
+                    return i + 1;
+            }
+            return length;
+        }
+
+        private ByteBuffer region(long pos, int length) {
+            if (pos >= regionStart && pos + length <= regionStart + region.limit())
+                return region;
+            regionStart = pos;
+            region = FileIOUtils.map(path, pos, Math.min(size - pos, Math.max(REGION_SIZE, length)));
+            return region;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class contains static methods for computing the size of a directory tree. The tree is walked
+ * by a {@link ForkJoinPool}: every directory is a task that lists its entries, reads the
+ * {@link BasicFileAttributes} of every entry once, sums the sizes of files and forks a subtask
+ * for every subdirectory, so large trees are walked by all cores with one attribute read per entry.<br><br>
+ * <p>
+ * Entries that disappear during the walk are skipped. Symbolic links are handled according
+ * to a {@link SymlinkPolicy}.
+ */
+public class DirectorySizer {
+
+    /**
+     * The {@code SymlinkPolicy} describes how symbolic links are handled during the walk.
+     * <ul>
+     *   <li>{@link SymlinkPolicy#FOLLOW} : links are followed, so the size of their targets is counted.
+     *   Every directory is visited once, so cycles and directories reachable by several links are
+     *   counted once. Broken links are skipped.</li>
+     *   <li>{@link SymlinkPolicy#COUNT_LINK} : the size of a link itself is counted.</li>
+     *   <li>{@link SymlinkPolicy#SKIP} : links are skipped.</li>
+     * </ul>
+     */
+    public enum SymlinkPolicy {
+        FOLLOW, COUNT_LINK, SKIP,
+    }
+
+    /**
+     * The method returns the size of all files of the directory tree (in bytes). Symbolic links are followed,
+     * the parallelism level equals to the number of available processors.
+     *
+     * @param dir The path of the directory.
+     * @return The size of the directory tree.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during walking.
+     * @see DirectorySizer#size(Path, int, SymlinkPolicy)
+     */
+    public static long size(Path dir) {
+        return size(dir, Runtime.getRuntime().availableProcessors(), SymlinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The method returns the size of all files of the directory tree (in bytes).
+     *
+     * @param dir         The path of the directory.
+     * @param parallelism The number of threads walking the tree.
+     * @param policy      The policy of handling symbolic links.
+     * @return The size of the directory tree.
+     * @throws NullPointerException     if {@code dir} or {@code policy} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during walking.
+     * @see DirectorySizer#size(Path, int, SymlinkPolicy, OperationProgress)
+     */
+    public static long size(Path dir, int parallelism, SymlinkPolicy policy) {
+        return size(dir, parallelism, policy, new OperationProgress());
+    }
+
+    /**
+     * The method returns the size of all files of the directory tree (in bytes). The walked files
+     * and directories are counted in the gotten progress (in the phase "size"), the cancellation of which
+     * is checked before every entry.
+     *
+     * @param dir         The path of the directory.
+     * @param parallelism The number of threads walking the tree.
+     * @param policy      The policy of handling symbolic links.
+     * @param progress    The progress of walking.
+     * @return The size of the directory tree.
+     * @throws NullPointerException     if {@code dir}, {@code policy} or {@code progress} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during walking.
+     * @throws CancellationException    if the progress is cancelled.
+     */
+    public static long size(Path dir, int parallelism, SymlinkPolicy policy, OperationProgress progress) {
+        if (dir == null) throw new NullPointerException("dir is null");
+        if (policy == null) throw new NullPointerException("policy is null");
+        if (progress == null) throw new NullPointerException("progress is null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        Set<Object> visited = policy == SymlinkPolicy.FOLLOW ? ConcurrentHashMap.newKeySet() : null;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+            if (!attrs.isDirectory())
+                return attrs.size();
+            if (visited != null && attrs.fileKey() != null)
+                visited.add(attrs.fileKey());
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        progress.phase("size");
+        try {
+            return pool.invoke(new SizeTask(dir, policy, visited, progress, true));
+        } finally {
+            pool.shutdown();
+            progress.endPhase();
+        }
+    }
+
+
+    private static class SizeTask extends RecursiveTask<Long> {
+
+        private final Path dir;
+        private final SymlinkPolicy policy;
+        private final Set<Object> visited;
+        private final OperationProgress progress;
+        private final boolean root;
+
+        private SizeTask(Path dir, SymlinkPolicy policy, Set<Object> visited, OperationProgress progress, boolean root) {
+            this.dir = dir;
+            this.policy = policy;
+            this.visited = visited;
+            this.progress = progress;
+            this.root = root;
+        }
+
+        @Override
+        protected Long compute() {
+            long size = 0;
+            List<SizeTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    progress.checkCancelled();
+                    BasicFileAttributes attrs = attributes(child);
+                    if (attrs == null)
+                        continue;
+                    if (attrs.isDirectory()) {
+                        if (visited == null || attrs.fileKey() == null || visited.add(attrs.fileKey())) {
+                            SizeTask subtask = new SizeTask(child, policy, visited, progress, false);
+                            subtask.fork();
+                            subtasks.add(subtask);
+                            progress.directoryProcessed();
+                        }
+                    } else {
+                        size += attrs.size();
+                        progress.fileProcessed(attrs.size());
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                if (root)
+                    throw new RuntimeIOException(e);
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+            for (int i = subtasks.size() - 1; i >= 0; i--) {
+                size += subtasks.get(i).join();
+            }
+            return size;
+        }
+
+        private BasicFileAttributes attributes(Path path) throws IOException {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (!attrs.isSymbolicLink())
+                    return attrs;
+                return switch (policy) {
+                    case FOLLOW -> Files.readAttributes(path, BasicFileAttributes.class);
+                    case COUNT_LINK -> attrs;
+                    case SKIP -> null;
+                };
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code DirectorySnapshot} is an ordered index of the entries of a directory: the list of entries
+ * gives the entry at a position and the map of entries to positions gives the position of an entry,
+ * both in constant time. Snapshots are shared by all callers through a bounded cache with LRU eviction
+ * ({@link DirectorySnapshot#CACHE_CAPACITY} snapshots).<br><br>
+ * <p>
+ * A cached snapshot is revalidated by one read of the last modified time of the directory, which changes
+ * when entries are created, deleted or renamed. A snapshot taken less than {@link DirectorySnapshot#RACY_INTERVAL}
+ * after the last modification of the directory isn't trusted (a later change may keep the same time
+ * because of the file system time resolution), so it's taken again on the next request. Changes of the
+ * contents of entries don't change the time of the directory, so snapshots ordered by modified time or
+ * size don't follow them until the directory itself changes.
+ */
+public class DirectorySnapshot {
+
+    /**
+     * The maximum number of snapshots kept in the cache.
+     */
+    public static final int CACHE_CAPACITY = 64;
+
+    /**
+     * The time after the last modification of a directory during which its snapshot isn't trusted.
+     */
+    public static final Duration RACY_INTERVAL = Duration.ofSeconds(2);
+
+    private static final Map<List<Object>, DirectorySnapshot> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, DirectorySnapshot> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    /**
+     * The {@code Order} describes the order of entries of a snapshot. Entries with equal keys are
+     * ordered by name, so the order is stable.
+     * <ul>
+     *   <li>{@link Order#NONE} : the order of the directory listing.</li>
+     *   <li>{@link Order#NAME} : by file name.</li>
+     *   <li>{@link Order#MODIFIED_TIME} : by last modified time, the oldest first.</li>
+     *   <li>{@link Order#SIZE} : by size, the smallest first.</li>
+     * </ul>
+     */
+    public enum Order {
+        NONE, NAME, MODIFIED_TIME, SIZE,
+    }
+
+    private final Path dir;
+    private final Order order;
+    private final FileTime modifiedTime;
+    private final boolean racy;
+    private final List<Path> children;
+    private final Map<Path, Integer> positions;
+
+    private DirectorySnapshot(Path dir, Order order, FileTime modifiedTime, boolean racy, List<Path> children) {
+        this.dir = dir;
+        this.order = order;
+        this.modifiedTime = modifiedTime;
+        this.racy = racy;
+        this.children = Collections.unmodifiableList(children);
+        this.positions = new HashMap<>(children.size() * 4 / 3 + 1);
+        for (int i = 0; i < children.size(); i++) {
+            positions.put(children.get(i), i);
+        }
+    }
+
+    /**
+     * The method returns the actual snapshot of the directory in the order of the directory listing.
+     *
+     * @param dir the path of the directory.
+     * @return the actual snapshot of the directory.
+     * @see DirectorySnapshot#of(Path, Order)
+     */
+    public static DirectorySnapshot of(Path dir) {
+        return of(dir, Order.NONE);
+    }
+
+    /**
+     * The method returns the actual snapshot of the directory. The cached snapshot is returned if
+     * the directory hasn't been modified since it was taken, otherwise a new snapshot is taken and cached.
+     *
+     * @param dir   the path of the directory.
+     * @param order the order of entries.
+     * @return the actual snapshot of the directory.
+     * @throws NullPointerException     if {@code dir} or {@code order} is null.
+     * @throws IllegalArgumentException if {@code dir} isn't a directory.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during reading the directory.
+     */
+    public static DirectorySnapshot of(Path dir, Order order) {
+        if (dir == null) throw new NullPointerException("dir is null");
+        if (order == null) throw new NullPointerException("order is null");
+
+        List<Object> key = List.of(dir, order);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+            if (!attrs.isDirectory())
+                throw new IllegalArgumentException("dir is not a directory: " + dir);
+            DirectorySnapshot snapshot;
+            synchronized (cache) {
+                snapshot = cache.get(key);
+            }
+            if (snapshot != null && !snapshot.racy && snapshot.modifiedTime.equals(attrs.lastModifiedTime()))
+                return snapshot;
+
+            snapshot = take(dir, order, attrs.lastModifiedTime());
+            synchronized (cache) {
+                cache.put(key, snapshot);
+            }
+            return snapshot;
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("dir doesn't exist: " + dir, e);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method removes all snapshots from the cache.
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @param position the position of the entry, from zero.
+     * @return the entry at the position.
+     * @throws IndexOutOfBoundsException if the position is out of range.
+     */
+    public Path childAt(int position) {
+        return children.get(position);
+    }
+
+    /**
+     * @param child the path of the entry.
+     * @return the position of the entry, or {@code -1} if the snapshot doesn't contain it.
+     */
+    public int indexOf(Path child) {
+        Integer position = positions.get(child);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * @return the unmodifiable list of entries in the order of this snapshot.
+     */
+    public List<Path> children() {
+        return children;
+    }
+
+    /**
+     * @return the number of entries.
+     */
+    public int size() {
+        return children.size();
+    }
+
+    /**
+     * @return the directory of this snapshot.
+     */
+    public Path dir() {
+        return dir;
+    }
+
+    /**
+     * @return the order of entries.
+     */
+    public Order order() {
+        return order;
+    }
+
+    /**
+     * @return the last modified time of the directory when this snapshot was taken.
+     */
+    public FileTime modifiedTime() {
+        return modifiedTime;
+    }
+
+
+    private static DirectorySnapshot take(Path dir, Order order, FileTime modifiedTime) throws IOException {
+        Instant now = Instant.now();
+        List<Path> children = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                if (order == Order.MODIFIED_TIME || order == Order.SIZE) {
+                    try {
+                        attributes.put(child, Files.readAttributes(child, BasicFileAttributes.class));
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                }
+                children.add(child);
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+
+        Comparator<Path> byName = Comparator.comparing(e -> e.getFileName().toString());
+        switch (order) {
+            case NAME -> children.sort(byName);
+            case MODIFIED_TIME -> children.sort(Comparator.<Path, FileTime>comparing(
+                    e -> attributes.get(e).lastModifiedTime()).thenComparing(byName));
+            case SIZE -> children.sort(Comparator.<Path>comparingLong(
+                    e -> attributes.get(e).size()).thenComparing(byName));
+            case NONE -> {
+            }
+        }
+        boolean racy = now.isBefore(modifiedTime.toInstant().plus(RACY_INTERVAL));
+        return new DirectorySnapshot(dir, order, modifiedTime, racy, children);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + dir + " : " + order + " : " + children.size() + " ]";
+    }
+}
@@ -0,0 +1,315 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code FileCopier} is a class that lets copy a file or a directory tree according to gotten copying
+ * options. The tree is walked on the calling thread, which creates every directory before the files of it,
+ * while the files are copied concurrently by a bounded pool of workers. Regular files not smaller than
+ * {@link FileCopier#TRANSFER_THRESHOLD} are copied by {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, which lets the operating system copy bytes without passing them
+ * through the heap; smaller files are copied by {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}.<br><br>
+ * <p>
+ * The number of files copied concurrently from or to one device (file store) is limited separately
+ * from the number of workers, so copying between a fast and a slow disk doesn't overload the slow one.
+ * The limit is shared by all copies made by one copier; the devices are those of the copied file and
+ * of the parent directory of the target.<br>
+ * CopyOption: {@link FileCopier.CopyOption#COPY_ATTRIBUTES}, {@link FileCopier.CopyOption#NOFOLLOW_LINKS}.
+ */
+public class FileCopier {
+
+    /**
+     * The size of a file in bytes from which the file is copied by {@link FileChannel#transferTo}.
+     */
+    public static final long TRANSFER_THRESHOLD = 1 << 20;
+
+    private static final int QUEUED_PER_WORKER = 4;
+
+    /**
+     * The {@code CopyOption} describes possible file copying options.
+     * <ul>
+     *   <li>{@link FileCopier.CopyOption#COPY_ATTRIBUTES} : the times (and POSIX permissions if they are
+     *   supported) of files and directories are copied.</li>
+     *   <li>{@link FileCopier.CopyOption#NOFOLLOW_LINKS} : symbolic links are copied as links. Without this
+     *   option links are followed and their targets are copied.</li>
+     * </ul>
+     */
+    public enum CopyOption {
+        COPY_ATTRIBUTES, NOFOLLOW_LINKS,
+    }
+
+    /**
+     * The method returns the copier with the number of workers and the number of concurrent
+     * copies per device equal to the number of available processors.
+     *
+     * @param options the copying options.
+     * @return the copier.
+     * @see FileCopier#of(int, int, CopyOption...)
+     */
+    public static FileCopier of(CopyOption... options) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return of(processors, processors, options);
+    }
+
+    /**
+     * The method returns the copier with the gotten concurrency.
+     *
+     * @param parallelism       the number of workers copying files.
+     * @param deviceParallelism the maximum number of files copied concurrently from or to one device.
+     * @param options           the copying options.
+     * @return the copier.
+     * @throws IllegalArgumentException if {@code parallelism} or {@code deviceParallelism} is less than one.
+     */
+    public static FileCopier of(int parallelism, int deviceParallelism, CopyOption... options) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        if (deviceParallelism < 1)
+            throw new IllegalArgumentException("deviceParallelism must be positive: " + deviceParallelism);
+
+        boolean copyAttributes = false, noFollowLinks = false;
+        for (CopyOption option : options) {
+            switch (option) {
+                case COPY_ATTRIBUTES -> copyAttributes = true;
+                case NOFOLLOW_LINKS -> noFollowLinks = true;
+            }
+        }
+        return new FileCopier(parallelism, deviceParallelism, copyAttributes, noFollowLinks);
+    }
+
+    private final int parallelism;
+    private final int deviceParallelism;
+    private final boolean copyAttributes;
+    private final boolean noFollowLinks;
+    private final Map<FileStore, Device> devices = new HashMap<>();
+
+    private FileCopier(int parallelism, int deviceParallelism, boolean copyAttributes, boolean noFollowLinks) {
+        this.parallelism = parallelism;
+        this.deviceParallelism = deviceParallelism;
+        this.copyAttributes = copyAttributes;
+        this.noFollowLinks = noFollowLinks;
+    }
+
+    /**
+     * The method copies the file or the directory tree to the target path. The target mustn't exist.
+     * If copying of any file fails, the other copies are completed or skipped and the first failure
+     * is thrown; the partially copied tree isn't deleted.
+     *
+     * @param src    the path of the file or directory that is copied.
+     * @param target the path of the copy.
+     * @throws NullPointerException if {@code src} or {@code target} is null.
+     * @throws RuntimeIOException   if there is thrown {@link IOException} during copying.
+     * @see FileCopier#copy(Path, Path, OperationProgress)
+     */
+    public void copy(Path src, Path target) {
+        copy(src, target, new OperationProgress());
+    }
+
+    /**
+     * The method copies the file or the directory tree to the target path. The target mustn't exist.
+     * If copying of any file fails, the other copies are completed or skipped and the first failure
+     * is thrown; the partially copied tree isn't deleted. The walked and copied files are counted in
+     * the gotten progress (in the phase "copy"), the cancellation of which is checked before every entry.
+     *
+     * @param src      the path of the file or directory that is copied.
+     * @param target   the path of the copy.
+     * @param progress the progress of copying.
+     * @throws NullPointerException  if {@code src}, {@code target} or {@code progress} is null.
+     * @throws RuntimeIOException    if there is thrown {@link IOException} during copying.
+     * @throws CancellationException if the progress is cancelled.
+     */
+    public void copy(Path src, Path target, OperationProgress progress) {
+        if (src == null) throw new NullPointerException("src is null");
+        if (target == null) throw new NullPointerException("target is null");
+        if (progress == null) throw new NullPointerException("progress is null");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore queue = new Semaphore(parallelism * QUEUED_PER_WORKER);
+        Phaser running = new Phaser(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Path[]> directories = new ArrayList<>();
+        progress.phase("copy");
+        try {
+            Device srcDevice = device(src);
+            Device targetDevice = device(target.toAbsolutePath().getParent());
+            EnumSet<FileVisitOption> visitOptions = noFollowLinks
+                    ? EnumSet.noneOf(FileVisitOption.class) : EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+
+            Files.walkFileTree(src, visitOptions, Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (failure.get() != null)
+                        return FileVisitResult.TERMINATE;
+                    progress.checkCancelled();
+                    Path to = resolve(src, target, dir);
+                    Files.createDirectory(to);
+                    progress.directoryProcessed();
+                    if (copyAttributes)
+                        directories.add(new Path[]{dir, to});
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (failure.get() != null)
+                        return FileVisitResult.TERMINATE;
+                    progress.checkCancelled();
+                    progress.fileDiscovered(attrs.isRegularFile() ? attrs.size() : 0);
+                    Path to = resolve(src, target, file);
+                    try {
+                        queue.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("The copying is interrupted: " + src);
+                    }
+                    running.register();
+                    executor.execute(() -> {
+                        try {
+                            if (failure.get() == null) {
+                                progress.checkCancelled();
+                                copyFile(file, to, attrs, srcDevice, targetDevice);
+                                progress.fileProcessed(attrs.isRegularFile() ? attrs.size() : 0);
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            queue.release();
+                            running.arriveAndDeregister();
+                        }
+                    });
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            progress.discoveryCompleted();
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            running.arriveAndAwaitAdvance();
+            executor.shutdown();
+            progress.endPhase();
+        }
+
+        try {
+            if (failure.get() == null) {
+                for (int i = directories.size() - 1; i >= 0; i--) {
+                    Path[] dir = directories.get(i);
+                    copyAttributes(dir[0], dir[1], Files.readAttributes(dir[0], BasicFileAttributes.class));
+                }
+            }
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof IOException io)
+            throw new RuntimeIOException(io);
+        if (e instanceof RuntimeException runtime)
+            throw runtime;
+        if (e instanceof Error error)
+            throw error;
+    }
+
+
+    private void copyFile(Path file, Path to, BasicFileAttributes attrs,
+                          Device srcDevice, Device targetDevice) throws IOException {
+        // the devices are acquired in the order of their creation, so two copies between
+        // the same devices in opposite directions can't wait for each other
+        Device first = srcDevice.order <= targetDevice.order ? srcDevice : targetDevice;
+        Device second = first == srcDevice ? targetDevice : srcDevice;
+        first.permits.acquireUninterruptibly();
+        if (second != first)
+            second.permits.acquireUninterruptibly();
+        try {
+            if (attrs.isRegularFile() && attrs.size() >= TRANSFER_THRESHOLD) {
+                transfer(file, to);
+                if (copyAttributes)
+                    copyAttributes(file, to, attrs);
+            } else {
+                List<java.nio.file.CopyOption> options = new ArrayList<>();
+                if (copyAttributes)
+                    options.add(StandardCopyOption.COPY_ATTRIBUTES);
+                if (noFollowLinks)
+                    options.add(LinkOption.NOFOLLOW_LINKS);
+                Files.copy(file, to, options.toArray(java.nio.file.CopyOption[]::new));
+            }
+        } finally {
+            if (second != first)
+                second.permits.release();
+            first.permits.release();
+        }
+    }
+
+    private static void transfer(Path file, Path to) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(to, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            long size = in.size();
+            for (long done = 0; done < size; ) {
+                long n = in.transferTo(done, size - done, out);
+                if (n <= 0)
+                    throw new IOException("The file ends unexpectedly: " + file);
+                done += n;
+            }
+        }
+    }
+
+    private static void copyAttributes(Path from, Path to, BasicFileAttributes attrs) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (posix != null) {
+            PosixFileAttributes permissions = Files.readAttributes(from, PosixFileAttributes.class);
+            posix.setPermissions(permissions.permissions());
+        }
+        Files.getFileAttributeView(to, BasicFileAttributeView.class)
+                .setTimes(attrs.lastModifiedTime(), attrs.lastAccessTime(), attrs.creationTime());
+    }
+
+    private synchronized Device device(Path path) throws IOException {
+        FileStore store = Files.getFileStore(path);
+        return devices.computeIfAbsent(store, e -> new Device(devices.size(), new Semaphore(deviceParallelism)));
+    }
+
+    private static Path resolve(Path src, Path target, Path path) {
+        return path.equals(src) ? target : target.resolve(src.relativize(path).toString());
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + parallelism + " : " + deviceParallelism + " ]";
+    }
+
+    private static class Device {
+
+        private final int order;
+        private final Semaphore permits;
+
+        private Device(int order, Semaphore permits) {
+            this.order = order;
+            this.permits = permits;
+        }
+    }
+}
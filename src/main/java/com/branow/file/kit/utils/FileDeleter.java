@@ -3,15 +3,26 @@ package com.branow.file.kit.utils;
 import com.branow.file.kit.io.RuntimeIOException;
 
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Stream;
 
 /**
  * The {@code FileCreator} is a class that lets delete a file according to gotten deleting options.<br>
- * DeleteOption: {@link FileDeleter.DeleteOption#WITH_CONTENT}, {@link FileDeleter.DeleteOption#MAY_NOT_EXIST}.
+ * DeleteOption: {@link FileDeleter.DeleteOption#WITH_CONTENT}, {@link FileDeleter.DeleteOption#MAY_NOT_EXIST},
+ * {@link FileDeleter.DeleteOption#PARALLEL}.
  * */
 public class FileDeleter {
 
@@ -22,29 +33,57 @@ public class FileDeleter {
      *   all child files is deleted. In such case but without this option the exception is thrown.</li>
      *   <li>{@link FileDeleter.DeleteOption#MAY_NOT_EXIST} : if the file doesn't exist, it doesn't
      *   try to delete it. In such case but without this option the exception is thrown.</li>
+     *   <li>{@link FileDeleter.DeleteOption#PARALLEL} : the content of a directory is deleted concurrently
+     *   by a {@link ForkJoinPool}: files are deleted by batches in parallel, every directory is deleted
+     *   after all its entries. Symbolic links are deleted as files, their targets aren't touched.</li>
      * </ul>
      * */
     public enum DeleteOption {
-        WITH_CONTENT, MAY_NOT_EXIST,
+        WITH_CONTENT, MAY_NOT_EXIST, PARALLEL,
     }
 
+    private static final int FILES_PER_TASK = 256;
+
+    /**
+     * The method returns the deleter with gotten options. The parallelism of the
+     * {@link FileDeleter.DeleteOption#PARALLEL} option equals to the number of available processors.
+     * @param options the deleting options
+     * @return the deleter
+     * */
     public static FileDeleter of(DeleteOption... options) {
-        boolean withContent = false, mayNotExist = false;
+        return of(Runtime.getRuntime().availableProcessors(), options);
+    }
+
+    /**
+     * The method returns the deleter with gotten options.
+     * @param parallelism the number of threads deleting files if the {@link FileDeleter.DeleteOption#PARALLEL}
+     *                    option is gotten
+     * @param options the deleting options
+     * @return the deleter
+     * @throws IllegalArgumentException if {@code parallelism} is less than one
+     * */
+    public static FileDeleter of(int parallelism, DeleteOption... options) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        boolean withContent = false, mayNotExist = false, parallel = false;
         for (DeleteOption option: options) {
             switch (option) {
                 case WITH_CONTENT -> withContent = true;
                 case MAY_NOT_EXIST -> mayNotExist = true;
+                case PARALLEL -> parallel = true;
             }
         }
-        return new FileDeleter(withContent, mayNotExist);
+        return new FileDeleter(withContent, mayNotExist, parallel ? parallelism : 1);
     }
 
     private final boolean withContent;
     private final boolean mayNotExist;
+    private final int parallelism;
 
-    private FileDeleter(boolean withContent, boolean mayNotExist) {
+    private FileDeleter(boolean withContent, boolean mayNotExist, int parallelism) {
         this.withContent = withContent;
         this.mayNotExist = mayNotExist;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -55,6 +94,21 @@ public class FileDeleter {
      * @see Files#list(Path)
      * */
     public void delete(Path path) {
+        delete(path, new OperationProgress());
+    }
+
+    /**
+     * The method deletes a file by the gotten path according to gotten options throw the
+     * {@link FileCreator#of(FileCreator.CreateOption...)}. The deleted files and directories are counted
+     * in the gotten progress (in the phase "delete"), the cancellation of which is checked before every entry.
+     * @param path the path to the file to delete
+     * @param progress the progress of deleting
+     * @throws CancellationException if the progress is cancelled; the entries deleted before remain deleted
+     * @see Files#delete(Path)
+     * @see OperationProgress
+     * */
+    public void delete(Path path, OperationProgress progress) {
+        if (progress == null) throw new NullPointerException("progress is null");
         if (Files.notExists(path)) {
             if (mayNotExist)
                 return;
@@ -62,34 +116,62 @@ public class FileDeleter {
                 throw new IllegalArgumentException("Such file doesn't exist: " + path);
         }
 
+        progress.phase("delete");
         try {
             if (Files.isDirectory(path)) {
                 if (isEmpty(path)) {
+                    progress.checkCancelled();
                     Files.delete(path);
+                    progress.directoryProcessed();
                 } else {
-                    if (withContent)
-                        deleteCompletely(path);
-                    else
+                    if (!withContent)
                         throw new IllegalArgumentException("Directory is not empty: " + path);
+                    if (parallelism > 1)
+                        deleteConcurrently(path, progress);
+                    else
+                        deleteCompletely(path, progress);
                 }
             } else {
+                progress.checkCancelled();
                 Files.delete(path);
+                progress.fileProcessed(0);
             }
         } catch (IOException e) {
             throw new RuntimeIOException(e);
+        } finally {
+            progress.endPhase();
         }
     }
 
-    private void deleteCompletely(Path path) throws IOException {
-        if (Files.isDirectory(path)) {
+    private void deleteCompletely(Path path, OperationProgress progress) throws IOException {
+        boolean directory = Files.isDirectory(path);
+        if (directory) {
             try (Stream<Path> stream = Files.list(path)) {
                 List<Path> children = stream.toList();
                 for (Path child: children) {
-                    deleteCompletely(child);
+                    deleteCompletely(child, progress);
                 }
             }
         }
+        progress.checkCancelled();
         Files.delete(path);
+        if (directory)
+            progress.directoryProcessed();
+        else
+            progress.fileProcessed(0);
+    }
+
+    private void deleteConcurrently(Path path, OperationProgress progress) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(path, progress));
+        } catch (RuntimeIOException e) {
+            if (e.getCause() instanceof IOException cause)
+                throw cause;
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
     }
 
     private boolean isEmpty(Path path) {
@@ -99,4 +181,78 @@ public class FileDeleter {
             throw new RuntimeException(e);
         }
     }
+
+    private static class DirectoryTask extends RecursiveAction {
+
+        private final Path dir;
+        private final OperationProgress progress;
+
+        private DirectoryTask(Path dir, OperationProgress progress) {
+            this.dir = dir;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            List<ForkJoinTask<?>> subtasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path child : stream) {
+                        progress.checkCancelled();
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (NoSuchFileException e) {
+                            continue;
+                        }
+                        if (attrs.isDirectory()) {
+                            subtasks.add(new DirectoryTask(child, progress).fork());
+                        } else {
+                            files.add(child);
+                            if (files.size() == FILES_PER_TASK) {
+                                subtasks.add(new FilesTask(files, progress).fork());
+                                files = new ArrayList<>();
+                            }
+                        }
+                    }
+                } catch (DirectoryIteratorException e) {
+                    throw e.getCause();
+                }
+                new FilesTask(files, progress).compute();
+                for (int i = subtasks.size() - 1; i >= 0; i--) {
+                    subtasks.get(i).join();
+                }
+                progress.checkCancelled();
+                Files.delete(dir);
+                progress.directoryProcessed();
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+        }
+    }
+
+    private static class FilesTask extends RecursiveAction {
+
+        private final List<Path> files;
+        private final OperationProgress progress;
+
+        private FilesTask(List<Path> files, OperationProgress progress) {
+            this.files = files;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                progress.checkCancelled();
+                try {
+                    if (Files.deleteIfExists(file))
+                        progress.fileProcessed(0);
+                } catch (IOException e) {
+                    throw new RuntimeIOException(e);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,581 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains static methods for rsync-style synchronization of a file with its new version.
+ * The old version (the basis) is described by a {@link Signature}: a weak rolling checksum and a strong
+ * SHA-256 digest of every block. The new version is scanned with the rolling checksum to find the blocks
+ * of the basis, and the result is a {@link Delta}: a sequence of copied blocks and literal bytes.
+ * Only the literal bytes have to be transferred and written.<br><br>
+ * <p>
+ * The weak checksum is the checksum of rsync: {@code a = sum(x[i])}, {@code b = sum((n - i) * x[i])},
+ * both modulo 2<sup>16</sup>, combined as {@code a | b << 16}. It is rolled by one byte in constant time,
+ * so every offset of the new version is checked against the blocks of the basis. Files are read by mapped
+ * chunks and never held in the heap as a whole, other channels (for example, of uncompressed data) are read
+ * by heap chunks.
+ */
+public class FileDelta {
+
+    private static final int CHUNK_SIZE = 8 << 20;
+    private static final int MAX_LITERAL = 1 << 20;
+
+    /**
+     * The method computes the signature of the file.
+     *
+     * @param path      The path of the file.
+     * @param blockSize The size of a block in bytes.
+     * @return The signature of the file.
+     * @throws NullPointerException     if {@code path} is null.
+     * @throws IllegalArgumentException if {@code blockSize} isn't positive.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during reading.
+     */
+    public static Signature signature(Path path, int blockSize) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (blockSize < 1) throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return signature(fc, blockSize);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method computes the signature of the data read from the channel. A {@link FileChannel} is read
+     * by mapped chunks, another channel is read into heap buffers of the chunk size. The channel isn't closed.
+     *
+     * @param channel   The channel of the data.
+     * @param blockSize The size of a block in bytes.
+     * @return The signature of the data.
+     * @throws NullPointerException     if {@code channel} is null.
+     * @throws IllegalArgumentException if {@code blockSize} isn't positive.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during reading.
+     */
+    public static Signature signature(SeekableByteChannel channel, int blockSize) {
+        if (channel == null) throw new NullPointerException("channel is null");
+        if (blockSize < 1) throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+
+        try {
+            long size = channel.size();
+            int blocks = (int) ((size + blockSize - 1) / blockSize);
+            int[] weak = new int[blocks];
+            byte[][] strong = new byte[blocks][];
+            MessageDigest digest = sha256();
+            Window window = new Window(channel, size, blockSize);
+            for (int i = 0; i < blocks; i++) {
+                long pos = (long) i * blockSize;
+                ByteBuffer block = window.slice(pos, (int) Math.min(blockSize, size - pos));
+                weak[i] = weak(block.duplicate());
+                digest.update(block);
+                strong[i] = digest.digest();
+            }
+            return new Signature(blockSize, size, weak, strong);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method computes the delta that turns the basis described by the signature into the given file.
+     *
+     * @param path      The path of the new version of the file.
+     * @param signature The signature of the basis.
+     * @return The delta from the basis to the file.
+     * @throws NullPointerException if {@code path} or {@code signature} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading.
+     */
+    public static Delta delta(Path path, Signature signature) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (signature == null) throw new NullPointerException("signature is null");
+
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return delta(fc, signature);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method computes the delta that turns the basis described by the signature into the data read
+     * from the channel. A {@link FileChannel} is read by mapped chunks, another channel is read into heap
+     * buffers of the chunk size. The channel isn't closed.
+     *
+     * @param channel   The channel of the new version of the data.
+     * @param signature The signature of the basis.
+     * @return The delta from the basis to the data.
+     * @throws NullPointerException if {@code channel} or {@code signature} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading.
+     */
+    public static Delta delta(SeekableByteChannel channel, Signature signature) {
+        if (channel == null) throw new NullPointerException("channel is null");
+        if (signature == null) throw new NullPointerException("signature is null");
+
+        try {
+            return new DeltaBuilder(channel, channel.size(), signature).build();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method applies the delta to the basis, so the basis becomes equal to the new version of the file.
+     * If every copied block stays at its position, the basis is patched in place: only literal bytes are
+     * written by positional writes through one channel, and the file is truncated if it shrinks. Otherwise,
+     * the new version is assembled in a temporary file (copied blocks are transferred from the basis without
+     * copying them into the heap), which gets the permissions and the owner of the basis and replaces it
+     * (atomically if the file system supports it).
+     *
+     * @param basis The path of the basis.
+     * @param delta The delta from the basis to the new version.
+     * @return The number of written bytes.
+     * @throws NullPointerException     if {@code basis} or {@code delta} is null.
+     * @throws IllegalArgumentException if the size of the basis doesn't equal to the size the delta is computed for.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during reading or writing.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    public static long applyDelta(Path basis, Delta delta) {
+        if (basis == null) throw new NullPointerException("basis is null");
+        if (delta == null) throw new NullPointerException("delta is null");
+
+        try {
+            long basisSize = Files.size(basis);
+            if (basisSize != delta.basisSize())
+                throw new IllegalArgumentException("The delta is computed for another basis: expected size - "
+                        + delta.basisSize() + ", actual size - " + basisSize);
+            return delta.isInPlace() ? patch(basis, delta) : rebuild(basis, delta);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+
+    private static long patch(Path basis, Delta delta) throws IOException {
+        long written = 0;
+        try (FileChannel fc = FileChannel.open(basis, StandardOpenOption.WRITE)) {
+            for (Instruction instruction : delta.instructions()) {
+                if (instruction.isCopy())
+                    continue;
+                ByteBuffer data = ByteBuffer.wrap(instruction.data);
+                while (data.hasRemaining()) {
+                    written += fc.write(data, instruction.position() + data.position());
+                }
+            }
+            if (fc.size() > delta.size())
+                fc.truncate(delta.size());
+        }
+        return written;
+    }
+
+    private static long rebuild(Path basis, Delta delta) throws IOException {
+        Path parent = basis.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, basis.getFileName().toString(), ".tmp");
+        long written = 0;
+        try {
+            try (FileChannel source = FileChannel.open(basis, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (Instruction instruction : delta.instructions()) {
+                    if (instruction.isCopy()) {
+                        long from = (long) instruction.block() * delta.blockSize();
+                        long length = instruction.length();
+                        for (long done = 0; done < length; ) {
+                            long n = source.transferTo(from + done, length - done, target);
+                            if (n <= 0)
+                                throw new IllegalStateException("The basis ends unexpectedly: " + basis);
+                            done += n;
+                        }
+                    } else {
+                        ByteBuffer data = ByteBuffer.wrap(instruction.data);
+                        while (data.hasRemaining()) {
+                            target.write(data);
+                        }
+                    }
+                    written += instruction.length();
+                }
+            }
+            FileIOUtils.replace(basis, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return written;
+    }
+
+    private static ByteBuffer map(SeekableByteChannel channel, long pos, int length) throws IOException {
+        if (channel instanceof FileChannel fc)
+            return fc.map(FileChannel.MapMode.READ_ONLY, pos, length);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        read(channel, buffer, pos);
+        return buffer.flip();
+    }
+
+    private static int read(SeekableByteChannel channel, ByteBuffer dst, long pos) throws IOException {
+        if (channel instanceof FileChannel fc) {
+            while (dst.hasRemaining() && fc.read(dst, pos + dst.position()) >= 0) ;
+        } else {
+            channel.position(pos);
+            while (dst.hasRemaining() && channel.read(dst) >= 0) ;
+        }
+        return dst.position();
+    }
+
+    private static int weak(ByteBuffer block) {
+        int n = block.remaining();
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < n; i++) {
+            int x = block.get() & 0xFF;
+            a += x;
+            b += (n - i) * x;
+        }
+        return (a & 0xFFFF) | (b << 16);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported", e);
+        }
+    }
+
+    /**
+     * The signature of a file: its size, block size, and the weak and strong checksums of its blocks.
+     * The last block can be shorter than the block size.
+     */
+    public static class Signature {
+
+        private final int blockSize;
+        private final long size;
+        private final int[] weak;
+        private final byte[][] strong;
+
+        private Signature(int blockSize, long size, int[] weak, byte[][] strong) {
+            this.blockSize = blockSize;
+            this.size = size;
+            this.weak = weak;
+            this.strong = strong;
+        }
+
+        /**
+         * @return The size of a block in bytes.
+         */
+        public int blockSize() {
+            return blockSize;
+        }
+
+        /**
+         * @return The size of the file in bytes.
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * @return The number of blocks.
+         */
+        public int blocks() {
+            return weak.length;
+        }
+
+        /**
+         * @param block The index of the block.
+         * @return The weak rolling checksum of the block.
+         */
+        public int weak(int block) {
+            return weak[block];
+        }
+
+        /**
+         * @param block The index of the block.
+         * @return The SHA-256 digest of the block.
+         */
+        public byte[] strong(int block) {
+            return strong[block].clone();
+        }
+
+        private int length(int block) {
+            return (int) Math.min(blockSize, size - (long) block * blockSize);
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + size + " : " + blockSize + " : " + blocks() + " ]";
+        }
+    }
+
+    /**
+     * The delta between two versions of a file: the sequence of instructions that build the new version
+     * from blocks of the basis and literal bytes.
+     */
+    public static class Delta {
+
+        private final int blockSize;
+        private final long basisSize;
+        private final long size;
+        private final List<Instruction> instructions;
+
+        private Delta(int blockSize, long basisSize, long size, List<Instruction> instructions) {
+            this.blockSize = blockSize;
+            this.basisSize = basisSize;
+            this.size = size;
+            this.instructions = Collections.unmodifiableList(instructions);
+        }
+
+        /**
+         * @return The size of a block of the basis in bytes.
+         */
+        public int blockSize() {
+            return blockSize;
+        }
+
+        /**
+         * @return The size of the basis in bytes.
+         */
+        public long basisSize() {
+            return basisSize;
+        }
+
+        /**
+         * @return The size of the new version in bytes.
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * @return The unmodifiable list of instructions in the order of the new version.
+         */
+        public List<Instruction> instructions() {
+            return instructions;
+        }
+
+        /**
+         * @return The number of literal bytes, which have to be written.
+         */
+        public long literalBytes() {
+            return instructions.stream().filter(e -> !e.isCopy()).mapToLong(Instruction::length).sum();
+        }
+
+        /**
+         * @return {@code True} if every copied block stays at its position, so the basis can be patched in place.
+         */
+        public boolean isInPlace() {
+            return instructions.stream()
+                    .filter(Instruction::isCopy)
+                    .allMatch(e -> e.position() == (long) e.block() * blockSize);
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + basisSize + " -> " + size + " : "
+                    + instructions.size() + " : " + literalBytes() + " ]";
+        }
+    }
+
+    /**
+     * An instruction of a delta: either a copy of a block of the basis or literal bytes, placed at
+     * the given position of the new version.
+     */
+    public static class Instruction {
+
+        private final long position;
+        private final int block;
+        private final int length;
+        private final byte[] data;
+
+        private Instruction(long position, int block, int length, byte[] data) {
+            this.position = position;
+            this.block = block;
+            this.length = length;
+            this.data = data;
+        }
+
+        /**
+         * @return {@code True} if this instruction copies a block of the basis, {@code false} if it contains literal bytes.
+         */
+        public boolean isCopy() {
+            return data == null;
+        }
+
+        /**
+         * @return The position of this instruction in the new version.
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * @return The index of the copied block, or {@code -1} for literal bytes.
+         */
+        public int block() {
+            return block;
+        }
+
+        /**
+         * @return The number of bytes produced by this instruction.
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * @return The literal bytes, or {@code null} for a copied block.
+         */
+        public byte[] data() {
+            return data == null ? null : data.clone();
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + position + " : "
+                    + (isCopy() ? "block " + block : "data") + " : " + length + " ]";
+        }
+    }
+
+    private static class DeltaBuilder {
+
+        private final SeekableByteChannel channel;
+        private final long size;
+        private final Signature signature;
+        private final Map<Integer, int[]> blocksByWeak = new HashMap<>();
+        private final Window window;
+        private final MessageDigest digest = sha256();
+        private final List<Instruction> instructions = new ArrayList<>();
+        private long literalStart;
+
+        private DeltaBuilder(SeekableByteChannel channel, long size, Signature signature) {
+            this.channel = channel;
+            this.size = size;
+            this.signature = signature;
+            this.window = new Window(channel, size, signature.blockSize());
+            for (int i = 0; i < signature.blocks(); i++) {
+                int[] blocks = blocksByWeak.get(signature.weak(i));
+                blocks = blocks == null ? new int[] {i} : append(blocks, i);
+                blocksByWeak.put(signature.weak(i), blocks);
+            }
+        }
+
+        private Delta build() throws IOException {
+            int blockSize = signature.blockSize();
+            long pos = 0;
+            int length = (int) Math.min(blockSize, size);
+            int a = 0;
+            int b = 0;
+            boolean rolled = false;
+            while (pos < size && !blocksByWeak.isEmpty()) {
+                if (!rolled) {
+                    int weak = weak(window.slice(pos, length));
+                    a = weak & 0xFFFF;
+                    b = weak >>> 16;
+                    rolled = true;
+                }
+                int block = match((a & 0xFFFF) | (b << 16), pos, length);
+                if (block >= 0) {
+                    flushLiteral(pos);
+                    instructions.add(new Instruction(pos, block, length, null));
+                    pos += length;
+                    literalStart = pos;
+                    length = (int) Math.min(blockSize, size - pos);
+                    rolled = false;
+                    continue;
+                }
+                if (pos - literalStart >= MAX_LITERAL)
+                    flushLiteral(pos);
+                int out = window.get(pos) & 0xFF;
+                if (pos + length < size) {
+                    int in = window.get(pos + length) & 0xFF;
+                    a = (a - out + in) & 0xFFFF;
+                    b = (b - length * out + a) & 0xFFFF;
+                } else {
+                    a = (a - out) & 0xFFFF;
+                    b = (b - length * out) & 0xFFFF;
+                    length--;
+                }
+                pos++;
+            }
+            flushLiteral(size);
+            return new Delta(blockSize, signature.size(), size, instructions);
+        }
+
+        private int match(int weak, long pos, int length) throws IOException {
+            int[] blocks = blocksByWeak.get(weak);
+            if (blocks == null || length == 0)
+                return -1;
+            byte[] strong = null;
+            for (int block : blocks) {
+                if (signature.length(block) != length)
+                    continue;
+                if (strong == null) {
+                    digest.update(window.slice(pos, length));
+                    strong = digest.digest();
+                }
+                if (Arrays.equals(strong, signature.strong[block]))
+                    return block;
+            }
+            return -1;
+        }
+
+        private void flushLiteral(long end) throws IOException {
+            while (literalStart < end) {
+                ByteBuffer data = ByteBuffer.allocate((int) Math.min(MAX_LITERAL, end - literalStart));
+                if (read(channel, data, literalStart) < data.capacity())
+                    throw new IllegalStateException("The file ends unexpectedly");
+                instructions.add(new Instruction(literalStart, -1, data.capacity(), data.array()));
+                literalStart += data.capacity();
+            }
+        }
+
+        private static int[] append(int[] array, int value) {
+            int[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = value;
+            return result;
+        }
+    }
+
+    private static class Window {
+
+        private final SeekableByteChannel channel;
+        private final long size;
+        private final int blockSize;
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+        private long start;
+
+        private Window(SeekableByteChannel channel, long size, int blockSize) {
+            this.channel = channel;
+            this.size = size;
+            this.blockSize = blockSize;
+        }
+
+        private byte get(long pos) throws IOException {
+            return buffer(pos, 1).get((int) (pos - start));
+        }
+
+        private ByteBuffer slice(long pos, int length) throws IOException {
+            return buffer(pos, length).slice((int) (pos - start), length);
+        }
+
+        private ByteBuffer buffer(long pos, int length) throws IOException {
+            if (pos >= start && pos + length <= start + buffer.limit())
+                return buffer;
+            start = Math.max(0, Math.min(pos, pos + length - blockSize));
+            buffer = map(channel, start, (int) Math.min(size - start, Math.max(CHUNK_SIZE, pos + length - start)));
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * This class contains static methods for computing checksums of files and directories without loading
+ * files into the heap. Files are read by mapped chunks. The {@link Algorithm#TREE_SHA_256} algorithm splits
+ * a file into leaves of {@value LEAF_SIZE} bytes, which are hashed concurrently in batches (one leaf per
+ * processor core) and combined into a Merkle tree, so hashing a large file isn't bound by one core.<br><br>
+ * <p>
+ * A manifest of a directory maps relative paths of all its regular files (with {@code /} separators, in
+ * lexicographic order) to hexadecimal checksums. Files of the manifest are hashed concurrently.
+ */
+public class FileHasher {
+
+    /**
+     * The size of a leaf of the {@link Algorithm#TREE_SHA_256} algorithm in bytes.
+     */
+    public static final int LEAF_SIZE = 4 << 20;
+
+    private static final int CHUNK_SIZE = 8 << 20;
+
+    /**
+     * The checksum algorithms.
+     */
+    public enum Algorithm {
+        /**
+         * The 4-byte CRC-32C checksum of the whole file, computed sequentially.
+         */
+        CRC32C,
+        /**
+         * The 32-byte SHA-256 digest of the whole file, computed sequentially.
+         */
+        SHA_256,
+        /**
+         * The 32-byte root of the Merkle tree of SHA-256 digests. A leaf is {@code SHA-256(0x00 || bytes)},
+         * an inner node is {@code SHA-256(0x01 || left || right)}, an odd node is promoted to the next level
+         * unchanged. An empty file has one empty leaf.
+         */
+        TREE_SHA_256
+    }
+
+    /**
+     * The method computes the checksum of the file. The number of leaves of the
+     * {@link Algorithm#TREE_SHA_256} algorithm hashed concurrently equals to the number of available processors.
+     *
+     * @param path      The path of the file.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of the file.
+     * @throws NullPointerException if {@code path} or {@code algorithm} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading.
+     * @see FileHasher#checksum(Path, Algorithm, int)
+     */
+    public static byte[] checksum(Path path, Algorithm algorithm) {
+        return checksum(path, algorithm, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The method computes the checksum of the file.
+     *
+     * @param path        The path of the file.
+     * @param algorithm   The checksum algorithm.
+     * @param parallelism The number of leaves of the {@link Algorithm#TREE_SHA_256} algorithm hashed concurrently.
+     * @return The checksum of the file.
+     * @throws NullPointerException     if {@code path} or {@code algorithm} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws RuntimeIOException       if an {@link IOException} is thrown during reading.
+     */
+    public static byte[] checksum(Path path, Algorithm algorithm, int parallelism) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (algorithm == null) throw new NullPointerException("algorithm is null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fc.size();
+            return switch (algorithm) {
+                case CRC32C -> crc32c(fc, size);
+                case SHA_256 -> sha256(fc, size);
+                case TREE_SHA_256 -> tree(fc, size, parallelism);
+            };
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method computes the checksum of the given bytes.
+     *
+     * @param bytes     The bytes to hash.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of the bytes.
+     * @throws NullPointerException if {@code bytes} or {@code algorithm} is null.
+     */
+    public static byte[] checksum(byte[] bytes, Algorithm algorithm) {
+        if (bytes == null) throw new NullPointerException("bytes is null");
+        if (algorithm == null) throw new NullPointerException("algorithm is null");
+
+        return switch (algorithm) {
+            case CRC32C -> crc32c(ByteBuffer.wrap(bytes));
+            case SHA_256 -> sha256().digest(bytes);
+            case TREE_SHA_256 -> {
+                int leaves = Math.max(1, (bytes.length + LEAF_SIZE - 1) / LEAF_SIZE);
+                byte[][] level = IntStream.range(0, leaves)
+                        .mapToObj(i -> leaf(ByteBuffer.wrap(bytes, i * LEAF_SIZE, Math.min(LEAF_SIZE, bytes.length - i * LEAF_SIZE))))
+                        .toArray(byte[][]::new);
+                yield root(level);
+            }
+        };
+    }
+
+    /**
+     * The method computes the checksum of the bytes of the input stream. The stream is read sequentially
+     * by a buffer of {@value LEAF_SIZE} bytes, the leaves of the {@link Algorithm#TREE_SHA_256} algorithm are
+     * hashed one by one. The checksum is equal to the checksum of a file with the same bytes. The input stream
+     * isn't closed.
+     *
+     * @param in        The input stream of the bytes to hash.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of the bytes.
+     * @throws NullPointerException if {@code in} or {@code algorithm} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading.
+     */
+    public static byte[] checksum(InputStream in, Algorithm algorithm) {
+        if (in == null) throw new NullPointerException("in is null");
+        if (algorithm == null) throw new NullPointerException("algorithm is null");
+
+        CRC32C crc = new CRC32C();
+        MessageDigest digest = sha256();
+        List<byte[]> leaves = new ArrayList<>();
+        byte[] buffer = new byte[LEAF_SIZE];
+        try {
+            int length;
+            do {
+                length = in.readNBytes(buffer, 0, buffer.length);
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+                switch (algorithm) {
+                    case CRC32C -> crc.update(bytes);
+                    case SHA_256 -> digest.update(bytes);
+                    case TREE_SHA_256 -> {
+                        if (length > 0 || leaves.isEmpty())
+                            leaves.add(leaf(bytes));
+                    }
+                }
+            } while (length == buffer.length);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return switch (algorithm) {
+            case CRC32C -> ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+            case SHA_256 -> digest.digest();
+            case TREE_SHA_256 -> root(leaves.toArray(byte[][]::new));
+        };
+    }
+
+    /**
+     * The method returns the manifest of the directory: the relative paths of all its regular files
+     * (including files of subdirectories) mapped to their hexadecimal checksums. Symbolic links aren't followed.
+     *
+     * @param dir       The path of the directory.
+     * @param algorithm The checksum algorithm.
+     * @return The unmodifiable sorted map of relative paths to checksums.
+     * @throws NullPointerException if {@code dir} or {@code algorithm} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during walking or reading.
+     */
+    public static SortedMap<String, String> manifest(Path dir, Algorithm algorithm) {
+        if (dir == null) throw new NullPointerException("dir is null");
+        if (algorithm == null) throw new NullPointerException("algorithm is null");
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            files = stream.filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)).toList();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        HexFormat hex = HexFormat.of();
+        Map<String, String> checksums = files.parallelStream()
+                .collect(Collectors.toConcurrentMap(
+                        file -> relative(dir, file),
+                        file -> hex.formatHex(checksum(file, algorithm, 1))));
+        return Collections.unmodifiableSortedMap(new TreeMap<>(checksums));
+    }
+
+    /**
+     * The method writes the manifest of the directory to the given file. Every line of the file is
+     * a hexadecimal checksum, two spaces and a relative path (the format of {@code sha256sum}), the lines
+     * are encoded in UTF-8. The file is created if it doesn't exist, or overwritten otherwise.
+     *
+     * @param dir       The path of the directory.
+     * @param algorithm The checksum algorithm.
+     * @param target    The path of the manifest file.
+     * @throws NullPointerException if any argument is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading or writing.
+     * @see FileHasher#manifest(Path, Algorithm)
+     */
+    public static void writeManifest(Path dir, Algorithm algorithm, Path target) {
+        if (target == null) throw new NullPointerException("target is null");
+        try {
+            Files.writeString(target, manifestText(manifest(dir, algorithm)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method computes the checksum of the directory, which is the checksum of its manifest text
+     * (see {@link FileHasher#writeManifest(Path, Algorithm, Path)}) encoded in UTF-8. Two directories
+     * have equal checksums if they contain equal files at equal relative paths.
+     *
+     * @param dir       The path of the directory.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum of the directory.
+     * @throws NullPointerException if {@code dir} or {@code algorithm} is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during walking or reading.
+     */
+    public static byte[] checksumDirectory(Path dir, Algorithm algorithm) {
+        String text = manifestText(manifest(dir, algorithm));
+        return checksum(text.getBytes(StandardCharsets.UTF_8), algorithm);
+    }
+
+
+    private static String manifestText(SortedMap<String, String> manifest) {
+        StringBuilder sb = new StringBuilder();
+        manifest.forEach((path, checksum) -> sb.append(checksum).append("  ").append(path).append('\n'));
+        return sb.toString();
+    }
+
+    private static String relative(Path dir, Path file) {
+        return dir.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+    }
+
+    private static byte[] crc32c(FileChannel fc, long size) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long pos = 0; pos < size; pos += CHUNK_SIZE) {
+            crc.update(fc.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(CHUNK_SIZE, size - pos)));
+        }
+        return ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+    }
+
+    private static byte[] crc32c(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+    }
+
+    private static byte[] sha256(FileChannel fc, long size) throws IOException {
+        MessageDigest digest = sha256();
+        for (long pos = 0; pos < size; pos += CHUNK_SIZE) {
+            digest.update(fc.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(CHUNK_SIZE, size - pos)));
+        }
+        return digest.digest();
+    }
+
+    private static byte[] tree(FileChannel fc, long size, int parallelism) {
+        int leaves = (int) Math.max(1, (size + LEAF_SIZE - 1) / LEAF_SIZE);
+        byte[][] level = new byte[leaves][];
+        for (int first = 0; first < leaves; first += parallelism) {
+            int from = first;
+            int to = Math.min(leaves, first + parallelism);
+            IntStream.range(from, to).parallel().forEach(i -> {
+                long pos = (long) i * LEAF_SIZE;
+                try {
+                    level[i] = leaf(fc.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(LEAF_SIZE, size - pos)));
+                } catch (IOException e) {
+                    throw new RuntimeIOException(e);
+                }
+            });
+        }
+        return root(level);
+    }
+
+    private static byte[] leaf(ByteBuffer bytes) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 0);
+        digest.update(bytes);
+        return digest.digest();
+    }
+
+    private static byte[] root(byte[][] level) {
+        MessageDigest digest = sha256();
+        while (level.length > 1) {
+            byte[][] next = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                if (2 * i + 1 == level.length) {
+                    next[i] = level[2 * i];
+                } else {
+                    digest.update((byte) 1);
+                    digest.update(level[2 * i]);
+                    digest.update(level[2 * i + 1]);
+                    next[i] = digest.digest();
+                }
+            }
+            level = next;
+        }
+        return level[0];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported", e);
+        }
+    }
+}
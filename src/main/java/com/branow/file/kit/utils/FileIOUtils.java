@@ -3,11 +3,22 @@ package com.branow.file.kit.utils;
 import com.branow.file.kit.io.RuntimeIOException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Arrays;
+import java.util.stream.LongStream;
 
 /**
  * This class contains various static methods for reading, writing and appending
@@ -18,6 +29,9 @@ import java.nio.file.StandardOpenOption;
  */
 public class FileIOUtils {
 
+    private static final int SEGMENT_SIZE = 8 << 20;
+    private static final int STREAM_BUFFER_SIZE = 64 << 10;
+
     /**
      * The method reads string from this file.
      * The method is based on calling {@link FileIOUtils#readString(Path, Charset)}
@@ -263,6 +277,150 @@ public class FileIOUtils {
         }
     }
 
+    /**
+     * The method maps a region of this file directly into memory in read-only mode. The returned
+     * buffer stays valid after the method has closed its channel, and reading it doesn't copy
+     * the file content into the heap.
+     *
+     * @param path The path fo the file which region is mapped.
+     * @param pos The file position at which the mapped region is to begin. It is equal to a number of a byte.
+     * @param size The size of the region to map. It cannot be greater than {@link Integer#MAX_VALUE}.
+     * @return The instance of {@link MappedByteBuffer} of the mapped region.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during mapping.
+     * @see FileChannel#map(FileChannel.MapMode, long, long)
+     * */
+    public static MappedByteBuffer map(Path path, long pos, long size) {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return fc.map(FileChannel.MapMode.READ_ONLY, pos, size);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method checks whether the two files have equal content. Files of different sizes are
+     * unequal without reading them, otherwise the method is based on calling
+     * {@link FileIOUtils#mismatch(Path, Path)}.
+     *
+     * @param path The path of the first file.
+     * @param other The path of the second file.
+     * @return {@code true} if the files have equal content.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see FileIOUtils#mismatch(Path, Path)
+     * */
+    public static boolean contentEquals(Path path, Path other) {
+        try {
+            if (Files.size(path) != Files.size(other))
+                return false;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return mismatch(path, other) == -1;
+    }
+
+    /**
+     * The method finds the position of the first mismatched byte of the two files. The number
+     * of segments compared concurrently equals to the number of available processors.
+     *
+     * @param path The path of the first file.
+     * @param other The path of the second file.
+     * @return The position of the first mismatch or {@code -1} if there is no mismatch.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see FileIOUtils#mismatch(Path, Path, int)
+     * */
+    public static long mismatch(Path path, Path other) {
+        return mismatch(path, other, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The method finds the position of the first mismatched byte of the two files. The common
+     * length of the files is split into mapped segments, which are compared by
+     * {@link ByteBuffer#mismatch(ByteBuffer)} in batches of concurrently compared segments,
+     * so the comparing stops after the batch with the first mismatch. If one file is a prefix
+     * of the other, the size of the smaller file is returned.
+     *
+     * @param path The path of the first file.
+     * @param other The path of the second file.
+     * @param parallelism The number of segments compared concurrently.
+     * @return The position of the first mismatch or {@code -1} if there is no mismatch.
+     * @throws NullPointerException if {@code path} or {@code other} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see ByteBuffer#mismatch(ByteBuffer)
+     * */
+    public static long mismatch(Path path, Path other, int parallelism) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (other == null) throw new NullPointerException("other is null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel otherFc = FileChannel.open(other, StandardOpenOption.READ)) {
+            long size = fc.size();
+            long otherSize = otherFc.size();
+            long common = Math.min(size, otherSize);
+            if (Files.isSameFile(path, other))
+                return -1;
+
+            long segments = (common + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+            for (long first = 0; first < segments; first += parallelism) {
+                long found = LongStream.range(first, Math.min(segments, first + parallelism)).parallel()
+                        .map(i -> mismatch(fc, otherFc, i * SEGMENT_SIZE, Math.min(SEGMENT_SIZE, common - i * SEGMENT_SIZE)))
+                        .filter(e -> e >= 0)
+                        .min()
+                        .orElse(-1);
+                if (found >= 0)
+                    return found;
+            }
+            return size == otherSize ? -1 : common;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method finds the position of the first mismatched byte of the two input streams. The streams
+     * are read sequentially by fixed buffers until the first mismatch and aren't closed. If one stream
+     * is a prefix of the other, the number of bytes of the shorter stream is returned.
+     *
+     * @param in The first input stream.
+     * @param other The second input stream.
+     * @return The position of the first mismatch or {@code -1} if there is no mismatch.
+     * @throws NullPointerException if {@code in} or {@code other} is null.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * */
+    public static long mismatch(InputStream in, InputStream other) {
+        if (in == null) throw new NullPointerException("in is null");
+        if (other == null) throw new NullPointerException("other is null");
+
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        byte[] otherBuffer = new byte[STREAM_BUFFER_SIZE];
+        try {
+            long pos = 0;
+            while (true) {
+                int length = in.readNBytes(buffer, 0, buffer.length);
+                int otherLength = other.readNBytes(otherBuffer, 0, otherBuffer.length);
+                int found = Arrays.mismatch(buffer, 0, length, otherBuffer, 0, otherLength);
+                if (found >= 0)
+                    return pos + found;
+                if (length < buffer.length)
+                    return -1;
+                pos += length;
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private static long mismatch(FileChannel fc, FileChannel otherFc, long pos, long size) {
+        try {
+            int i = fc.map(FileChannel.MapMode.READ_ONLY, pos, size)
+                    .mismatch(otherFc.map(FileChannel.MapMode.READ_ONLY, pos, size));
+            return i < 0 ? -1 : pos + i;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
 
 
     /**
@@ -565,4 +723,57 @@ public class FileIOUtils {
         }
     }
 
+
+
+    /**
+     * The method replaces this file with the replacement file, which is usually a new version of this file
+     * written to a temporary file in the same directory. The POSIX permissions, the group and the owner (if the
+     * process is allowed to change them) or the ACL of this file are copied to the replacement, which then is
+     * moved over this file, atomically if the file system supports it.<br>
+     * The file keeps its path and access rights, but it becomes another file (inode): hard links to the
+     * replaced file and channels opened on it keep referring to the old content.
+     *
+     * @param path The path of the file which is replaced.
+     * @param replacement The path of the file which replaces this file.
+     * @throws NullPointerException if {@code path} or {@code replacement} is null.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during replacing.
+     * @see Files#move(Path, Path, java.nio.file.CopyOption...)
+     * */
+    public static void replace(Path path, Path replacement) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (replacement == null) throw new NullPointerException("replacement is null");
+
+        try {
+            copyAccess(path, replacement);
+            try {
+                Files.move(replacement, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(replacement, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private static void copyAccess(Path from, Path to) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (posix != null) {
+            PosixFileAttributes attributes = Files.readAttributes(from, PosixFileAttributes.class);
+            try {
+                posix.setOwner(attributes.owner());
+            } catch (FileSystemException e) {
+                // only a privileged process can give the file away
+            }
+            try {
+                posix.setGroup(attributes.group());
+            } catch (FileSystemException e) {
+                // the owner can only choose one of own groups
+            }
+            posix.setPermissions(attributes.permissions());
+        }
+        AclFileAttributeView acl = Files.getFileAttributeView(to, AclFileAttributeView.class);
+        if (acl != null)
+            acl.setAcl(Files.getFileAttributeView(from, AclFileAttributeView.class).getAcl());
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.CancellationException;
+
+/**
+ * This class contains static methods for moving files and directories. A move is tried as one atomic
+ * rename ({@link StandardCopyOption#ATOMIC_MOVE}) of the whole file tree, which costs one system call
+ * regardless of the number of files. Only if the rename isn't possible (the target is on another file
+ * system), the tree is copied by {@link FileCopier} and then deleted. The returned {@link Method} reports
+ * which way was taken.
+ */
+public class FileMover {
+
+    /**
+     * The {@code Method} describes how a file was moved.
+     * <ul>
+     *   <li>{@link Method#RENAME} : the file tree was renamed atomically.</li>
+     *   <li>{@link Method#COPY_AND_DELETE} : the file tree was copied to the target and deleted.</li>
+     * </ul>
+     */
+    public enum Method {
+        RENAME, COPY_AND_DELETE,
+    }
+
+    /**
+     * The method moves the file or directory to the target path. The number of files copied
+     * concurrently (if the tree has to be copied) equals to the number of available processors.
+     *
+     * @param src    the path of the file that is moved.
+     * @param target the new path of the file.
+     * @return the way the file was moved.
+     * @throws RuntimeIOException if there is thrown {@link IOException} during moving file.
+     * @see FileMover#move(Path, Path, int)
+     */
+    public static Method move(Path src, Path target) {
+        return move(src, target, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The method moves the file or directory to the target path. The target mustn't exist. Symbolic links
+     * are moved as links.
+     *
+     * @param src         the path of the file that is moved.
+     * @param target      the new path of the file.
+     * @param parallelism the number of files copied concurrently if the tree has to be copied.
+     * @return the way the file was moved.
+     * @throws NullPointerException     if {@code src} or {@code target} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws RuntimeIOException       if the target exists or there is thrown {@link IOException} during moving file.
+     * @see FileMover#move(Path, Path, int, OperationProgress)
+     */
+    public static Method move(Path src, Path target, int parallelism) {
+        return move(src, target, parallelism, new OperationProgress());
+    }
+
+    /**
+     * The method moves the file or directory to the target path. The target mustn't exist. Symbolic links
+     * are moved as links. The progress has the phase "rename", or the phases "copy" (where the copied files
+     * are counted) and "delete" if the tree is copied. The cancellation of the progress is checked before
+     * every entry; if the moving is cancelled during the phase "delete", the source is partially deleted.
+     *
+     * @param src         the path of the file that is moved.
+     * @param target      the new path of the file.
+     * @param parallelism the number of files copied concurrently if the tree has to be copied.
+     * @param progress    the progress of moving.
+     * @return the way the file was moved.
+     * @throws NullPointerException     if {@code src}, {@code target} or {@code progress} is null.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws RuntimeIOException       if the target exists or there is thrown {@link IOException} during moving file.
+     * @throws CancellationException    if the progress is cancelled.
+     */
+    public static Method move(Path src, Path target, int parallelism, OperationProgress progress) {
+        if (src == null) throw new NullPointerException("src is null");
+        if (target == null) throw new NullPointerException("target is null");
+        if (progress == null) throw new NullPointerException("progress is null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        try {
+            if (Files.exists(target, LinkOption.NOFOLLOW_LINKS))
+                throw new FileAlreadyExistsException(target.toString());
+            progress.checkCancelled();
+            progress.phase("rename");
+            try {
+                Files.move(src, target, StandardCopyOption.ATOMIC_MOVE);
+                progress.fileProcessed(0);
+                return Method.RENAME;
+            } catch (AtomicMoveNotSupportedException e) {
+                if (!Files.isDirectory(src, LinkOption.NOFOLLOW_LINKS)) {
+                    progress.phase("copy");
+                    long size = Files.size(src);
+                    Files.move(src, target);
+                    progress.fileProcessed(size);
+                    return Method.COPY_AND_DELETE;
+                }
+            }
+            FileCopier.of(parallelism, parallelism, FileCopier.CopyOption.COPY_ATTRIBUTES,
+                    FileCopier.CopyOption.NOFOLLOW_LINKS).copy(src, target, progress);
+            progress.phase("delete");
+            deleteTree(src, progress);
+            return Method.COPY_AND_DELETE;
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } finally {
+            progress.endPhase();
+        }
+    }
+
+    private static void deleteTree(Path root, OperationProgress progress) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                progress.checkCancelled();
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null)
+                    throw e;
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
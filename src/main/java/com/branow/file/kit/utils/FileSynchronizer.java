@@ -0,0 +1,271 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class contains static methods for the incremental synchronization (mirroring) of a directory.
+ * The source tree is walked on the calling thread, which creates the missing target directories, while
+ * the files are compared and copied concurrently by a bounded pool of workers. A file is copied only
+ * if it is new or changed: by default a file is changed if its size or last modified time differs, or,
+ * with {@link SyncOptions#compareContent()}, if its size or content differs. Copies keep the last modified
+ * time of the source, so the next synchronization finds them unchanged; times are compared to microseconds,
+ * the precision with which they are copied.<br><br>
+ * <p>
+ * Symbolic links are copied as links. Target files which type differs from the source are replaced.
+ * With {@link SyncOptions#deleteExtraneous()} the target entries that don't exist in the source are deleted.
+ */
+public class FileSynchronizer {
+
+    private static final int QUEUED_PER_WORKER = 4;
+
+    /**
+     * The method synchronizes the target directory with the source directory. The target directory
+     * is created if it doesn't exist.
+     *
+     * @param src     the path of the source directory.
+     * @param target  the path of the target directory.
+     * @param options the synchronization options.
+     * @return the report of the synchronization.
+     * @throws NullPointerException     if {@code src}, {@code target} or {@code options} is null.
+     * @throws IllegalArgumentException if {@code src} isn't a directory or one of {@code src} and {@code target}
+     *                                  is inside the other.
+     * @throws RuntimeIOException       if there is thrown {@link IOException} during synchronization.
+     */
+    public static Report sync(Path src, Path target, SyncOptions options) {
+        if (src == null) throw new NullPointerException("src is null");
+        if (target == null) throw new NullPointerException("target is null");
+        if (options == null) throw new NullPointerException("options is null");
+        if (!Files.isDirectory(src)) throw new IllegalArgumentException("src is not a directory: " + src);
+        Path srcPath = src.toAbsolutePath().normalize();
+        Path targetPath = target.toAbsolutePath().normalize();
+        if (targetPath.startsWith(srcPath))
+            throw new IllegalArgumentException("target is inside src: " + target);
+        if (srcPath.startsWith(targetPath))
+            throw new IllegalArgumentException("src is inside target: " + src);
+
+        Report report = new Report();
+        ExecutorService executor = Executors.newFixedThreadPool(options.parallelism());
+        Semaphore queue = new Semaphore(options.parallelism() * QUEUED_PER_WORKER);
+        Phaser running = new Phaser(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            Files.walkFileTree(src, new SimpleFileVisitor<>() {
+                private final Deque<Set<String>> names = new ArrayDeque<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (failure.get() != null)
+                        return FileVisitResult.TERMINATE;
+                    if (!names.isEmpty())
+                        names.peek().add(dir.getFileName().toString());
+                    names.push(new HashSet<>());
+
+                    Path to = resolve(src, target, dir);
+                    BasicFileAttributes toAttrs = attributes(to);
+                    if (toAttrs != null && !toAttrs.isDirectory()) {
+                        Files.delete(to);
+                        report.deleted.incrementAndGet();
+                        toAttrs = null;
+                    }
+                    if (toAttrs == null)
+                        Files.createDirectories(to);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (failure.get() != null)
+                        return FileVisitResult.TERMINATE;
+                    names.peek().add(file.getFileName().toString());
+
+                    Path to = resolve(src, target, file);
+                    try {
+                        queue.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("The synchronization is interrupted: " + src);
+                    }
+                    running.register();
+                    executor.execute(() -> {
+                        try {
+                            if (failure.get() == null)
+                                syncFile(file, attrs, to, options, report);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            queue.release();
+                            running.arriveAndDeregister();
+                        }
+                    });
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    if (e != null)
+                        throw e;
+                    Set<String> children = names.pop();
+                    if (options.deleteExtraneous()) {
+                        try (DirectoryStream<Path> stream = Files.newDirectoryStream(resolve(src, target, dir))) {
+                            for (Path child : stream) {
+                                if (!children.contains(child.getFileName().toString())) {
+                                    deleteTree(child);
+                                    report.deleted.incrementAndGet();
+                                }
+                            }
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            running.arriveAndAwaitAdvance();
+            executor.shutdown();
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof IOException io)
+            throw new RuntimeIOException(io);
+        if (e instanceof RuntimeException runtime)
+            throw runtime;
+        if (e instanceof Error error)
+            throw error;
+        return report;
+    }
+
+
+    private static void syncFile(Path file, BasicFileAttributes attrs, Path to, SyncOptions options,
+                                 Report report) throws IOException {
+        BasicFileAttributes toAttrs = attributes(to);
+        if (toAttrs != null) {
+            if (toAttrs.isDirectory()) {
+                deleteTree(to);
+                report.deleted.incrementAndGet();
+            } else if (isUnchanged(file, attrs, to, toAttrs, options)) {
+                report.unchanged.incrementAndGet();
+                return;
+            }
+        }
+        Files.copy(file, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES,
+                LinkOption.NOFOLLOW_LINKS);
+        report.copied.incrementAndGet();
+        report.copiedBytes.addAndGet(attrs.isRegularFile() ? attrs.size() : 0);
+    }
+
+    private static boolean isUnchanged(Path file, BasicFileAttributes attrs, Path to, BasicFileAttributes toAttrs,
+                                       SyncOptions options) throws IOException {
+        if (attrs.isSymbolicLink() || toAttrs.isSymbolicLink()) {
+            return attrs.isSymbolicLink() && toAttrs.isSymbolicLink()
+                    && Files.readSymbolicLink(file).equals(Files.readSymbolicLink(to));
+        }
+        if (attrs.isRegularFile() != toAttrs.isRegularFile() || attrs.size() != toAttrs.size())
+            return false;
+        if (options.compareContent())
+            return FileIOUtils.contentEquals(file, to);
+        return attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS)
+                == toAttrs.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null)
+                    throw e;
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static Path resolve(Path src, Path target, Path path) {
+        return path.equals(src) ? target : target.resolve(src.relativize(path).toString());
+    }
+
+    /**
+     * The report of a synchronization: the numbers of copied, unchanged and deleted entries.
+     */
+    public static class Report {
+
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong copiedBytes = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+
+        private Report() {
+        }
+
+        /**
+         * @return The number of new or changed files copied to the target.
+         */
+        public long copied() {
+            return copied.get();
+        }
+
+        /**
+         * @return The number of bytes of copied regular files.
+         */
+        public long copiedBytes() {
+            return copiedBytes.get();
+        }
+
+        /**
+         * @return The number of files which were already up-to-date.
+         */
+        public long unchanged() {
+            return unchanged.get();
+        }
+
+        /**
+         * @return The number of deleted target entries (a deleted directory is counted once).
+         */
+        public long deleted() {
+            return deleted.get();
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + copied() + " : " + copiedBytes() + " : "
+                    + unchanged() + " : " + deleted() + " ]";
+        }
+    }
+}
@@ -5,9 +5,12 @@ import com.branow.file.kit.io.RuntimeIOException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.util.*;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -103,6 +106,20 @@ public class FileUtils {
         FileDeleter.of(options).delete(path);
     }
 
+    /**
+     * The method deletes a file by the gotten path according to gotten deleting options.
+     * The deleted entries are counted in the gotten progress, which lets watch and cancel deleting.
+     *
+     * @param path     the path to the file to delete.
+     * @param progress the progress of deleting.
+     * @param options  the deleting options using to delete file
+     * @see FileDeleter#of(FileDeleter.DeleteOption...)
+     * @see FileDeleter#delete(Path, OperationProgress)
+     */
+    public static void delete(Path path, OperationProgress progress, FileDeleter.DeleteOption... options) {
+        FileDeleter.of(options).delete(path, progress);
+    }
+
 
 
     /**
@@ -170,6 +187,27 @@ public class FileUtils {
      * @see Files#move(Path, Path, CopyOption...)
      */
     public static Path move(Path src, Path targetDir, boolean exchange) {
+        return move(src, targetDir, exchange, new OperationProgress());
+    }
+
+    /**
+     * The method moves the gotten file to the target directory.
+     *
+     * @param src       the path of the file that is moved.
+     * @param targetDir the target directory into which the gotten file is moved
+     * @param exchange  if it's {@code true} and in the target directory already
+     *                  exists file with the same name as {@code src}, it is exchanged.
+     *                  But if it's {@code false}, the {@link IllegalArgumentException} is thrown.
+     * @param progress  the progress of moving, which lets watch and cancel it.
+     * @throws NullPointerException     if {@code src} or {@code targetDir} is null
+     * @throws IllegalArgumentException if {@code src} or {@code targetDir} doesn't exist,
+     *                                  also if in the target directory already exists file with the same name as {@code src}
+     *                                  and {@code exchange is false}.
+     * @throws RuntimeIOException       if there is thrown {@link IOException} during moving file.
+     * @throws java.util.concurrent.CancellationException if the progress is cancelled.
+     * @see FileMover#move(Path, Path, int, OperationProgress)
+     */
+    public static Path move(Path src, Path targetDir, boolean exchange, OperationProgress progress) {
         if (src == null) throw new NullPointerException("src is null");
         if (targetDir == null) throw new NullPointerException("targetDir is null");
         if (Files.notExists(src)) throw new IllegalArgumentException("src doesn't exist: " + src);
@@ -185,12 +223,8 @@ public class FileUtils {
                 throw new IllegalArgumentException("Target file already exists: " + target);
         }
 
-        try {
-            moveFile(src, target);
-            return target;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        FileMover.move(src, target, Runtime.getRuntime().availableProcessors(), progress);
+        return target;
     }
 
 
@@ -280,12 +314,8 @@ public class FileUtils {
                 throw new IllegalArgumentException("Target file already exists: " + target);
         }
 
-        try {
-            moveFile(src, target);
-            return target;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        FileMover.move(src, target);
+        return target;
     }
 
 
@@ -326,12 +356,8 @@ public class FileUtils {
             i++;
         }
 
-        try {
-            copyFile(src, target);
-            return target;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        FileCopier.of().copy(src, target);
+        return target;
     }
 
     /**
@@ -403,6 +429,28 @@ public class FileUtils {
      * @see Files#copy(Path, Path, CopyOption...)
      */
     public static Path copy(Path src, Path targetDir, boolean exchange) {
+        return copy(src, targetDir, exchange, new OperationProgress());
+    }
+
+    /**
+     * The method copies the gotten file to the target directory.
+     *
+     * @param src       the path of the file that is copied.
+     * @param targetDir the target directory into which the gotten file is copied
+     * @param exchange  if it's {@code true} and in the target directory already
+     *                  exists file with the same name as {@code src}, it is exchanged.
+     *                  But if it's {@code false}, the {@link IllegalArgumentException} is thrown.
+     * @param progress  the progress of copying, which lets watch and cancel it.
+     * @throws NullPointerException     if {@code src} or {@code targetDir} is null
+     * @throws IllegalArgumentException if {@code src} or {@code targetDir} doesn't exist. If in
+     *                                  the target directory already exists file with the same name as {@code src} and
+     *                                  {@code exchange} is {@code false}. If {@code targetDir} and {@code src} parent directory
+     *                                  is the same and {@code exchange} is {@code false}.
+     * @throws RuntimeIOException       if there is thrown {@link IOException} during copying the file.
+     * @throws java.util.concurrent.CancellationException if the progress is cancelled.
+     * @see FileCopier#copy(Path, Path, OperationProgress)
+     */
+    public static Path copy(Path src, Path targetDir, boolean exchange, OperationProgress progress) {
         if (src == null) throw new NullPointerException("src is null");
         if (targetDir == null) throw new NullPointerException("targetDir is null");
         if (Files.notExists(src)) throw new IllegalArgumentException("src doesn't exist: " + src);
@@ -419,12 +467,27 @@ public class FileUtils {
                 throw new IllegalArgumentException("Target file already exists: " + target);
         }
 
-        try {
-            copyFile(src, target);
-            return target;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        FileCopier.of().copy(src, target, progress);
+        return target;
+    }
+
+
+
+    /**
+     * The method synchronizes the target directory with the source directory: only new and changed
+     * files are copied, so repeated synchronizations of a large tree copy only its changes.
+     *
+     * @param src     the path of the source directory.
+     * @param target  the path of the target directory; it is created if it doesn't exist.
+     * @param options the synchronization options (comparison of files, deleting of extraneous files, parallelism).
+     * @return the report of the synchronization.
+     * @throws NullPointerException     if {@code src}, {@code target} or {@code options} is null.
+     * @throws IllegalArgumentException if {@code src} isn't a directory or {@code target} is inside {@code src}.
+     * @throws RuntimeIOException       if there is thrown {@link IOException} during synchronization.
+     * @see FileSynchronizer#sync(Path, Path, SyncOptions)
+     */
+    public static FileSynchronizer.Report sync(Path src, Path target, SyncOptions options) {
+        return FileSynchronizer.sync(src, target, options);
     }
 
 
@@ -527,6 +590,126 @@ public class FileUtils {
 
 
 
+    /**
+     * The method returns the page of entities of gotten directory: at most {@code limit} entries
+     * that follow the first {@code cursor} entries. The directory is read lazily, so only
+     * the entries of the page are kept in memory.
+     *
+     * @param dir    the path to the directory.
+     * @param cursor the number of entries to skip (the sum of sizes of previous pages).
+     * @param limit  the maximum number of entries of the page.
+     * @return list of entities of the page; it's shorter than {@code limit} for the last page.
+     * @throws NullPointerException     if {@code dir} is null.
+     * @throws IllegalArgumentException if {@code dir} doesn't exist or is not a directory,
+     *                                  if {@code cursor} or {@code limit} is minus.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during getting the entities.
+     * @see FileUtils#childrenStream(Path)
+     */
+    public static List<Path> children(Path dir, long cursor, int limit) {
+        if (cursor < 0) throw new IllegalArgumentException("cursor mustn't be minus: " + cursor);
+        if (limit < 0) throw new IllegalArgumentException("limit mustn't be minus: " + limit);
+
+        try (Stream<Path> stream = childrenStream(dir)) {
+            return stream.skip(cursor).limit(limit).toList();
+        }
+    }
+
+    /**
+     * The method returns the lazy stream of entities of gotten directory.
+     *
+     * @param dir the path to the directory.
+     * @return the stream of entities of the directory.
+     * @throws NullPointerException     if {@code dir} is null.
+     * @throws IllegalArgumentException if {@code dir} doesn't exist or is not a directory.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during getting the entities.
+     * @see FileUtils#childrenStream(Path, DirectoryStream.Filter)
+     */
+    public static Stream<Path> childrenStream(Path dir) {
+        return childrenStream(dir, e -> true);
+    }
+
+    /**
+     * The method returns the lazy stream of entities of gotten directory which file names
+     * match the glob pattern (for example {@code *.{txt,log}}).
+     *
+     * @param dir  the path to the directory.
+     * @param glob the glob pattern of file names.
+     * @return the stream of matching entities of the directory.
+     * @throws NullPointerException     if {@code dir} or {@code glob} is null.
+     * @throws IllegalArgumentException if {@code dir} doesn't exist or is not a directory,
+     *                                  if {@code glob} is invalid.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during getting the entities.
+     * @see FileUtils#childrenStream(Path, DirectoryStream.Filter)
+     * @see java.nio.file.FileSystem#getPathMatcher(String)
+     */
+    public static Stream<Path> childrenStream(Path dir, String glob) {
+        if (dir == null) throw new NullPointerException("dir is null");
+        if (glob == null) throw new NullPointerException("glob is null");
+
+        PathMatcher matcher = dir.getFileSystem().getPathMatcher("glob:" + glob);
+        return childrenStream(dir, e -> matcher.matches(e.getFileName()));
+    }
+
+    /**
+     * The method returns the lazy stream of entities of gotten directory accepted by the filter.
+     * The stream is backed by an open {@link DirectoryStream}: entries are read from the directory
+     * while the stream is consumed and the filter is applied before creating the stream elements,
+     * so memory doesn't depend on the number of entries. The stream must be closed after using
+     * (for example by try-with-resources), which closes the directory.
+     *
+     * @param dir    the path to the directory.
+     * @param filter the filter of entities.
+     * @return the stream of accepted entities of the directory.
+     * @throws NullPointerException     if {@code dir} or {@code filter} is null.
+     * @throws IllegalArgumentException if {@code dir} doesn't exist or is not a directory.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during opening or reading the directory.
+     * @see Files#newDirectoryStream(Path, DirectoryStream.Filter)
+     */
+    public static Stream<Path> childrenStream(Path dir, DirectoryStream.Filter<? super Path> filter) {
+        if (dir == null) throw new NullPointerException("dir is null");
+        if (filter == null) throw new NullPointerException("filter is null");
+        if (Files.notExists(dir)) throw new IllegalArgumentException("dir doesn't exist: " + dir);
+        if (isNotDirectory(dir)) throw new IllegalArgumentException("dir is not a directory: " + dir);
+
+        DirectoryStream<Path> directory;
+        try {
+            directory = Files.newDirectoryStream(dir, filter);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        Iterator<Path> entries = directory.iterator();
+        Iterator<Path> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return entries.hasNext();
+                } catch (DirectoryIteratorException e) {
+                    throw new RuntimeIOException(e.getCause());
+                }
+            }
+
+            @Override
+            public Path next() {
+                try {
+                    return entries.next();
+                } catch (DirectoryIteratorException e) {
+                    throw new RuntimeIOException(e.getCause());
+                }
+            }
+        };
+        Spliterator<Path> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                directory.close();
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+        });
+    }
+
+
+
     /**
      * The method returns a directory entry at gotten position.
      *
@@ -561,11 +744,30 @@ public class FileUtils {
         if (isNotDirectory(dir)) throw new IllegalArgumentException("dir is not a directory: " + dir);
         if (position < 0) throw new IllegalArgumentException("position mustn't be minus: " + position);
 
-        try (Stream<Path> stream = Files.list(dir)) {
-            return stream.skip(position).findFirst();
-        } catch (IOException e) {
-            throw new RuntimeIOException(e);
-        }
+        return childAt(dir, position, DirectorySnapshot.Order.NONE);
+    }
+
+    /**
+     * The method returns a directory entry at gotten position in the gotten order. The entries are
+     * taken from the cached snapshot of the directory, which is taken again only if the directory
+     * has been modified, so paging through a large directory doesn't list it on every call.
+     *
+     * @param dir      the path to the directory.
+     * @param position the position of the file entry at directory. Numbers of the positions
+     *                 start from zero (0, 1, 2 ...).
+     * @param order    the order of entries.
+     * @return the path of entry wrapped to {@link Optional}.
+     * @throws NullPointerException     if {@code dir} or {@code order} is null.
+     * @throws IllegalArgumentException if {@code dir} doesn't exist or is not a directory,
+     *                                  if {@code position} is minus.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during getting the entry.
+     * @see DirectorySnapshot#of(Path, DirectorySnapshot.Order)
+     */
+    public static Optional<Path> childAt(Path dir, int position, DirectorySnapshot.Order order) {
+        if (position < 0) throw new IllegalArgumentException("position mustn't be minus: " + position);
+
+        DirectorySnapshot snapshot = DirectorySnapshot.of(dir, order);
+        return position < snapshot.size() ? Optional.of(snapshot.childAt(position)) : Optional.empty();
     }
 
 
@@ -600,19 +802,29 @@ public class FileUtils {
         if (child == null) throw new NullPointerException("child is null");
         if (Files.notExists(child)) throw new IllegalArgumentException("child doesn't exist: " + child);
 
-        try (Stream<Path> stream = Files.list(child.getParent())) {
-            int i = 0;
-            Iterator<Path> iterator = stream.iterator();
-            while (iterator.hasNext()) {
-                if (child.equals(iterator.next())) {
-                    return i;
-                }
-                i++;
-            }
+        return indexOf(child, DirectorySnapshot.Order.NONE);
+    }
+
+    /**
+     * The method returns a number of the position of gotten child file in parent directory in
+     * the gotten order. The position is looked up in the cached snapshot of the directory.
+     *
+     * @param child the path of child file which position is returned.
+     * @param order the order of entries.
+     * @return the number of the position of gotten child file in parent directory
+     * @throws NullPointerException     if {@code child} or {@code order} is null.
+     * @throws IllegalArgumentException if the parent directory of {@code child} doesn't exist.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during searching the entry.
+     * @throws IllegalStateException    if the method cannot find the {@code position}.
+     * @see DirectorySnapshot#of(Path, DirectorySnapshot.Order)
+     */
+    public static int indexOf(Path child, DirectorySnapshot.Order order) {
+        if (child == null) throw new NullPointerException("child is null");
+
+        int position = DirectorySnapshot.of(child.getParent(), order).indexOf(child);
+        if (position == -1)
             throw new IllegalStateException("Cannot find such file in parent directory: " + child);
-        } catch (IOException e) {
-            throw new RuntimeIOException(e);
-        }
+        return position;
     }
 
 
@@ -773,75 +985,65 @@ public class FileUtils {
     public static List<Path> goInBreadth(Path root) {
         if (root == null) throw new NullPointerException("root is null");
         if (Files.notExists(root)) throw new IllegalArgumentException("root doesn't exist: " + root);
-        return goInWidth(new LinkedList<>(List.of(root)));
+        return goInBreadthStream(root).sequential().toList();
+    }
+
+    /**
+     * The method goes around the part of the file tree of gotten root selected by the traversal options
+     * in breadth. The bypass is in the same order as {@link FileUtils#goInBreadth(Path)} has.
+     *
+     * @param root    the path of the root file which is gone around.
+     * @param options the traversal options.
+     * @return the list of accepted files.
+     * @throws NullPointerException     if {@code root} or {@code options} is null.
+     * @throws IllegalArgumentException if {@code root} doesn't exist.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during listing directories.
+     * @see FileUtils#goInBreadthStream(Path, TraversalOptions)
+     */
+    public static List<Path> goInBreadth(Path root, TraversalOptions options) {
+        return goInBreadthStream(root, options).sequential().toList();
     }
 
     /**
      * The method goes around the file tree of gotten root in breadth. The bypass is in order the first is
      * root file,the next is the first generation of root descendants (file entries of root file),the second
-     * generation (file entries of the first generation) and so on.
+     * generation (file entries of the first generation) and so on.<br>
+     * The returned stream is parallel: its spliterator hands off pending subdirectories when it is split,
+     * so the subtrees are walked by all workers of the pool and the files come in no particular order.
+     * The sequential stream keeps the bypass order. The type of every file is read once, when its
+     * parent directory is listed.
      *
      * @param root the path of the root file which is gone around.
-     * @return the stream of all gone files.
+     * @return the parallel stream of all gone files.
      * @throws NullPointerException     if {@code  root} is null.
      * @throws IllegalArgumentException if {@code root} doesn't exist.
      */
     public static Stream<Path> goInBreadthStream(Path root) {
-        Iterator<Path> iterator = new Iterator<>() {
-            final LinkedList<Path> next = new LinkedList<>(List.of(root));
-
-            @Override
-            public boolean hasNext() {
-                return !next.isEmpty();
-            }
-
-            @Override
-            public Path next() {
-                Path current = next.pollFirst();
-                if (isDirectory(current))
-                    next.addAll(children(current));
-                return current;
-            }
-
-        };
-        Spliterator<Path> spliterator =
-                Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT);
-        return StreamSupport.stream(spliterator, true);
+        return goInBreadthStream(root, new TraversalOptions());
     }
 
-
-    private static void moveFile(Path src, Path target) throws IOException {
-        if (Files.isDirectory(src)) {
-            Files.createDirectory(target);
-            for (Path child : children(src)) {
-                Path childTarget = Path.of(target.toString(), child.getFileName().toString());
-                if (Files.isDirectory(child)) {
-                    moveFile(child, childTarget);
-                } else {
-                    Files.move(child, childTarget);
-                }
-            }
-        } else {
-            Files.move(src, target);
-        }
-        Files.deleteIfExists(src);
+    /**
+     * The method goes around the part of the file tree of gotten root selected by the traversal options
+     * in breadth and returns the files accepted by them. The directories deeper than the maximum depth
+     * or pruned aren't listed, so the bypass costs only the walked part of the tree.<br>
+     * The returned stream is parallel and lazy: the files come in no particular order (the sequential
+     * stream keeps the bypass order) and a short-circuiting operation such as {@link Stream#findFirst()}
+     * or {@link Stream#anyMatch(java.util.function.Predicate)} stops the bypass.
+     *
+     * @param root    the path of the root file which is gone around.
+     * @param options the traversal options.
+     * @return the parallel stream of accepted files.
+     * @throws NullPointerException     if {@code root} or {@code options} is null.
+     * @throws IllegalArgumentException if {@code root} doesn't exist.
+     * @throws RuntimeIOException       if {@link IOException} is thrown during listing directories.
+     */
+    public static Stream<Path> goInBreadthStream(Path root, TraversalOptions options) {
+        if (root == null) throw new NullPointerException("root is null");
+        if (options == null) throw new NullPointerException("options is null");
+        if (Files.notExists(root)) throw new IllegalArgumentException("root doesn't exist: " + root);
+        return StreamSupport.stream(new TreeSpliterator(root, options), true);
     }
 
-    private static void copyFile(Path src, Path target) throws IOException {
-        if (Files.isDirectory(src)) {
-            Files.createDirectory(target);
-            for (Path child : children(src)) {
-                Path childTarget = Path.of(target.toString(), child.getFileName().toString());
-                if (Files.isDirectory(child)) {
-                    copyFile(child, childTarget);
-                } else {
-                    Files.copy(child, childTarget);
-                }
-            }
-        } else {
-            Files.copy(src, target);
-        }
-    }
 
     private static String getCopiedFileName(Path src, int number) {
         String srcName = src.getFileName().toString();
@@ -855,16 +1057,4 @@ public class FileUtils {
             return String.join(".", parts);
         }
     }
-
-    private static List<Path> goInWidth(LinkedList<Path> next) {
-        List<Path> bypassed = new ArrayList<>();
-        if (next.isEmpty()) return bypassed;
-        while (!next.isEmpty()) {
-            Path temp = next.pollFirst();
-            bypassed.add(temp);
-            if (isDirectory(temp))
-                next.addAll(children(temp));
-        }
-        return bypassed;
-    }
 }
@@ -0,0 +1,39 @@
+package com.branow.file.kit.utils;
+
+import java.time.Duration;
+
+/**
+ * The {@code OperationListener} is notified about the course of a bulk file operation through its
+ * {@link OperationProgress}. All methods do nothing by default. The method {@link OperationListener#progressed(OperationProgress)}
+ * is called after every processed entry, possibly by several worker threads at once, so it must be
+ * thread-safe and cheap (for example, it may print the progress only once per second).
+ */
+public interface OperationListener {
+
+    /**
+     * The method is called when the operation starts a phase (for example, "copy" or "delete").
+     *
+     * @param progress The progress of the operation.
+     * @param phase    The name of the phase.
+     */
+    default void phaseStarted(OperationProgress progress, String phase) {
+    }
+
+    /**
+     * The method is called when the operation ends a phase, also if the phase fails or is cancelled.
+     *
+     * @param progress The progress of the operation.
+     * @param phase    The name of the phase.
+     * @param duration The duration of the phase.
+     */
+    default void phaseEnded(OperationProgress progress, String phase, Duration duration) {
+    }
+
+    /**
+     * The method is called after every processed file or directory.
+     *
+     * @param progress The progress of the operation.
+     */
+    default void progressed(OperationProgress progress) {
+    }
+}
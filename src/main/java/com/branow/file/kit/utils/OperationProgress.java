@@ -0,0 +1,254 @@
+package com.branow.file.kit.utils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code OperationProgress} is a handle of a long-running bulk file operation. The operation counts
+ * the processed files, directories and bytes in it, so they can be watched from another thread, and checks
+ * it between entries: after {@link OperationProgress#cancel()} the operation stops at the next entry
+ * and throws {@link CancellationException}. The counters are thread-safe, so one handle can be shared
+ * by all workers of a parallel operation.<br><br>
+ * <p>
+ * Operations that walk a tree before or while processing it also count the discovered files and bytes;
+ * when the walk is completed, the remaining time is estimated from the current throughput. Operations
+ * divide their work into named phases, which durations are measured. An optional {@link OperationListener}
+ * is notified about phases and processed entries.
+ */
+public class OperationProgress {
+
+    private static final OperationListener NO_LISTENER = new OperationListener() {
+    };
+
+    private final OperationListener listener;
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong directories = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong discoveredFiles = new AtomicLong();
+    private final AtomicLong discoveredBytes = new AtomicLong();
+    private final Map<String, Duration> phases = new LinkedHashMap<>();
+    private volatile boolean discoveryCompleted;
+    private volatile boolean cancelled;
+    private volatile long start = -1;
+    private String phase;
+    private long phaseStart;
+
+    /**
+     * Creates the progress without a listener.
+     */
+    public OperationProgress() {
+        this(NO_LISTENER);
+    }
+
+    /**
+     * Creates the progress with the listener.
+     *
+     * @param listener The listener of the operation.
+     * @throws NullPointerException if {@code listener} is null.
+     */
+    public OperationProgress(OperationListener listener) {
+        if (listener == null) throw new NullPointerException("listener is null");
+        this.listener = listener;
+    }
+
+    /**
+     * Requests the cancellation of the operation. The operation stops at the next entry,
+     * the entries processed before remain processed.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return {@code True} if the cancellation is requested.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks the cancellation. The method is called by operations between entries.
+     *
+     * @throws CancellationException if the cancellation is requested.
+     */
+    public void checkCancelled() {
+        if (cancelled)
+            throw new CancellationException("The operation is cancelled");
+    }
+
+    /**
+     * Ends the current phase and starts the next one. The method is called by operations.
+     *
+     * @param name The name of the phase.
+     */
+    public void phase(String name) {
+        if (name == null) throw new NullPointerException("name is null");
+        synchronized (this) {
+            endPhase();
+            long now = System.nanoTime();
+            if (start == -1)
+                start = now;
+            phase = name;
+            phaseStart = now;
+        }
+        listener.phaseStarted(this, name);
+    }
+
+    /**
+     * Ends the current phase, if there is one. The duration of a phase that is started several times
+     * is summed. The method is called by operations.
+     */
+    public void endPhase() {
+        String ended;
+        Duration duration;
+        synchronized (this) {
+            if (phase == null)
+                return;
+            ended = phase;
+            duration = Duration.ofNanos(System.nanoTime() - phaseStart);
+            phases.merge(ended, duration, Duration::plus);
+            phase = null;
+        }
+        listener.phaseEnded(this, ended, duration);
+    }
+
+    /**
+     * Counts a file found by the walk of an operation. The method is called by operations.
+     *
+     * @param size The number of bytes of the file that will be processed.
+     */
+    public void fileDiscovered(long size) {
+        discoveredFiles.incrementAndGet();
+        discoveredBytes.addAndGet(size);
+    }
+
+    /**
+     * Marks the walk of the operation as completed, so the discovered totals are final.
+     * The method is called by operations.
+     */
+    public void discoveryCompleted() {
+        discoveryCompleted = true;
+    }
+
+    /**
+     * Counts a processed file. The method is called by operations.
+     *
+     * @param size The number of bytes of the file processed.
+     */
+    public void fileProcessed(long size) {
+        files.incrementAndGet();
+        bytes.addAndGet(size);
+        listener.progressed(this);
+    }
+
+    /**
+     * Counts a processed directory. The method is called by operations.
+     */
+    public void directoryProcessed() {
+        directories.incrementAndGet();
+        listener.progressed(this);
+    }
+
+    /**
+     * @return The number of processed files (all entries except directories).
+     */
+    public long files() {
+        return files.get();
+    }
+
+    /**
+     * @return The number of processed directories.
+     */
+    public long directories() {
+        return directories.get();
+    }
+
+    /**
+     * @return The number of processed bytes.
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return The number of files found by the walk of the operation so far.
+     */
+    public long discoveredFiles() {
+        return discoveredFiles.get();
+    }
+
+    /**
+     * @return The number of bytes of files found by the walk of the operation so far.
+     */
+    public long discoveredBytes() {
+        return discoveredBytes.get();
+    }
+
+    /**
+     * @return The time since the first phase was started.
+     */
+    public Duration elapsed() {
+        long started = start;
+        return started == -1 ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - started);
+    }
+
+    /**
+     * @return The average number of processed bytes per second since the first phase was started.
+     */
+    public double throughput() {
+        return perSecond(bytes());
+    }
+
+    /**
+     * @return The average number of processed files per second since the first phase was started.
+     */
+    public double fileThroughput() {
+        return perSecond(files());
+    }
+
+    /**
+     * The method estimates the remaining time of the operation from its throughput. The estimation is
+     * based on bytes if the discovered files have any, otherwise on the number of files.
+     *
+     * @return The estimated remaining time, or empty if the walk isn't completed or nothing is processed yet.
+     */
+    public Optional<Duration> eta() {
+        if (!discoveryCompleted)
+            return Optional.empty();
+        long totalBytes = discoveredBytes();
+        double remaining = totalBytes > 0 ? totalBytes - bytes() : discoveredFiles() - files();
+        double rate = totalBytes > 0 ? throughput() : fileThroughput();
+        if (remaining <= 0)
+            return Optional.of(Duration.ZERO);
+        if (rate <= 0)
+            return Optional.empty();
+        return Optional.of(Duration.ofNanos((long) (remaining / rate * 1e9)));
+    }
+
+    /**
+     * @return The unmodifiable map of names of phases to their durations in the order of starting;
+     * the duration of the current phase is measured till now.
+     */
+    public synchronized Map<String, Duration> phases() {
+        Map<String, Duration> result = new LinkedHashMap<>(phases);
+        if (phase != null)
+            result.merge(phase, Duration.ofNanos(System.nanoTime() - phaseStart), Duration::plus);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private double perSecond(long count) {
+        long nanos = elapsed().toNanos();
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + files() + " : " + directories() + " : " + bytes()
+                + (cancelled ? " : cancelled" : "") + " ]";
+    }
+}
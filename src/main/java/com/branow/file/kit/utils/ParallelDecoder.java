@@ -0,0 +1,205 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * This class contains static methods for validating and decoding the content of big text files
+ * in parallel. The file is split into chunks (one per processor core by default), the boundary of
+ * every chunk is moved forward to the nearest start of a character, then the chunks are mapped
+ * into memory and validated or decoded concurrently. The results of decoding are stitched
+ * together in the order of the chunks.<br><br>
+ * <p>
+ * Only charsets in which the start of a character can be recognized by the byte itself are
+ * split: {@link StandardCharsets#UTF_8} and single-byte charsets (such as
+ * {@link StandardCharsets#ISO_8859_1} or {@link StandardCharsets#US_ASCII}). The content of files
+ * in any other charset (including decode-only charsets) is processed as one chunk, so it cannot
+ * be longer than one mapped region.
+ */
+public class ParallelDecoder {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
+    /**
+     * The method tests whether the content of this file is a valid sequence of characters in the given charset.
+     * The method is based on calling {@link ParallelDecoder#validate(Path, Charset, int)} with the number of
+     * available processors as the parallelism.
+     *
+     * @param path The path of the file which content is validated.
+     * @param charset The charset of the file content.
+     * @return {@code true} - if the file doesn't contain malformed or unmappable bytes.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see ParallelDecoder#validate(Path, Charset, int)
+     */
+    public static boolean validate(Path path, Charset charset) {
+        return validate(path, charset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The method tests whether the content of this file is a valid sequence of characters in the given charset.
+     * The chunks of the file are validated concurrently, and none of them is decoded into a string.
+     *
+     * @param path The path of the file which content is validated.
+     * @param charset The charset of the file content.
+     * @param parallelism The maximum number of chunks which are validated concurrently.
+     * @return {@code true} - if the file doesn't contain malformed or unmappable bytes.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws IllegalStateException if the charset isn't split and the file is too long for one chunk.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     */
+    public static boolean validate(Path path, Charset charset, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunks(fc, path, charset, parallelism);
+            return IntStream.range(0, bounds.length - 1).parallel()
+                    .allMatch(i -> isValid(map(fc, bounds[i], bounds[i + 1]), charset));
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method reads string from this file decoding its chunks in parallel. Malformed and unmappable
+     * bytes are replaced as {@link Charset#decode(ByteBuffer)} does, so the result is equal to the one of
+     * {@link FileIOUtils#readString(Path, Charset)}. The method is based on calling
+     * {@link ParallelDecoder#decode(Path, Charset, int)} with the number of available processors as the parallelism.
+     *
+     * @param path The path of the file which content is decoded.
+     * @param charset The charset of the file content.
+     * @return The string of the file content.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     * @see ParallelDecoder#decode(Path, Charset, int)
+     */
+    public static String decode(Path path, Charset charset) {
+        return decode(path, charset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The method reads string from this file decoding its chunks in parallel. Malformed and unmappable
+     * bytes are replaced as {@link Charset#decode(ByteBuffer)} does, so the result is equal to the one of
+     * {@link FileIOUtils#readString(Path, Charset)}.
+     *
+     * @param path The path of the file which content is decoded.
+     * @param charset The charset of the file content.
+     * @param parallelism The maximum number of chunks which are decoded concurrently.
+     * @return The string of the file content.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     * @throws IllegalStateException if the file content is too long for a string, or the charset
+     * isn't split and the file is too long for one chunk.
+     * @throws RuntimeIOException if an {@link IOException} is thrown during reading.
+     */
+    public static String decode(Path path, Charset charset, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunks(fc, path, charset, parallelism);
+            CharBuffer[] parts = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> decode(map(fc, bounds[i], bounds[i + 1]), charset))
+                    .toArray(CharBuffer[]::new);
+
+            long length = 0;
+            for (CharBuffer part : parts) {
+                length += part.remaining();
+            }
+            if (length > MAX_CHUNK_SIZE)
+                throw new IllegalStateException("The file content is too long for a string: " + path);
+
+            StringBuilder sb = new StringBuilder((int) length);
+            for (CharBuffer part : parts) {
+                sb.append(part);
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+
+    private static long[] chunks(FileChannel fc, Path path, Charset charset, int parallelism) throws IOException {
+        long size = fc.size();
+        int count = 1;
+        if (isSplittable(charset)) {
+            count = (int) Math.max(1, Math.min(parallelism, size / MIN_CHUNK_SIZE));
+            count = (int) Math.max(count, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        } else if (size > MAX_CHUNK_SIZE) {
+            throw new IllegalStateException("The file content is too long for one chunk of " + charset + ": " + path);
+        }
+
+        long[] bounds = new long[count + 1];
+        bounds[count] = size;
+        ByteBuffer head = ByteBuffer.allocate(4);
+        for (int i = 1; i < count; i++) {
+            long pos = Math.max(bounds[i - 1], size / count * i);
+            head.clear();
+            fc.read(head, pos);
+            head.flip();
+            int skipped = 0;
+            while (head.hasRemaining() && !isCharStart(head.get(), charset)) {
+                skipped++;
+            }
+            bounds[i] = Math.min(size, pos + skipped);
+        }
+        return bounds;
+    }
+
+    private static boolean isSplittable(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+                || (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f);
+    }
+
+    private static boolean isCharStart(byte b, Charset charset) {
+        return !charset.equals(StandardCharsets.UTF_8) || (b & 0xC0) != 0x80;
+    }
+
+    private static ByteBuffer map(FileChannel fc, long from, long to) {
+        try {
+            return fc.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private static boolean isValid(ByteBuffer in, Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        while (true) {
+            CoderResult result = decoder.decode(in, out, true);
+            if (result.isError())
+                return false;
+            if (result.isUnderflow())
+                break;
+            out.clear();
+        }
+        out.clear();
+        return !decoder.flush(out).isError();
+    }
+
+    private static CharBuffer decode(ByteBuffer in, Charset charset) {
+        try {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(in);
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.branow.file.kit.utils;
+
+/**
+ * The {@code SyncOptions} describes how a directory is synchronized by {@link FileSynchronizer}.
+ * By default files are compared by size and last modified time, extraneous target files are kept and
+ * the parallelism equals to the number of available processors. The setters return this options,
+ * so they can be chained: {@code new SyncOptions().compareContent(true).deleteExtraneous(true)}.
+ */
+public class SyncOptions {
+
+    private boolean compareContent;
+    private boolean deleteExtraneous;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Sets whether files of the same size are compared by content. Without it files of the same size
+     * and last modified time are considered equal; with it the time is ignored and the contents are compared.
+     *
+     * @param compareContent {@code True} to compare contents.
+     * @return This options.
+     */
+    public SyncOptions compareContent(boolean compareContent) {
+        this.compareContent = compareContent;
+        return this;
+    }
+
+    /**
+     * Sets whether the files of the target that don't exist in the source are deleted.
+     *
+     * @param deleteExtraneous {@code True} to delete extraneous files.
+     * @return This options.
+     */
+    public SyncOptions deleteExtraneous(boolean deleteExtraneous) {
+        this.deleteExtraneous = deleteExtraneous;
+        return this;
+    }
+
+    /**
+     * Sets the number of files compared and copied concurrently.
+     *
+     * @param parallelism The number of workers.
+     * @return This options.
+     * @throws IllegalArgumentException if {@code parallelism} is less than one.
+     */
+    public SyncOptions parallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @return {@code True} if files of the same size are compared by content.
+     */
+    public boolean compareContent() {
+        return compareContent;
+    }
+
+    /**
+     * @return {@code True} if extraneous files of the target are deleted.
+     */
+    public boolean deleteExtraneous() {
+        return deleteExtraneous;
+    }
+
+    /**
+     * @return The number of files compared and copied concurrently.
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + compareContent + " : " + deleteExtraneous + " : " + parallelism + " ]";
+    }
+}
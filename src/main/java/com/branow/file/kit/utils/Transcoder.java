@@ -0,0 +1,354 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class contains static methods for converting text files from one charset to another.
+ * The file is streamed through a {@link CharsetDecoder} and {@link CharsetEncoder} pair with
+ * fixed buffers, so the content is never held in the heap as a whole. Malformed and unmappable
+ * characters are replaced like in {@link FileIOUtils#readString(Path, Charset)} and
+ * {@link FileIOUtils#overwrite(Path, String, Charset)}.<br><br>
+ * <p>
+ * If both charsets encode ASCII characters by the same single bytes (for example, US-ASCII,
+ * ISO-8859-1 and UTF-8), runs of ASCII bytes are copied to the output without decoding.
+ */
+public class Transcoder {
+
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    /**
+     * The method converts the source file in the source charset to the target file in the target charset.
+     * The target file is created or overwritten.
+     *
+     * @param source        The path of the file to convert.
+     * @param sourceCharset The charset of the source file data.
+     * @param target        The path of the file to write the converted data.
+     * @param targetCharset The charset of the target file data.
+     * @return The result of the conversion.
+     * @throws NullPointerException if any argument is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading or writing.
+     */
+    public static Result transcode(Path source, Charset sourceCharset, Path target, Charset targetCharset) {
+        if (source == null) throw new NullPointerException("source is null");
+        if (sourceCharset == null) throw new NullPointerException("sourceCharset is null");
+        if (target == null) throw new NullPointerException("target is null");
+        if (targetCharset == null) throw new NullPointerException("targetCharset is null");
+
+        long start = System.nanoTime();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = transcode(in, sourceCharset, out, targetCharset);
+            return new Result(target, in.size(), written, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method converts the file in the source charset to the target charset in place. The converted
+     * data is written to a temporary file in the same directory, which gets the permissions and the owner
+     * of the file and then replaces it (atomically if the file system supports it).
+     *
+     * @param path          The path of the file to convert.
+     * @param sourceCharset The charset of the file data.
+     * @param targetCharset The charset of the converted file data.
+     * @return The result of the conversion.
+     * @throws NullPointerException if any argument is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading or writing.
+     * @see FileIOUtils#replace(Path, Path)
+     */
+    public static Result transcode(Path path, Charset sourceCharset, Charset targetCharset) {
+        if (path == null) throw new NullPointerException("path is null");
+
+        Path absolute = path.toAbsolutePath();
+        try {
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                Result result = transcode(path, sourceCharset, temp, targetCharset);
+                FileIOUtils.replace(path, temp);
+                return new Result(path, result.bytesRead(), result.bytesWritten(), result.nanos());
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    /**
+     * The method converts the data of the input stream in the source charset to the output stream in the
+     * target charset. The streams are read and written by fixed buffers and aren't closed.
+     *
+     * @param source        The input stream of the data to convert.
+     * @param sourceCharset The charset of the source data.
+     * @param target        The output stream to write the converted data.
+     * @param targetCharset The charset of the target data.
+     * @return The result of the conversion, its target is null.
+     * @throws NullPointerException if any argument is null.
+     * @throws RuntimeIOException   if an {@link IOException} is thrown during reading or writing.
+     */
+    public static Result transcode(InputStream source, Charset sourceCharset, OutputStream target, Charset targetCharset) {
+        if (source == null) throw new NullPointerException("source is null");
+        if (sourceCharset == null) throw new NullPointerException("sourceCharset is null");
+        if (target == null) throw new NullPointerException("target is null");
+        if (targetCharset == null) throw new NullPointerException("targetCharset is null");
+
+        long start = System.nanoTime();
+        long[] read = new long[1];
+        ReadableByteChannel in = new ReadableByteChannel() {
+            private final ReadableByteChannel channel = Channels.newChannel(source);
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                int n = channel.read(dst);
+                read[0] += Math.max(0, n);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            long written = transcode(in, sourceCharset, Channels.newChannel(target), targetCharset);
+            target.flush();
+            return new Result(null, read[0], written, System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private static long transcode(ReadableByteChannel in, Charset sourceCharset, WritableByteChannel out, Charset targetCharset) throws IOException {
+        CharsetDecoder decoder = sourceCharset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharsetEncoder encoder = targetCharset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        boolean ascii = isAsciiCompatible(sourceCharset, targetCharset);
+        ByteBuffer bytesIn = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer bytesOut = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long written = 0;
+
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            endOfInput = in.read(bytesIn) < 0;
+            bytesIn.flip();
+            while (true) {
+                if (ascii)
+                    written += copyAscii(bytesIn, out, bytesOut);
+                if (!bytesIn.hasRemaining())
+                    break;
+
+                int limit = bytesIn.limit();
+                int segment = ascii ? nextAscii(bytesIn) : limit;
+                bytesIn.limit(segment);
+                CoderResult result = decoder.decode(bytesIn, chars, endOfInput && segment == limit);
+                if (result.isUnderflow() && bytesIn.hasRemaining() && segment < limit) {
+                    // an incomplete sequence is followed by an ascii byte, so the decoder must see it to replace the sequence
+                    bytesIn.limit(segment + 1);
+                    result = decoder.decode(bytesIn, chars, false);
+                }
+                bytesIn.limit(limit);
+                written += encode(encoder, chars, bytesOut, out, false);
+                if (result.isUnderflow() && bytesIn.hasRemaining() && segment == limit)
+                    break;
+            }
+            bytesIn.compact();
+        }
+
+        bytesIn.flip();
+        while (decoder.decode(bytesIn, chars, true).isOverflow()) {
+            written += encode(encoder, chars, bytesOut, out, false);
+        }
+        while (decoder.flush(chars).isOverflow()) {
+            written += encode(encoder, chars, bytesOut, out, false);
+        }
+        written += encode(encoder, chars, bytesOut, out, true);
+        while (encoder.flush(bytesOut).isOverflow()) {
+            written += drain(bytesOut, out);
+        }
+        written += drain(bytesOut, out);
+        return written;
+    }
+
+    /**
+     * Checks whether both charsets encode ASCII characters by the same single bytes and never use
+     * ASCII bytes inside the sequences of other characters (only UTF-8 and single-byte charsets).
+     */
+    private static boolean isAsciiCompatible(Charset a, Charset b) {
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        String s = new String(ascii, StandardCharsets.US_ASCII);
+        return isAsciiTransparent(a) && isAsciiTransparent(b)
+                && Arrays.equals(ascii, s.getBytes(a)) && Arrays.equals(ascii, s.getBytes(b));
+    }
+
+    private static boolean isAsciiTransparent(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1;
+    }
+
+    private static long copyAscii(ByteBuffer in, WritableByteChannel out, ByteBuffer bytesOut) throws IOException {
+        int from = in.position();
+        int to = nextNonAscii(in);
+        if (from == to)
+            return 0;
+
+        long written = 0;
+        int limit = in.limit();
+        in.limit(to);
+        while (in.hasRemaining()) {
+            if (!bytesOut.hasRemaining())
+                written += drain(bytesOut, out);
+            int length = Math.min(in.remaining(), bytesOut.remaining());
+            int end = in.limit();
+            in.limit(in.position() + length);
+            bytesOut.put(in);
+            in.limit(end);
+        }
+        in.limit(limit);
+        return written;
+    }
+
+    private static long encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer bytesOut,
+                               WritableByteChannel out, boolean endOfInput) throws IOException {
+        long written = 0;
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytesOut, endOfInput);
+            if (result.isError())
+                result.throwException();
+            if (result.isUnderflow())
+                break;
+            written += drain(bytesOut, out);
+        }
+        chars.compact();
+        return written;
+    }
+
+    private static long drain(ByteBuffer bytesOut, WritableByteChannel out) throws IOException {
+        bytesOut.flip();
+        long written = bytesOut.remaining();
+        while (bytesOut.hasRemaining()) {
+            out.write(bytesOut);
+        }
+        bytesOut.clear();
+        return written;
+    }
+
+    private static int nextNonAscii(ByteBuffer buffer) {
+        int i = buffer.position();
+        while (i < buffer.limit() && isAscii(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int nextAscii(ByteBuffer buffer) {
+        int i = buffer.position();
+        while (i < buffer.limit() && !isAscii(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAscii(byte b) {
+        return b >= 0;
+    }
+
+
+    /**
+     * The {@code Result} describes a finished conversion: the numbers of read and written bytes
+     * and the duration of the conversion.
+     */
+    public static class Result {
+
+        private final Path target;
+        private final long bytesRead;
+        private final long bytesWritten;
+        private final long nanos;
+
+        /**
+         * @param target       The path of the converted file or null if the data was written to a stream.
+         * @param bytesRead    The number of read bytes of the source data.
+         * @param bytesWritten The number of written bytes of the converted data.
+         * @param nanos        The duration of the conversion in nanoseconds.
+         */
+        public Result(Path target, long bytesRead, long bytesWritten, long nanos) {
+            this.target = target;
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return The path of the converted file or null if the data was written to a stream.
+         */
+        public Path target() {
+            return target;
+        }
+
+        /**
+         * @return The number of read bytes of the source file.
+         */
+        public long bytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * @return The number of written bytes of the converted file.
+         */
+        public long bytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         * @return The duration of the conversion in nanoseconds.
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * @return The number of read bytes of the source file per second.
+         */
+        public double bytesPerSecond() {
+            return nanos == 0 ? bytesRead : bytesRead * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return this.getClass().getSimpleName() + "[ " + target + " : " + bytesRead + " : " + bytesWritten + " : " + nanos + " ]";
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.branow.file.kit.utils;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code TraversalOptions} describes which part of a file tree is walked by
+ * {@link FileUtils#goInBreadthStream(Path, TraversalOptions)} and which files are returned. By default
+ * the whole tree is walked and every file is returned. The setters return this options, so they can be
+ * chained: {@code new TraversalOptions().maxDepth(2).glob("*.txt")}.<br><br>
+ * <p>
+ * The depth of the root is zero, the depth of its entries is one and so on. A directory is listed only if
+ * its depth is less than the maximum depth and it isn't pruned, so the files under it cost nothing. The
+ * filter and the name pattern select the returned files: they are applied to every entry while its
+ * directory is listed, and a rejected directory is still walked.
+ */
+public class TraversalOptions {
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private Predicate<? super Path> prune = e -> false;
+    private BiPredicate<? super Path, ? super BasicFileAttributes> filter = (e, attrs) -> true;
+    private PathMatcher names = e -> true;
+
+    /**
+     * Sets the maximum depth of returned files; the directories of this depth aren't listed.
+     *
+     * @param maxDepth The maximum depth, zero to return only the root.
+     * @return This options.
+     * @throws IllegalArgumentException if {@code maxDepth} is negative.
+     */
+    public TraversalOptions maxDepth(int maxDepth) {
+        if (maxDepth < 0) throw new IllegalArgumentException("maxDepth is negative: " + maxDepth);
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Sets the predicate of directories that aren't listed. The predicate is tested on a directory before
+     * descending into it; the pruned directory itself is returned if it is accepted by the filter.
+     *
+     * @param prune The predicate of pruned directories.
+     * @return This options.
+     * @throws NullPointerException if {@code prune} is null.
+     */
+    public TraversalOptions prune(Predicate<? super Path> prune) {
+        if (prune == null) throw new NullPointerException("prune is null");
+        this.prune = prune;
+        return this;
+    }
+
+    /**
+     * Sets the filter of returned files. The filter gets the attributes of a file read during
+     * listing, so testing the type or size of the file costs no more file system calls.
+     *
+     * @param filter The filter of files.
+     * @return This options.
+     * @throws NullPointerException if {@code filter} is null.
+     */
+    public TraversalOptions filter(BiPredicate<? super Path, ? super BasicFileAttributes> filter) {
+        if (filter == null) throw new NullPointerException("filter is null");
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Sets the glob pattern of names of returned files. It replaces a regular expression set before.
+     *
+     * @param glob The glob pattern of file names.
+     * @return This options.
+     * @throws NullPointerException     if {@code glob} is null.
+     * @throws IllegalArgumentException if {@code glob} is invalid.
+     * @see java.nio.file.FileSystem#getPathMatcher(String)
+     */
+    public TraversalOptions glob(String glob) {
+        if (glob == null) throw new NullPointerException("glob is null");
+        this.names = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return this;
+    }
+
+    /**
+     * Sets the regular expression which names of returned files match entirely. It replaces
+     * a glob pattern set before.
+     *
+     * @param regex The regular expression of file names.
+     * @return This options.
+     * @throws NullPointerException     if {@code regex} is null.
+     * @throws IllegalArgumentException if {@code regex} is invalid.
+     */
+    public TraversalOptions regex(String regex) {
+        if (regex == null) throw new NullPointerException("regex is null");
+        Pattern pattern = Pattern.compile(regex);
+        this.names = e -> pattern.matcher(e.toString()).matches();
+        return this;
+    }
+
+    /**
+     * @return The maximum depth of returned files.
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param dir The path of the directory.
+     * @return {@code True} if the directory isn't listed.
+     */
+    public boolean prunes(Path dir) {
+        return prune.test(dir);
+    }
+
+    /**
+     * @param path  The path of the file.
+     * @param attrs The attributes of the file.
+     * @return {@code True} if the file is returned: its name matches the pattern and it is accepted by the filter.
+     */
+    public boolean accepts(Path path, BasicFileAttributes attrs) {
+        Path name = path.getFileName();
+        return names.matches(name == null ? path : name) && filter.test(path, attrs);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "[ " + maxDepth + " ]";
+    }
+}
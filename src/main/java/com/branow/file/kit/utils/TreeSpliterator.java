@@ -0,0 +1,156 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.io.RuntimeIOException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * The {@code TreeSpliterator} walks a file tree in breadth. It keeps the queue of pending entries with
+ * their attributes, which are read once when the parent directory is listed, so the type of an entry
+ * costs no more file system calls. A directory is listed when it is taken from the queue, its entries are
+ * added to the end of the queue. The {@link TraversalOptions} are applied during listing: the entries
+ * rejected by the filter are queued only if they are directories to descend into, and the directories
+ * of the maximum depth or pruned ones aren't listed. The walk is lazy, so a short-circuiting stream
+ * operation stops it.<br><br>
+ * <p>
+ * {@link TreeSpliterator#trySplit()} hands off every second pending entry, so the pending subdirectories
+ * are shared between the spliterators and a parallel stream walks the subtrees on all workers of the pool,
+ * which steal the split parts from each other. If only one directory is pending, it is listed before
+ * splitting, so the walk of a single root is split too. A sequential walk goes in breadth; the split parts
+ * are walked independently, so a parallel walk has no encounter order.
+ */
+class TreeSpliterator implements Spliterator<Path> {
+
+    private final TraversalOptions options;
+    private final Deque<Entry> pending;
+
+    /**
+     * @param root    The path of the root file of the tree.
+     * @param options The options of the traversal.
+     * @throws RuntimeIOException if there is thrown {@link IOException} during reading attributes of the root.
+     */
+    TreeSpliterator(Path root, TraversalOptions options) {
+        this(options, new ArrayDeque<>());
+        try {
+            BasicFileAttributes attrs = attributes(root);
+            pending.add(new Entry(root, attrs, 0, options.accepts(root, attrs)));
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private TreeSpliterator(TraversalOptions options, Deque<Entry> pending) {
+        this.options = options;
+        this.pending = pending;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+        Entry entry;
+        do {
+            entry = pending.pollFirst();
+            if (entry == null)
+                return false;
+            if (descends(entry))
+                list(entry);
+        } while (!entry.accepted);
+        action.accept(entry.path);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Path> trySplit() {
+        if (pending.size() == 1) {
+            Entry entry = pending.peekFirst();
+            if (descends(entry))
+                list(entry);
+        }
+        if (pending.size() < 2)
+            return null;
+
+        Deque<Entry> kept = new ArrayDeque<>();
+        Deque<Entry> handed = new ArrayDeque<>();
+        boolean keep = true;
+        for (Entry entry : pending) {
+            (keep ? kept : handed).add(entry);
+            keep = !keep;
+        }
+        pending.clear();
+        pending.addAll(kept);
+        return new TreeSpliterator(options, handed);
+    }
+
+    @Override
+    public long estimateSize() {
+        return pending.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+
+
+    private boolean descends(Entry entry) {
+        return entry.attrs.isDirectory() && !entry.listed && entry.depth < options.maxDepth()
+                && !options.prunes(entry.path);
+    }
+
+    private void list(Entry dir) {
+        dir.listed = true;
+        int depth = dir.depth + 1;
+        boolean leaves = depth == options.maxDepth();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.path)) {
+            for (Path child : stream) {
+                try {
+                    BasicFileAttributes attrs = attributes(child);
+                    boolean accepted = options.accepts(child, attrs);
+                    if (accepted || (attrs.isDirectory() && !leaves))
+                        pending.add(new Entry(child, attrs, depth, accepted));
+                } catch (NoSuchFileException e) {
+                    // the entry is deleted after listing
+                }
+            }
+        } catch (DirectoryIteratorException e) {
+            throw new RuntimeIOException(e.getCause());
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // a broken symbolic link
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    private static class Entry {
+
+        private final Path path;
+        private final BasicFileAttributes attrs;
+        private final int depth;
+        private final boolean accepted;
+        private boolean listed;
+
+        private Entry(Path path, BasicFileAttributes attrs, int depth, boolean accepted) {
+            this.path = path;
+            this.attrs = attrs;
+            this.depth = depth;
+            this.accepted = accepted;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+public class ByteFileTest extends JUnitTest {
+
+    public ByteFileTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/byte-file-test"));
+    }
+
+    @Test
+    public void appendBytes() {
+        Path path = path("append.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        file.appendBytes(new byte[] {1, 2, 3});
+        file.appendBytes(new byte[] {4, 5});
+        Assertions.assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, file.readBytes());
+
+        file.appendBytes(new byte[] {9, 9}, 1);
+        Assertions.assertArrayEquals(new byte[] {1, 9, 9, 2, 3, 4, 5}, file.readBytes());
+    }
+}
@@ -0,0 +1,126 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class ByteFileViewTest extends JUnitTest {
+
+    public ByteFileViewTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/byte-file-view-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideOrder")
+    public void readTyped(ByteOrder order) {
+        Path path = path("typed.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        ByteBuffer buffer = ByteBuffer.allocate(31).order(order);
+        buffer.put((byte) -7).putShort((short) 1234).putInt(-56789).putLong(Long.MIN_VALUE + 3)
+                .putFloat(1.5f).putDouble(-2.25).putShort((short) -1);
+        file.writeBytes(buffer.array());
+
+        try (ByteFileView view = file.view().order(order)) {
+            Assertions.assertEquals(31, view.size());
+            Assertions.assertEquals((byte) -7, view.readByte(0));
+            Assertions.assertEquals((short) 1234, view.readShort(1));
+            Assertions.assertEquals(-56789, view.readInt(3));
+            Assertions.assertEquals(Long.MIN_VALUE + 3, view.readLong(7));
+            Assertions.assertEquals(1.5f, view.readFloat(15));
+            Assertions.assertEquals(-2.25, view.readDouble(19));
+            Assertions.assertEquals((short) -1, view.readShort(27));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> view.readInt(28));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> view.readByte(-1));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideOrder")
+    public void writeTyped(ByteOrder order) {
+        Path path = path("written.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        file.writeBytes(new byte[10]);
+
+        try (ByteFileView view = file.view().order(order)) {
+            view.writeInt(2, 0x01020304);
+            view.writeDouble(12, Math.PI);
+            view.writeByte(0, (byte) 9);
+            view.writeShort(20, (short) -2);
+            view.writeFloat(22, -0.5f);
+            view.writeLong(26, 42);
+            Assertions.assertEquals(34, view.size());
+            Assertions.assertEquals(0x01020304, view.readInt(2));
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(file.readBytes()).order(order);
+        Assertions.assertEquals(34, buffer.capacity());
+        Assertions.assertEquals(9, buffer.get(0));
+        Assertions.assertEquals(0x01020304, buffer.getInt(2));
+        Assertions.assertEquals(0, buffer.getShort(10));
+        Assertions.assertEquals(Math.PI, buffer.getDouble(12));
+        Assertions.assertEquals(-2, buffer.getShort(20));
+        Assertions.assertEquals(-0.5f, buffer.getFloat(22));
+        Assertions.assertEquals(42, buffer.getLong(26));
+    }
+
+    @Test
+    public void readLongs() {
+        Path path = path("longs.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        long[] longs = new Random(7).longs(100_000).toArray();
+        ByteBuffer buffer = ByteBuffer.allocate(3 + longs.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(3);
+        buffer.asLongBuffer().put(longs);
+        file.writeBytes(buffer.array());
+
+        try (ByteFileView view = file.view().order(ByteOrder.LITTLE_ENDIAN)) {
+            long[] dst = new long[longs.length];
+            view.readLongs(3, dst);
+            Assertions.assertArrayEquals(longs, dst);
+
+            long[] part = new long[10];
+            view.readLongs(3 + 500 * Long.BYTES, part);
+            Assertions.assertArrayEquals(Arrays.copyOfRange(longs, 500, 510), part);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> view.readLongs(4, dst));
+
+            long[] reversed = new long[] {longs[1], longs[0]};
+            view.writeLongs(3, reversed);
+            Assertions.assertEquals(longs[1], view.readLong(3));
+            Assertions.assertEquals(longs[0], view.readLong(11));
+        }
+    }
+
+    @Test
+    public void readBeyondWindow() {
+        Path path = path("large.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        long offset = ByteFileView.WINDOW_SIZE - 3;
+        try (ByteFileView view = file.view()) {
+            view.writeLong(offset, 0x1122334455667788L);
+            view.writeInt(5, 77);
+            Assertions.assertEquals(0x1122334455667788L, view.readLong(offset));
+            Assertions.assertEquals(77, view.readInt(5));
+            byte[] bytes = new byte[8];
+            view.readBytes(offset, bytes);
+            Assertions.assertArrayEquals(new byte[] {0x11, 0x22, 0x33, 0x44, 0x55, 0x66, 0x77, (byte) 0x88}, bytes);
+        }
+        Assertions.assertEquals(offset + 8, file.size());
+    }
+
+    private static Stream<ByteOrder> provideOrder() {
+        return Stream.of(ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN);
+    }
+}
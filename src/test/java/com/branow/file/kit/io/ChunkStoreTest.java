@@ -0,0 +1,97 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+public class ChunkStoreTest extends JUnitTest {
+
+    public ChunkStoreTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/chunk-store-test"));
+    }
+
+    @Test
+    public void storeAndRestore() {
+        byte[] data = new byte[500_000];
+        new Random(3700).nextBytes(data);
+        byte[] similar = data.clone();
+        similar[250_000] ^= 1;
+
+        Path first = path("first.bin");
+        Path second = path("second.bin");
+        create(first);
+        create(second);
+        write(first, data);
+        write(second, similar);
+
+        ChunkStore store = new ChunkStore(path("store/chunks"), 4096);
+        ChunkStore.Manifest firstManifest = store.store(new ByteFile(first), 2);
+        Assertions.assertEquals(data.length, firstManifest.size());
+        Assertions.assertEquals(data.length, firstManifest.writtenBytes());
+        ChunkStore.Manifest secondManifest = store.store(new ByteFile(second), 1);
+        Assertions.assertTrue(secondManifest.writtenBytes() > 0);
+        Assertions.assertTrue(secondManifest.writtenBytes() <= 4096 * 8 * 2);
+        Assertions.assertEquals(0, store.store(new ByteFile(first)).writtenBytes());
+        firstManifest.entries().forEach(e -> Assertions.assertTrue(store.contains(e.hash())));
+
+        Path manifestPath = path("second.manifest");
+        secondManifest.write(manifestPath);
+        ChunkStore.Manifest read = ChunkStore.Manifest.read(manifestPath);
+        Assertions.assertEquals(secondManifest.size(), read.size());
+        Assertions.assertEquals(secondManifest.entries().size(), read.entries().size());
+
+        Path restored = path("restored.bin");
+        store.restore(firstManifest, restored);
+        Assertions.assertArrayEquals(data, read(restored));
+        store.restore(read, restored);
+        Assertions.assertArrayEquals(similar, read(restored));
+    }
+
+    @Test
+    public void restoreMissingChunk() {
+        Path source = path("source.bin");
+        create(source);
+        write(source, "some content".getBytes());
+        ChunkStore store = new ChunkStore(path("missing"));
+        ChunkStore.Manifest manifest = store.store(new ByteFile(source));
+        delete(store.chunkPath(manifest.entries().get(0).hash()));
+        Assertions.assertThrows(IllegalStateException.class, () -> store.restore(manifest, path("restored.bin")));
+    }
+
+    @Test
+    public void restoreCorruptedChunk() {
+        Path source = path("corrupted.bin");
+        create(source);
+        write(source, "some content".getBytes());
+        ChunkStore store = new ChunkStore(path("corrupted"));
+        ChunkStore.Manifest manifest = store.store(new ByteFile(source));
+        write(store.chunkPath(manifest.entries().get(0).hash()), "same length!".getBytes());
+        Assertions.assertThrows(IllegalStateException.class, () -> store.restore(manifest, path("restored.bin")));
+    }
+
+    @Test
+    public void invalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChunkStore(path("invalid"), 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChunkStore(path("invalid"), 1000));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChunkStore(path("invalid"), 1 << 28));
+        ChunkStore store = new ChunkStore(path("invalid"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.chunkPath("../../../etc"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.chunkPath("AB".repeat(32)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.contains("ab".repeat(31)));
+        Assertions.assertFalse(store.contains("ab".repeat(32)));
+    }
+
+    @Test
+    public void rejectCompressedFile() {
+        Path path = path("compressed.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        file.appendBytes("some chunks".getBytes());
+
+        ChunkStore store = new ChunkStore(path("compressed/chunks"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.store(file));
+    }
+}
@@ -0,0 +1,249 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import com.branow.file.kit.utils.FileDelta;
+import com.branow.file.kit.utils.FileHasher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class CompressedByteFileTest extends JUnitTest {
+
+    public CompressedByteFileTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/compressed-byte-file-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void readBytes(byte[] data) {
+        Path path = path("read.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        file.appendBytes(data);
+
+        Assertions.assertEquals(data.length, file.uncompressedSize());
+        Assertions.assertArrayEquals(data, file.readBytes());
+        Assertions.assertArrayEquals(Arrays.copyOf(data, Math.min(data.length, 100)), file.readBytes(100));
+        int off = data.length / 3;
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, off, data.length), file.readBytes((long) off));
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, off, Math.min(data.length, off + 70000)), file.readBytes(off, 70000));
+        try (InputStream in = file.newInputStream()) {
+            Assertions.assertArrayEquals(data, in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Assertions.assertArrayEquals(data, new CompressedByteFile(path).readBytes());
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void writeBytes(byte[] data) {
+        Path path = path("write.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        byte[] expected = data.clone();
+        for (int i = 0; i < 10; i++) {
+            file.appendBytes(Arrays.copyOfRange(data, i * data.length / 10, (i + 1) * data.length / 10));
+        }
+        Assertions.assertArrayEquals(data, file.readBytes());
+
+        byte[] patch = {1, 2, 3, 4, 5};
+        int off = data.length / 2;
+        System.arraycopy(patch, 0, expected, off, patch.length);
+        file.writeBytes(patch, off);
+        Assertions.assertArrayEquals(expected, file.readBytes());
+
+        expected = concat(Arrays.copyOf(expected, off), patch, Arrays.copyOfRange(expected, off, expected.length));
+        file.appendBytes(patch, off);
+        Assertions.assertArrayEquals(expected, file.readBytes());
+
+        expected = concat(Arrays.copyOf(expected, off + 10), patch);
+        file.overwriteBytes(patch, off + 10);
+        Assertions.assertArrayEquals(expected, file.readBytes());
+
+        file.overwriteBytes(patch);
+        Assertions.assertArrayEquals(patch, file.readBytes());
+    }
+
+    @Test
+    public void writeInMiddle() {
+        Path path = path("middle.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        byte[] data = random(4, 5 * CompressedBlocks.BLOCK_SIZE);
+        file.appendBytes(data);
+        byte[] raw = read(path);
+        int prefix = blockPosition(raw, 3);
+
+        int off = 3 * CompressedBlocks.BLOCK_SIZE + 10;
+        byte[] patch = random(5, 100);
+        file.appendBytes(patch, off);
+        byte[] expected = concat(Arrays.copyOf(data, off), patch, Arrays.copyOfRange(data, off, data.length));
+        Assertions.assertArrayEquals(expected, file.readBytes());
+        Assertions.assertArrayEquals(Arrays.copyOf(raw, prefix), Arrays.copyOf(read(path), prefix));
+
+        file.writeBytes(patch, 10);
+        System.arraycopy(patch, 0, expected, 10, patch.length);
+        Assertions.assertArrayEquals(expected, file.readBytes());
+        Assertions.assertArrayEquals(expected, new CompressedByteFile(path).readBytes());
+    }
+
+    @Test
+    public void view() {
+        Path path = path("view.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        byte[] data = random(6, 3 << 20);
+        file.appendBytes(data);
+        ByteBuffer expected = ByteBuffer.wrap(data);
+
+        try (ByteFileView view = file.view()) {
+            Assertions.assertTrue(view.isReadOnly());
+            Assertions.assertEquals(data.length, view.size());
+            Assertions.assertEquals(expected.getInt(100), view.readInt(100));
+            Assertions.assertEquals(expected.getLong(data.length - 8), view.readLong(data.length - 8));
+            Assertions.assertEquals(expected.getLong((1 << 20) - 4), view.readLong((1 << 20) - 4));
+            byte[] bytes = new byte[(1 << 20) + 10];
+            view.readBytes(1000, bytes);
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 1000, 1000 + bytes.length), bytes);
+            Assertions.assertThrows(ReadOnlyBufferException.class, () -> view.writeInt(0, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> view.readInt(data.length - 2));
+        }
+    }
+
+    @Test
+    public void compress() {
+        Path path = path("compress.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        byte[] data = "compressible line of text\n".repeat(100000).getBytes();
+        file.appendBytes(data);
+        Assertions.assertTrue(file.size() * 10 < data.length);
+    }
+
+    @Test
+    public void applyDelta() {
+        Path oldPath = path("old.bin");
+        Path newPath = path("new.bin");
+        create(oldPath);
+        create(newPath);
+        byte[] data = random(6, 300000);
+        byte[] changed = concat(Arrays.copyOf(data, 1000), "inserted".getBytes(), Arrays.copyOfRange(data, 1000, data.length));
+        CompressedByteFile oldFile = new CompressedByteFile(oldPath);
+        CompressedByteFile newFile = new CompressedByteFile(newPath);
+        oldFile.appendBytes(data);
+        newFile.appendBytes(changed);
+
+        FileDelta.Delta delta = newFile.delta(oldFile.signature(1024));
+        Assertions.assertTrue(delta.literalBytes() < 2 * 1024);
+        Assertions.assertEquals(changed.length, oldFile.applyDelta(delta));
+        Assertions.assertArrayEquals(changed, oldFile.readBytes());
+        Assertions.assertArrayEquals(changed, new CompressedByteFile(oldPath).readBytes());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> oldFile.applyDelta(delta));
+    }
+
+    @Test
+    public void contentEquals() {
+        Path path = path("equal.bin");
+        Path other = path("equal-other.bin");
+        Path plain = path("equal-plain.bin");
+        create(path);
+        create(other);
+        create(plain);
+        byte[] data = random(7, 200000);
+        CompressedByteFile file = new CompressedByteFile(path);
+        CompressedByteFile otherFile = new CompressedByteFile(other);
+        ByteFile plainFile = new ByteFile(plain);
+        file.appendBytes(data);
+        otherFile.appendBytes(Arrays.copyOf(data, 1000));
+        otherFile.appendBytes(Arrays.copyOfRange(data, 1000, data.length));
+        plainFile.overwriteBytes(data);
+
+        Assertions.assertTrue(file.contentEquals(otherFile));
+        Assertions.assertTrue(file.contentEquals(plainFile));
+        Assertions.assertTrue(plainFile.contentEquals(file));
+        Assertions.assertEquals(-1, plainFile.firstMismatch(file));
+
+        otherFile.writeBytes(new byte[] {(byte) (data[150000] ^ 1)}, 150000);
+        Assertions.assertFalse(file.contentEquals(otherFile));
+        Assertions.assertEquals(150000, file.firstMismatch(otherFile));
+        otherFile.overwriteBytes(new byte[0], 5000);
+        Assertions.assertFalse(otherFile.contentEquals(file));
+        Assertions.assertEquals(5000, plainFile.firstMismatch(otherFile));
+    }
+
+    @Test
+    public void checksum() {
+        Path path = path("checksum.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        byte[] data = "compressible line of text\n".repeat(300000).getBytes();
+        file.appendBytes(data);
+
+        for (FileHasher.Algorithm algorithm : FileHasher.Algorithm.values()) {
+            Assertions.assertArrayEquals(FileHasher.checksum(data, algorithm), file.checksum(algorithm));
+        }
+    }
+
+    @Test
+    public void findAll() {
+        Path path = path("find.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        byte[] data = random(5, 200000);
+        byte[] pattern = Arrays.copyOfRange(data, 65530, 65540);
+        file.appendBytes(data);
+
+        Assertions.assertEquals(List.of(65530L), file.findAll(pattern).boxed().toList());
+        Assertions.assertEquals(65530, file.indexOf(pattern));
+        Assertions.assertEquals(-1, file.indexOf("absent pattern".getBytes()));
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        return Stream.of(
+                Arguments.of(random(1, 10)),
+                Arguments.of(random(2, 65536)),
+                Arguments.of(random(3, 300000)),
+                Arguments.of("text ".repeat(50000).getBytes())
+        );
+    }
+
+    private static int blockPosition(byte[] raw, int block) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        int pos = 0;
+        for (int i = 0; i < block; i++) {
+            pos += 8 + buffer.getInt(pos + 4);
+        }
+        return pos;
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        byte[] result = new byte[Arrays.stream(arrays).mapToInt(e -> e.length).sum()];
+        int pos = 0;
+        for (byte[] array : arrays) {
+            System.arraycopy(array, 0, result, pos, array.length);
+            pos += array.length;
+        }
+        return result;
+    }
+
+    private static byte[] random(long seed, int size) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,181 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import com.branow.file.kit.utils.Transcoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CompressedTextFileTest extends JUnitTest {
+
+    public CompressedTextFileTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/compressed-text-file-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void readString(String text, Charset charset) {
+        Path path = path("read.txt");
+        create(path);
+        CompressedTextFile file = new CompressedTextFile(path, charset);
+        file.appendString(text.substring(0, text.length() / 2));
+        file.appendString(text.substring(text.length() / 2));
+
+        Assertions.assertEquals(text, file.readString());
+        try (InputStream in = file.newInputStream()) {
+            Assertions.assertEquals(text, new String(in.readAllBytes(), charset));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Assertions.assertTrue(file.validate());
+        Assertions.assertTrue(file.size() < file.uncompressedSize());
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void writeString(String text, Charset charset) {
+        Path path = path("write.txt");
+        create(path);
+        CompressedTextFile file = new CompressedTextFile(path, charset);
+        file.overwriteString(text);
+
+        StringBuilder expected = new StringBuilder(text);
+        int off = text.length() / 3;
+        file.writeString("written", off);
+        expected.replace(off, off + 7, "written");
+        Assertions.assertEquals(expected.toString(), file.readString());
+
+        file.appendString("inserted", off);
+        expected.insert(off, "inserted");
+        Assertions.assertEquals(expected.toString(), file.readString());
+
+        file.overwriteString("end", off);
+        Assertions.assertEquals(expected.substring(0, off) + "end", file.readString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void readLines(String text, Charset charset) {
+        Path path = path("lines.txt");
+        Path plain = path("plain.txt");
+        create(path);
+        create(plain);
+        CompressedTextFile file = new CompressedTextFile(path, charset);
+        file.overwriteString(text);
+        TextFile expected = new TextFile(plain, charset);
+        expected.overwriteString(text);
+
+        long count = expected.lineCount();
+        Assertions.assertEquals(count, file.lineCount());
+        Assertions.assertEquals(expected.readLines(0, count), file.readLines(0, count));
+        Assertions.assertEquals(expected.readLine(count / 2), file.readLine(count / 2));
+        Assertions.assertEquals(expected.readLines(count - 3, count), file.readLines(count - 3, count));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> file.readLine(count));
+        Assertions.assertEquals(expected.find("ω\ntext").boxed().toList(), file.find("ω\ntext").boxed().toList());
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void lineIndex(String text, Charset charset) {
+        Path path = path("indexed.txt");
+        Path sidecar = path("indexed.idx");
+        create(path);
+        CompressedTextFile file = new CompressedTextFile(path, charset);
+        file.overwriteString(text);
+        file.lineIndex().save(sidecar);
+        file.appendString("appended\nlast");
+
+        CompressedTextFile loaded = new CompressedTextFile(path, charset);
+        loaded.loadLineIndex(sidecar);
+        List<String> lines = List.of((text + "appended\nlast").split("\n", -1));
+        Assertions.assertEquals(lines.size(), loaded.lineCount());
+        Assertions.assertEquals(lines.get(lines.size() / 2), loaded.readLine(lines.size() / 2));
+        Assertions.assertEquals(lines.subList(lines.size() - 2, lines.size()), loaded.readLines(lines.size() - 2, lines.size()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void edit(String text, Charset charset) {
+        Path path = path("edit.txt");
+        create(path);
+        CompressedTextFile file = new CompressedTextFile(path, charset);
+        file.overwriteString(text);
+
+        TextFileEditor editor = file.edit();
+        int off = text.length() / 2;
+        editor.insert("inserted", off);
+        editor.delete(10, 5);
+        StringBuilder expected = new StringBuilder(text).insert(off, "inserted").delete(10, 15);
+        Assertions.assertEquals(expected.toString(), editor.read());
+        editor.commit();
+
+        Assertions.assertEquals(expected.toString(), file.readString());
+        Assertions.assertEquals(expected.toString(), new CompressedTextFile(path, charset).readString());
+        Assertions.assertTrue(file.size() < file.uncompressedSize());
+        Assertions.assertFalse(editor.isModified());
+        Assertions.assertEquals(expected.toString(), editor.read());
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void transcode(String text, Charset charset) {
+        Path path = path("transcode.txt");
+        Path target = path("transcoded.txt");
+        create(path);
+        CompressedTextFile file = new CompressedTextFile(path, charset);
+        file.overwriteString(text);
+
+        Transcoder.Result result = file.transcodeTo(target, StandardCharsets.UTF_16LE);
+        Assertions.assertEquals(target, result.target());
+        Assertions.assertEquals(file.uncompressedSize(), result.bytesRead());
+        Assertions.assertEquals(text, new CompressedTextFile(target, StandardCharsets.UTF_16LE).readString());
+
+        file.transcode(StandardCharsets.UTF_16LE);
+        Assertions.assertEquals(text, new CompressedTextFile(path, StandardCharsets.UTF_16LE).readString());
+    }
+
+    @Test
+    public void follow() {
+        Path path = path("follow.txt");
+        create(path);
+        CompressedTextFile file = new CompressedTextFile(path);
+        file.appendString("first\nsec");
+        List<String> actual = new CopyOnWriteArrayList<>();
+        try (TextFileFollower follower = file.follow(actual::add)) {
+            follower.poll();
+            file.appendString("ond\nthird\n");
+            follower.poll();
+            Assertions.assertEquals(List.of("first", "second", "third"), actual);
+            Assertions.assertEquals(file.uncompressedSize(), follower.offset());
+        }
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        String text = new Random(4411).ints(100000, 0, 4)
+                .mapToObj(e -> switch (e) {
+                    case 0 -> "ω";
+                    case 1 -> "\n";
+                    default -> "text ";
+                })
+                .collect(Collectors.joining());
+        return Stream.of(
+                Arguments.of(text, StandardCharsets.UTF_8),
+                Arguments.of(text, StandardCharsets.UTF_16)
+        );
+    }
+}
@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -152,6 +153,27 @@ public class DirectoryEntityTest {
         Assertions.assertEquals(expected, actual);
     }
 
+    @Test
+    public void childEntitiesWithTtl() throws IOException {
+        String dir = resourceFolder + File.separator + "ttl";
+        createDirectoryIfNotExists(dir);
+        createDirectoryIfNotExists(dir + File.separator + "sub");
+        Path file = Path.of(dir, "file.bin");
+        createFileIfNotExists(file.toString());
+        DirectoryEntity de = new DirectoryEntity(dir);
+
+        List<SystemEntity> cached = de.childEntities(Duration.ofHours(1));
+        List<SystemEntity> actual = de.childEntities();
+        Files.write(file, new byte[10]);
+
+        SystemEntity cachedFile = cached.stream().filter(e -> e instanceof FileEntity).findFirst().orElseThrow();
+        SystemEntity actualFile = actual.stream().filter(e -> e instanceof FileEntity).findFirst().orElseThrow();
+        Assertions.assertEquals(0, cachedFile.size());
+        Assertions.assertEquals(10, actualFile.size());
+        Assertions.assertTrue(cached.stream().anyMatch(e -> e instanceof DirectoryEntity && e.attributes().isDirectory()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> de.childEntities(Duration.ofSeconds(-1)));
+    }
+
     @ParameterizedTest
     @MethodSource("provideChildren")
     public void childFiles(String dir, List<String> filenames) {
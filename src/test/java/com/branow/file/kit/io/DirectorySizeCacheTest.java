@@ -0,0 +1,66 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import com.branow.file.kit.utils.DirectorySizer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
+public class DirectorySizeCacheTest extends JUnitTest {
+
+    public DirectorySizeCacheTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/directory-size-cache-test"));
+    }
+
+    @Test
+    public void size() throws InterruptedException {
+        Path root = path("tree");
+        for (String dir : new String[] {"a/b", "a/c", "d"}) {
+            create(root.resolve(dir), true);
+            create(root.resolve(dir).resolve("file"));
+            write(root.resolve(dir).resolve("file"), new byte[100]);
+        }
+
+        try (DirectorySizeCache cache = new DirectoryEntity(root).sizeCache()) {
+            Assertions.assertEquals(300, cache.size());
+            Assertions.assertEquals(200, cache.size(root.resolve("a")));
+            Assertions.assertEquals(100, cache.size(root.resolve("a/c")));
+
+            write(root.resolve("a/b/file"), new byte[150]);
+            awaitSize(250, () -> cache.size(root.resolve("a")));
+            Assertions.assertEquals(350, cache.size());
+
+            create(root.resolve("a/c/e/f"), true);
+            create(root.resolve("a/c/e/f/new"));
+            write(root.resolve("a/c/e/f/new"), new byte[40]);
+            awaitSize(390, cache::size);
+            Assertions.assertEquals(140, cache.size(root.resolve("a/c")));
+
+            delete(root.resolve("d"));
+            awaitSize(290, cache::size);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> cache.size(root.resolve("d")));
+            Assertions.assertEquals(DirectorySizer.size(root), cache.size());
+        }
+    }
+
+    @Test
+    public void closed() {
+        Path root = path("closed");
+        create(root, true);
+        DirectorySizeCache cache = new DirectorySizeCache(root);
+        Assertions.assertEquals(0, cache.size());
+        cache.close();
+        Assertions.assertThrows(IllegalStateException.class, cache::size);
+    }
+
+
+    private static void awaitSize(long expected, LongSupplier size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (size.getAsLong() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(expected, size.getAsLong());
+    }
+}
@@ -0,0 +1,135 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class RecordLogTest extends JUnitTest {
+
+    public RecordLogTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/record-log-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void appendAndRead(List<byte[]> records) {
+        Path path = path("log.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        try (RecordLog log = new RecordLog(file)) {
+            Assertions.assertEquals(0, log.appendAll(records));
+            Assertions.assertEquals(records.size(), log.count());
+            for (int i = records.size() - 1; i >= 0; i -= 7) {
+                Assertions.assertArrayEquals(records.get(i), log.read(i));
+            }
+            long position = log.position(records.size() / 2);
+            Assertions.assertArrayEquals(records.get(records.size() / 2), log.readAt(position));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> log.read(records.size()));
+        }
+
+        try (RecordLog log = new RecordLog(file)) {
+            Assertions.assertEquals(0, log.truncated());
+            Assertions.assertEquals(records.size(), log.count());
+            assertRecords(records, log.stream().toList());
+            assertRecords(records.subList(3, records.size()), log.stream(3).toList());
+            Assertions.assertEquals(records.size(), log.append(new byte[] {7}));
+            Assertions.assertArrayEquals(new byte[] {7}, log.read(records.size()));
+        }
+    }
+
+    @Test
+    public void recoverTornTail() {
+        Path path = path("torn.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        try (RecordLog log = new RecordLog(file)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(("record " + i).getBytes());
+            }
+        }
+        long size = file.size();
+        file.appendBytes(new byte[] {0, 0, 0, 20, 1, 2, 3, 4, 5, 6});
+
+        try (RecordLog log = new RecordLog(file)) {
+            Assertions.assertEquals(100, log.count());
+            Assertions.assertEquals(10, log.truncated());
+            Assertions.assertEquals(size, file.size());
+            log.append("record 100".getBytes());
+        }
+
+        byte[] bytes = file.readBytes();
+        bytes[bytes.length - 1] ^= 1;
+        file.overwriteBytes(bytes);
+        try (RecordLog log = new RecordLog(file)) {
+            Assertions.assertEquals(100, log.count());
+            Assertions.assertEquals("record 99", new String(log.read(99)));
+        }
+    }
+
+    @Test
+    public void rejectCompressedFile() {
+        Path path = path("compressed.bin");
+        create(path);
+        CompressedByteFile file = new CompressedByteFile(path);
+        file.appendBytes("some records".getBytes());
+        byte[] raw = read(path);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RecordLog(file));
+        Assertions.assertArrayEquals(raw, read(path));
+        Assertions.assertArrayEquals("some records".getBytes(), file.readBytes());
+    }
+
+    @Test
+    public void recoverZeroFilledTail() {
+        Path path = path("zeros.bin");
+        create(path);
+        ByteFile file = new ByteFile(path);
+        try (RecordLog log = new RecordLog(file)) {
+            log.append("record".getBytes());
+        }
+        long size = file.size();
+        file.appendBytes(new byte[64]);
+
+        try (RecordLog log = new RecordLog(file)) {
+            Assertions.assertEquals(1, log.count());
+            Assertions.assertEquals(64, log.truncated());
+            Assertions.assertEquals(size, file.size());
+            Assertions.assertEquals(1, log.append(new byte[0]));
+            Assertions.assertArrayEquals(new byte[0], log.read(1));
+        }
+        try (RecordLog log = new RecordLog(file)) {
+            Assertions.assertEquals(2, log.count());
+            Assertions.assertEquals(0, log.truncated());
+        }
+    }
+
+
+    private static void assertRecords(List<byte[]> expected, List<byte[]> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static Stream<List<byte[]>> provideTest() {
+        Random random = new Random(9081);
+        return Stream.of(
+                IntStream.range(0, 1000).mapToObj(e -> ("record " + e).getBytes()).toList(),
+                IntStream.range(0, 300).mapToObj(e -> {
+                    byte[] bytes = new byte[random.nextInt(0, e % 50 == 0 ? 200000 : 300)];
+                    random.nextBytes(bytes);
+                    return bytes;
+                }).toList(),
+                List.of(new byte[0], new byte[0], Arrays.copyOf(new byte[] {1}, 1))
+        );
+    }
+}
@@ -0,0 +1,417 @@
+package com.branow.file.kit.io;
+
+import com.branow.file.kit.JUnitTest;
+import com.branow.file.kit.utils.FileIOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TextFileTest extends JUnitTest {
+
+    public TextFileTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/io/text-file-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void readStringParallel(byte[] data, Charset charset) {
+        Path path = path("read.txt");
+        create(path);
+        write(path, data);
+        TextFile textFile = new TextFile(path, charset);
+
+        String expected = FileIOUtils.readString(path, charset);
+        String actual = textFile.readStringParallel();
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void validate(byte[] data, Charset charset) {
+        String src = new String(data, charset);
+
+        Path path = path("valid.txt");
+        create(path);
+        write(path, src.getBytes(charset));
+        Assertions.assertTrue(new TextFile(path, charset).validate());
+    }
+
+    @Test
+    public void validateMalformed() {
+        Path path = path("malformed.txt");
+        create(path);
+        write(path, new byte[] {'a', 'b', (byte) 0xC3, 'c', (byte) 0x80});
+        Assertions.assertFalse(new TextFile(path, StandardCharsets.UTF_8).validate());
+        Assertions.assertTrue(new TextFile(path, StandardCharsets.ISO_8859_1).validate());
+    }
+
+
+    @ParameterizedTest
+    @MethodSource("provideLines")
+    public void readLine(List<String> lines, String separator, Charset charset) {
+        Path path = path("lines.txt");
+        create(path);
+        write(path, String.join(separator, lines).getBytes(charset));
+        TextFile textFile = new TextFile(path, charset);
+
+        Assertions.assertEquals(lines.size(), textFile.lineCount());
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            Assertions.assertEquals(lines.get(i), textFile.readLine(i));
+        }
+        Assertions.assertEquals(lines.subList(1, lines.size() - 1), textFile.readLines(1, lines.size() - 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> textFile.readLine(lines.size()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideLines")
+    public void readLineAfterAppend(List<String> lines, String separator, Charset charset) {
+        Path path = path("append.txt");
+        create(path);
+        int half = lines.size() / 2;
+        write(path, (String.join(separator, lines.subList(0, half)) + separator).getBytes(charset));
+        TextFile textFile = new TextFile(path, charset);
+        Assertions.assertEquals(half, textFile.lineCount());
+
+        byte[] appended = String.join(separator, lines.subList(half, lines.size())).getBytes(charset);
+        if (charset.equals(StandardCharsets.UTF_16))
+            appended = Arrays.copyOfRange(appended, 2, appended.length);
+        FileIOUtils.append(path, ByteBuffer.wrap(appended));
+
+        Assertions.assertEquals(lines.size(), textFile.lineCount());
+        Assertions.assertEquals(lines, textFile.readLines(0, lines.size()));
+
+        write(path, String.join(separator, lines.subList(half, lines.size())).getBytes(charset));
+        Assertions.assertEquals(lines.size() - half, textFile.lineCount());
+        Assertions.assertEquals(lines.get(half), textFile.readLine(0));
+    }
+
+    @Test
+    public void readLineAfterRewriteWithSameTail() {
+        Path path = path("rewrite.txt");
+        create(path);
+        String tail = "c".repeat(40) + "\n";
+        write(path, ("ab\n" + tail).getBytes(StandardCharsets.US_ASCII));
+        TextFile textFile = new TextFile(path, StandardCharsets.US_ASCII);
+        Assertions.assertEquals("ab", textFile.readLine(0));
+
+        write(path, ("a\nb" + tail + "d\n").getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertEquals(3, textFile.lineCount());
+        Assertions.assertEquals(List.of("a", "b" + "c".repeat(40), "d"), textFile.readLines(0, 3));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideLines")
+    public void loadLineIndex(List<String> lines, String separator, Charset charset) {
+        Path path = path("indexed.txt");
+        Path sidecar = path("indexed.idx");
+        create(path);
+        write(path, String.join(separator, lines).getBytes(charset));
+        new TextFile(path, charset).lineIndex().save(sidecar);
+
+        TextFile textFile = new TextFile(path, charset);
+        textFile.loadLineIndex(sidecar);
+        Assertions.assertEquals(lines.size(), textFile.lineCount());
+        Assertions.assertEquals(lines.get(lines.size() - 1), textFile.readLine(lines.size() - 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new TextFile(path, StandardCharsets.US_ASCII).loadLineIndex(sidecar));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideFind")
+    public void find(String src, String text, Charset charset) {
+        Path path = path("find.txt");
+        create(path);
+        write(path, src.getBytes(charset));
+        TextFile textFile = new TextFile(path, charset);
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = src.indexOf(text); i >= 0; i = src.indexOf(text, i + 1)) {
+            expected.add((long) i);
+        }
+        Assertions.assertEquals(expected, textFile.find(text).boxed().toList());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> textFile.find(""));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideLines")
+    public void follow(List<String> lines, String separator, Charset charset) {
+        Path path = path("follow.txt");
+        create(path);
+        List<String> actual = new CopyOnWriteArrayList<>();
+        TextFile textFile = new TextFile(path, charset);
+        try (TextFileFollower follower = textFile.follow(actual::add)) {
+            String text = String.join(separator, lines);
+            int third = text.length() / 3;
+            textFile.appendString(text.substring(0, third));
+            follower.poll();
+            FileIOUtils.append(path, ByteBuffer.wrap(encodeTail(text.substring(third), charset)));
+            follower.poll();
+            Assertions.assertEquals(lines.subList(0, lines.size() - 1), actual);
+
+            FileIOUtils.append(path, ByteBuffer.wrap(encodeTail(separator, charset)));
+            awaitSize(actual, lines.size());
+            Assertions.assertEquals(lines, actual);
+
+            long offset = follower.offset();
+            Assertions.assertEquals(Files.size(path), offset);
+            write(path, (lines.get(0) + separator).getBytes(charset));
+            follower.poll();
+            Assertions.assertEquals(lines.get(0), actual.get(actual.size() - 1));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void followRotation() {
+        Path path = path("rotated.txt");
+        Path rotated = path("rotated.txt.1");
+        create(path);
+        write(path, "first\nsecond\n".getBytes());
+        List<String> actual = new CopyOnWriteArrayList<>();
+        try (TextFileFollower follower = new TextFile(path).follow(actual::add)) {
+            follower.poll();
+            Files.move(path, rotated);
+            create(path);
+            write(path, "third\n".getBytes());
+            follower.poll();
+            Assertions.assertEquals(List.of("first", "second", "third"), actual);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void followRotationDrainsOldFile() {
+        Path path = path("drained.txt");
+        Path rotated = path("drained.txt.1");
+        create(path);
+        write(path, "first\n".getBytes());
+        List<String> actual = new CopyOnWriteArrayList<>();
+        try (TextFileFollower follower = new TextFile(path).follow(actual::add)) {
+            follower.poll();
+            Files.write(path, "second\nlast".getBytes(), StandardOpenOption.APPEND);
+            Files.move(path, rotated);
+            create(path);
+            write(path, "third\n".getBytes());
+            follower.poll();
+            Assertions.assertEquals(List.of("first", "second", "last", "third"), actual);
+            Assertions.assertEquals(6, follower.offset());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void followSinkFailure() throws InterruptedException {
+        Path path = path("failing.txt");
+        create(path);
+        write(path, "first\nbad\nsecond\n".getBytes());
+        List<String> actual = new CopyOnWriteArrayList<>();
+        List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+        Consumer<String> sink = line -> {
+            if (line.equals("bad")) throw new IllegalStateException(line);
+            actual.add(line);
+        };
+        try (TextFileFollower follower = TextFileFollower.start(path, StandardCharsets.UTF_8, sink, errors::add, 0, 10)) {
+            for (int i = 0; i < 500 && actual.size() < 2; i++)
+                Thread.sleep(10);
+            Assertions.assertTrue(follower.isFollowing());
+            Assertions.assertEquals(List.of("first", "second"), actual);
+            Assertions.assertEquals("bad", errors.get(0).getMessage());
+            Assertions.assertSame(errors.get(0), follower.failure().orElseThrow());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideEdit")
+    public void edit(String src, Charset charset) {
+        Path path = path("edit.txt");
+        create(path);
+        write(path, src.getBytes(charset));
+        TextFile textFile = new TextFile(path, charset);
+        TextFileEditor editor = textFile.edit();
+        Assertions.assertEquals(src, editor.read());
+
+        StringBuilder expected = new StringBuilder(src);
+        Random random = new Random(src.length());
+        for (int i = 0; i < 200; i++) {
+            int pos = codePointStart(expected, random.nextInt(expected.length() + 1));
+            String text = "edit-" + i + "-ω";
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    editor.insert(text, pos);
+                    expected.insert(pos, text);
+                }
+                case 1 -> {
+                    int end = Math.min(expected.length(), pos + text.length());
+                    if (codePointStart(expected, end) == end) {
+                        editor.write(text, pos);
+                        expected.replace(pos, end, text);
+                    }
+                }
+                case 2 -> {
+                    int length = codePointStart(expected, Math.min(expected.length(), pos + random.nextInt(1000))) - pos;
+                    editor.delete(pos, length);
+                    expected.delete(pos, Math.min(expected.length(), pos + length));
+                }
+                default -> {
+                    editor.append(text);
+                    expected.append(text);
+                }
+            }
+        }
+        Assertions.assertEquals(expected.length(), editor.length());
+        Assertions.assertEquals(expected.substring(7, Math.min(expected.length(), 5007)), editor.read(7, 5000));
+        Assertions.assertEquals(src, textFile.readString());
+
+        editor.commit();
+        Assertions.assertFalse(editor.isModified());
+        Assertions.assertEquals(expected.toString(), textFile.readString());
+        Assertions.assertEquals(expected.toString(), editor.read());
+
+        editor.overwrite("end", 3);
+        editor.commit();
+        Assertions.assertEquals(expected.substring(0, 3) + "end", textFile.readString());
+    }
+
+    @Test
+    public void editChangedFile() {
+        Path path = path("changed.txt");
+        create(path);
+        write(path, "text".getBytes());
+        TextFileEditor editor = new TextFile(path).edit();
+        editor.append(" appended");
+        write(path, "changed text".getBytes());
+        Assertions.assertThrows(IllegalStateException.class, editor::commit);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> editor.insert("x", 100));
+    }
+
+
+    @Test
+    public void editKeepsPermissions() throws IOException {
+        Path path = path("permissions.txt");
+        create(path);
+        write(path, "text".getBytes());
+        Assumptions.assumeTrue(Files.getFileAttributeView(path, PosixFileAttributeView.class) != null);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(path, permissions);
+
+        TextFileEditor editor = new TextFile(path).edit();
+        editor.append(" appended");
+        editor.commit();
+        Assertions.assertEquals("text appended", new TextFile(path).readString());
+        Assertions.assertEquals(permissions, Files.getPosixFilePermissions(path));
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        return Stream.of(
+                Arguments.of(random(-143154), StandardCharsets.ISO_8859_1),
+                Arguments.of(random(-1536411), StandardCharsets.UTF_8),
+                Arguments.of(random(1345), StandardCharsets.UTF_16BE),
+                Arguments.of(random(4165), StandardCharsets.UTF_16)
+        );
+    }
+
+    private static Stream<Arguments> provideLines() {
+        List<String> lines = new Random(5416).ints(1000, 0, 80)
+                .mapToObj(e -> "line " + "ωx-".repeat(e) + e)
+                .toList();
+        return Stream.of(
+                Arguments.of(lines, "\n", StandardCharsets.UTF_8),
+                Arguments.of(lines, "\r\n", StandardCharsets.UTF_8),
+                Arguments.of(lines, "\n", StandardCharsets.UTF_16LE),
+                Arguments.of(lines, "\r\n", StandardCharsets.UTF_16)
+        );
+    }
+
+    private static Stream<Arguments> provideFind() {
+        String src = new Random(765).ints(20000, 0, 6)
+                .mapToObj(e -> switch (e) {
+                    case 0 -> "ω";
+                    case 1 -> "\uD83D\uDE00";
+                    case 2 -> "\n";
+                    default -> "ab";
+                })
+                .collect(Collectors.joining());
+        return Stream.of(
+                Arguments.of(src, "abω", StandardCharsets.UTF_8),
+                Arguments.of(src, "\uD83D\uDE00ab", StandardCharsets.UTF_8),
+                Arguments.of(src, "bab", StandardCharsets.UTF_16LE),
+                Arguments.of(src, "ω\n", StandardCharsets.UTF_16),
+                Arguments.of("\u0100\u0101", "\u0001", StandardCharsets.UTF_16BE),
+                Arguments.of(src, "none", StandardCharsets.UTF_8),
+                Arguments.of("アAソ\\A" + "ア\\".repeat(40000), "A", Charset.forName("Shift_JIS")),
+                Arguments.of("丂@@丂" + "丂".repeat(40000) + "@", "@", Charset.forName("GBK"))
+        );
+    }
+
+    private static Stream<Arguments> provideEdit() {
+        String src = new Random(3761).ints(200000, 0, 5)
+                .mapToObj(e -> switch (e) {
+                    case 0 -> "ω";
+                    case 1 -> "\uD83D\uDE00";
+                    case 2 -> "\n";
+                    default -> "ab";
+                })
+                .collect(Collectors.joining());
+        return Stream.of(
+                Arguments.of(src, StandardCharsets.UTF_8),
+                Arguments.of(src, StandardCharsets.UTF_16),
+                Arguments.of(src.substring(0, 100), StandardCharsets.UTF_16LE),
+                Arguments.of("", StandardCharsets.UTF_16)
+        );
+    }
+
+    private static int codePointStart(CharSequence text, int pos) {
+        return pos > 0 && pos < text.length() && Character.isLowSurrogate(text.charAt(pos)) ? pos - 1 : pos;
+    }
+
+    private static byte[] encodeTail(String text, Charset charset) {
+        byte[] bytes = text.getBytes(charset);
+        return charset.equals(StandardCharsets.UTF_16) ? Arrays.copyOfRange(bytes, 2, bytes.length) : bytes;
+    }
+
+    private static void awaitSize(List<String> list, int size) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static byte[] random(long seed) {
+        Random random = new Random(seed);
+        int size = random.nextInt(1, 2000);
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class ByteSearcherTest extends JUnitTest {
+
+    public ByteSearcherTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/byte-searcher-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void findAll(byte[] data, byte[] pattern, int parallelism) {
+        Path path = path("find.bin");
+        create(path);
+        write(path, data);
+
+        List<Long> expected = naive(data, pattern);
+        List<Long> actual = ByteSearcher.findAll(path, pattern, parallelism).boxed().toList();
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.isEmpty() ? -1 : expected.get(0), ByteSearcher.indexOf(path, pattern));
+        Assertions.assertEquals(expected, ByteSearcher.findAll(new ByteArrayInputStream(data), pattern).boxed().toList());
+    }
+
+    @Test
+    public void findAllIllegal() {
+        Path path = path("illegal.bin");
+        create(path);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ByteSearcher.findAll(path, new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ByteSearcher.findAll(path, new byte[1], 0));
+        Assertions.assertThrows(NullPointerException.class, () -> ByteSearcher.findAll(path, null));
+        Assertions.assertEquals(-1, ByteSearcher.indexOf(path, new byte[] {1}));
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        byte[] small = "abracadabra abracadabra".getBytes();
+        byte[] big = random(513, 20 << 20, 4);
+        byte[] boundary = new byte[(8 << 20) + 10];
+        byte[] pattern = "boundary".getBytes();
+        for (int pos : new int[] {0, (8 << 20) - 3, (8 << 20) + 2}) {
+            System.arraycopy(pattern, 0, boundary, pos, pattern.length);
+        }
+        return Stream.of(
+                Arguments.of(small, "abra".getBytes(), 1),
+                Arguments.of(small, "a".getBytes(), 2),
+                Arguments.of(small, "xyz".getBytes(), 1),
+                Arguments.of("aaaaaa".getBytes(), "aaa".getBytes(), 1),
+                Arguments.of("ab".getBytes(), "abc".getBytes(), 1),
+                Arguments.of(big, new byte[] {1, 2, 3}, 1),
+                Arguments.of(big, new byte[] {1, 2, 3}, 3),
+                Arguments.of(big, new byte[] {0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, 4),
+                Arguments.of(boundary, pattern, 1),
+                Arguments.of(boundary, pattern, 2)
+        );
+    }
+
+    private static List<Long> naive(byte[] data, byte[] pattern) {
+        List<Long> found = new ArrayList<>();
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length)
+                found.add((long) i);
+        }
+        return found;
+    }
+
+    private static byte[] random(long seed, int size, int bound) {
+        Random random = new Random(seed);
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) random.nextInt(bound);
+        }
+        return bytes;
+    }
+}
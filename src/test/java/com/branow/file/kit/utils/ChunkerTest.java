@@ -0,0 +1,75 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ChunkerTest extends JUnitTest {
+
+    public ChunkerTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/chunker-test"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {64, 1024, 8192})
+    public void chunks(int averageSize) {
+        byte[] data = new byte[300_001];
+        new Random(37).nextBytes(data);
+        Path path = path("data.bin");
+        create(path);
+        write(path, data);
+
+        List<Chunker.Chunk> chunks = Chunker.chunks(path, averageSize).toList();
+        long offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunker.Chunk chunk = chunks.get(i);
+            Assertions.assertEquals(offset, chunk.offset());
+            Assertions.assertTrue(chunk.length() <= averageSize * 8);
+            if (i < chunks.size() - 1)
+                Assertions.assertTrue(chunk.length() >= averageSize / 4);
+            offset += chunk.length();
+        }
+        Assertions.assertEquals(data.length, offset);
+        double average = (double) data.length / chunks.size();
+        Assertions.assertTrue(average > averageSize / 2.0 && average < averageSize * 2.0, "average: " + average);
+    }
+
+    @Test
+    public void chunksAfterInsertion() {
+        byte[] data = new byte[200_000];
+        new Random(370).nextBytes(data);
+        byte[] inserted = new byte[data.length + 10];
+        System.arraycopy(data, 0, inserted, 0, 1000);
+        System.arraycopy(data, 1000, inserted, 1010, data.length - 1000);
+        Path first = path("first.bin");
+        Path second = path("second.bin");
+        create(first);
+        create(second);
+        write(first, data);
+        write(second, inserted);
+
+        Set<Long> boundaries = Chunker.chunks(first, 1024)
+                .map(e -> e.offset() + e.length()).collect(Collectors.toSet());
+        List<Long> shifted = Chunker.chunks(second, 1024)
+                .map(e -> e.offset() + e.length() - 10).filter(e -> e > 20_000).toList();
+        Assertions.assertFalse(shifted.isEmpty());
+        Assertions.assertTrue(boundaries.containsAll(shifted));
+    }
+
+    @Test
+    public void chunksIllegal() {
+        Path path = path("empty.bin");
+        create(path);
+        Assertions.assertEquals(0, Chunker.chunks(path).count());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Chunker.chunks(path, 1000));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Chunker.chunks(path, 32));
+    }
+}
@@ -0,0 +1,76 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class DirectorySizerTest extends JUnitTest {
+
+    public DirectorySizerTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/directory-sizer-test"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 8})
+    public void size(int parallelism) {
+        Random random = new Random(39);
+        long expected = 0;
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 4; j++) {
+                Path dir = path("tree/d" + i + "/d" + j);
+                create(dir, true);
+                for (int k = 0; k < 3; k++) {
+                    Path file = dir.resolve("f" + k);
+                    byte[] bytes = new byte[random.nextInt(1000)];
+                    create(file);
+                    write(file, bytes);
+                    expected += bytes.length;
+                }
+            }
+        }
+        create(path("tree/empty"), true);
+
+        Assertions.assertEquals(expected, DirectorySizer.size(path("tree"), parallelism, DirectorySizer.SymlinkPolicy.SKIP));
+        Assertions.assertEquals(expected, DirectorySizer.size(path("tree")));
+        Assertions.assertEquals(0, DirectorySizer.size(path("tree/empty")));
+    }
+
+    @Test
+    public void sizeWithSymlinks() throws IOException {
+        Path dir = path("links/dir");
+        create(dir, true);
+        create(dir.resolve("file"));
+        write(dir.resolve("file"), new byte[100]);
+        create(path("outside"), true);
+        create(path("outside/big"));
+        write(path("outside/big"), new byte[1000]);
+
+        Path cycle = Files.createSymbolicLink(dir.resolve("cycle"), path("links").toAbsolutePath());
+        Path outside = Files.createSymbolicLink(path("links/outside"), path("outside").toAbsolutePath());
+        Path broken = Files.createSymbolicLink(path("links/broken"), path("nothing").toAbsolutePath());
+        try {
+            long links = 0;
+            for (Path link : new Path[] {cycle, outside, broken}) {
+                links += (Long) Files.getAttribute(link, "size", LinkOption.NOFOLLOW_LINKS);
+            }
+
+            Assertions.assertEquals(1100, DirectorySizer.size(path("links"), 2, DirectorySizer.SymlinkPolicy.FOLLOW));
+            Assertions.assertEquals(100, DirectorySizer.size(path("links"), 2, DirectorySizer.SymlinkPolicy.SKIP));
+            Assertions.assertEquals(100 + links, DirectorySizer.size(path("links"), 1, DirectorySizer.SymlinkPolicy.COUNT_LINK));
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> DirectorySizer.size(path("links"), 0, DirectorySizer.SymlinkPolicy.SKIP));
+        } finally {
+            Files.delete(cycle);
+            Files.delete(outside);
+            Files.delete(broken);
+        }
+    }
+}
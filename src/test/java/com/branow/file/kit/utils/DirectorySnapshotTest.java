@@ -0,0 +1,71 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+public class DirectorySnapshotTest extends JUnitTest {
+
+    public DirectorySnapshotTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/directory-snapshot-test"));
+    }
+
+    @Test
+    public void order() throws IOException {
+        Path dir = path("dir");
+        create(dir, true);
+        String[] names = {"c", "a", "d", "b"};
+        for (int i = 0; i < names.length; i++) {
+            Path file = dir.resolve(names[i]);
+            create(file);
+            write(file, new byte[10 - i]);
+            Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(1_000_000 + i)));
+        }
+
+        DirectorySnapshot byName = DirectorySnapshot.of(dir, DirectorySnapshot.Order.NAME);
+        Assertions.assertEquals(List.of(dir.resolve("a"), dir.resolve("b"), dir.resolve("c"), dir.resolve("d")), byName.children());
+        Assertions.assertEquals(2, byName.indexOf(dir.resolve("c")));
+        Assertions.assertEquals(-1, byName.indexOf(dir.resolve("e")));
+
+        DirectorySnapshot byTime = DirectorySnapshot.of(dir, DirectorySnapshot.Order.MODIFIED_TIME);
+        Assertions.assertEquals(List.of(dir.resolve("c"), dir.resolve("a"), dir.resolve("d"), dir.resolve("b")), byTime.children());
+
+        DirectorySnapshot bySize = DirectorySnapshot.of(dir, DirectorySnapshot.Order.SIZE);
+        Assertions.assertEquals(dir.resolve("b"), bySize.childAt(0));
+        Assertions.assertEquals(dir.resolve("c"), bySize.childAt(3));
+
+        for (int i = 0; i < names.length; i++) {
+            Path child = byName.childAt(i);
+            Assertions.assertEquals(i, FileUtils.indexOf(child, DirectorySnapshot.Order.NAME));
+            Assertions.assertEquals(child, FileUtils.childAt(dir, i, DirectorySnapshot.Order.NAME).orElseThrow());
+        }
+        Assertions.assertTrue(FileUtils.childAt(dir, 4, DirectorySnapshot.Order.NAME).isEmpty());
+    }
+
+    @Test
+    public void revalidation() throws IOException {
+        Path dir = path("cached");
+        create(dir, true);
+        create(dir.resolve("first"));
+        Files.setLastModifiedTime(dir, FileTime.from(Instant.now().minusSeconds(60)));
+
+        DirectorySnapshot snapshot = DirectorySnapshot.of(dir, DirectorySnapshot.Order.NAME);
+        Assertions.assertSame(snapshot, DirectorySnapshot.of(dir, DirectorySnapshot.Order.NAME));
+
+        create(dir.resolve("second"));
+        DirectorySnapshot changed = DirectorySnapshot.of(dir, DirectorySnapshot.Order.NAME);
+        Assertions.assertNotSame(snapshot, changed);
+        Assertions.assertEquals(2, changed.size());
+        Assertions.assertEquals(1, snapshot.size());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DirectorySnapshot.of(path("nothing")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DirectorySnapshot.of(dir.resolve("first")));
+    }
+}
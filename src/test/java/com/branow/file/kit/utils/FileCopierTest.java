@@ -0,0 +1,91 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import com.branow.file.kit.io.RuntimeIOException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Random;
+
+public class FileCopierTest extends JUnitTest {
+
+    public FileCopierTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/file-copier-test"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 8})
+    public void copyTree(int parallelism) {
+        Random random = new Random(45);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                Path file = path("src/d" + i + "/d" + j + "/file");
+                create(file);
+                write(file, bytes(random, random.nextInt(1000)));
+            }
+        }
+        create(path("src/empty"), true);
+        create(path("src/large"));
+        write(path("src/large"), bytes(random, (int) FileCopier.TRANSFER_THRESHOLD + 12345));
+
+        FileCopier.of(parallelism, 1).copy(path("src"), path("target"));
+
+        Assertions.assertTrue(Files.isDirectory(path("target/empty")));
+        Assertions.assertArrayEquals(read(path("src/large")), read(path("target/large")));
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                String file = "/d" + i + "/d" + j + "/file";
+                Assertions.assertArrayEquals(read(path("src" + file)), read(path("target" + file)));
+            }
+        }
+    }
+
+    @Test
+    public void copyAttributesAndLinks() throws IOException {
+        create(path("src/dir/file"));
+        write(path("src/dir/file"), new byte[]{1, 2, 3});
+        FileTime time = FileTime.from(Instant.ofEpochSecond(1_000_000));
+        Files.setLastModifiedTime(path("src/dir/file"), time);
+        Files.setLastModifiedTime(path("src/dir"), time);
+        Path link = Files.createSymbolicLink(path("src/link"), Path.of("dir/file"));
+        try {
+            FileCopier.of(FileCopier.CopyOption.COPY_ATTRIBUTES, FileCopier.CopyOption.NOFOLLOW_LINKS)
+                    .copy(path("src"), path("linked"));
+            Assertions.assertEquals(time, Files.getLastModifiedTime(path("linked/dir/file")));
+            Assertions.assertEquals(time, Files.getLastModifiedTime(path("linked/dir")));
+            Assertions.assertTrue(Files.isSymbolicLink(path("linked/link")));
+
+            FileCopier.of().copy(path("src"), path("followed"));
+            Assertions.assertFalse(Files.isSymbolicLink(path("followed/link")));
+            Assertions.assertArrayEquals(new byte[]{1, 2, 3}, read(path("followed/link")));
+        } finally {
+            Files.deleteIfExists(link);
+            Files.deleteIfExists(path("linked/link"));
+        }
+    }
+
+    @Test
+    public void copyFailure() {
+        create(path("src/file"));
+        create(path("target"), true);
+
+        Assertions.assertThrows(RuntimeIOException.class, () -> FileCopier.of().copy(path("src"), path("target")));
+        Assertions.assertThrows(RuntimeIOException.class, () -> FileCopier.of().copy(path("nothing"), path("other")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileCopier.of(0, 1));
+        Assertions.assertTrue(Files.notExists(path("other"), LinkOption.NOFOLLOW_LINKS));
+    }
+
+    private static byte[] bytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
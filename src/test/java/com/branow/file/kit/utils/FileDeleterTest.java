@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Stream;
 
 public class FileDeleterTest {
@@ -82,6 +83,38 @@ public class FileDeleterTest {
         Assertions.assertTrue(Files.notExists(path));
     }
 
+    @ParameterizedTest
+    @MethodSource("provideDeleteWithProgress")
+    public void deleteWithProgress(FileDeleter deleter) {
+        Path root = path("cache");
+        createDirectoryIfNotExists(root);
+        for (int i = 0; i < 5; i++) {
+            Path dir = root.resolve("d" + i);
+            createDirectoryIfNotExists(dir);
+            for (int j = 0; j < 300; j++) {
+                createFileIfNotExists(dir.resolve("f" + j));
+            }
+        }
+
+        OperationProgress cancelled = new OperationProgress();
+        cancelled.cancel();
+        Assertions.assertThrows(CancellationException.class, () -> deleter.delete(root, cancelled));
+        Assertions.assertTrue(Files.exists(root));
+
+        OperationProgress progress = new OperationProgress();
+        deleter.delete(root, progress);
+        Assertions.assertTrue(Files.notExists(root));
+        Assertions.assertEquals(1500, progress.files());
+        Assertions.assertEquals(6, progress.directories());
+    }
+
+
+    private static Stream<Arguments> provideDeleteWithProgress() {
+        return Stream.of(
+                Arguments.of(FileDeleter.of(DeleteOption.WITH_CONTENT)),
+                Arguments.of(FileDeleter.of(4, DeleteOption.WITH_CONTENT, DeleteOption.PARALLEL))
+        );
+    }
 
     private static Stream<Arguments> provideDeleteSuchFileNotExist() {
         return Stream.of(
@@ -133,6 +166,15 @@ public class FileDeleterTest {
                                 path("git/bin/data"),
                                 path("git/bin/data/cd"),
                                 path("git/core")),
+                        true),
+                Arguments.of(
+                        FileDeleter.of(2, DeleteOption.WITH_CONTENT, DeleteOption.PARALLEL),
+                        path("git"),
+                        List.of(path("git/bin"),
+                                path("git/bin/data"),
+                                path("git/bin/data/cd"),
+                                path("git/bin/data.txt"),
+                                path("git/core")),
                         true)
         );
     }
@@ -0,0 +1,128 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class FileDeltaTest extends JUnitTest {
+
+    public FileDeltaTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/file-delta-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void applyDelta(byte[] basis, byte[] target, int blockSize) {
+        Path basisPath = path("basis.bin");
+        Path targetPath = path("target.bin");
+        create(basisPath);
+        create(targetPath);
+        write(basisPath, basis);
+        write(targetPath, target);
+
+        FileDelta.Signature signature = FileDelta.signature(basisPath, blockSize);
+        Assertions.assertEquals((basis.length + blockSize - 1) / blockSize, signature.blocks());
+        FileDelta.Delta delta = FileDelta.delta(targetPath, signature);
+        Assertions.assertEquals(target.length, delta.size());
+        FileDelta.applyDelta(basisPath, delta);
+        Assertions.assertArrayEquals(target, read(basisPath));
+    }
+
+    @Test
+    public void applyDeltaInPlace() {
+        Random random = new Random(36);
+        byte[] basis = new byte[100_000];
+        random.nextBytes(basis);
+        byte[] target = basis.clone();
+        target[5_000] ^= 1;
+        target[77_777] ^= 1;
+
+        Path basisPath = path("in-place.bin");
+        Path targetPath = path("in-place-target.bin");
+        create(basisPath);
+        create(targetPath);
+        write(basisPath, basis);
+        write(targetPath, target);
+
+        FileDelta.Delta delta = FileDelta.delta(targetPath, FileDelta.signature(basisPath, 1024));
+        Assertions.assertTrue(delta.isInPlace());
+        Assertions.assertEquals(2048, delta.literalBytes());
+        Assertions.assertEquals(2048, FileDelta.applyDelta(basisPath, delta));
+        Assertions.assertArrayEquals(target, read(basisPath));
+
+        Path emptyPath = path("empty.bin");
+        create(emptyPath);
+        FileDelta.Delta fromEmpty = FileDelta.delta(basisPath, FileDelta.signature(emptyPath, 16));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileDelta.applyDelta(targetPath, fromEmpty));
+    }
+
+
+    @Test
+    public void applyDeltaKeepsPermissions() throws IOException {
+        Path basisPath = path("permissions.bin");
+        Path targetPath = path("permissions-target.bin");
+        create(basisPath);
+        create(targetPath);
+        write(basisPath, "abcdefgh".getBytes());
+        write(targetPath, "efghabcd".getBytes());
+        Assumptions.assumeTrue(Files.getFileAttributeView(basisPath, PosixFileAttributeView.class) != null);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+        Files.setPosixFilePermissions(basisPath, permissions);
+
+        FileDelta.Delta delta = FileDelta.delta(targetPath, FileDelta.signature(basisPath, 4));
+        Assertions.assertFalse(delta.isInPlace());
+        FileDelta.applyDelta(basisPath, delta);
+        Assertions.assertArrayEquals("efghabcd".getBytes(), read(basisPath));
+        Assertions.assertEquals(permissions, Files.getPosixFilePermissions(basisPath));
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        Random random = new Random(360);
+        byte[] basis = new byte[200_003];
+        random.nextBytes(basis);
+
+        byte[] inserted = new byte[basis.length + 333];
+        System.arraycopy(basis, 0, inserted, 0, 70_000);
+        random.nextBytes(Arrays.copyOfRange(inserted, 70_000, 70_333));
+        System.arraycopy(basis, 70_000, inserted, 70_333, basis.length - 70_000);
+
+        byte[] removed = new byte[basis.length - 5_000];
+        System.arraycopy(basis, 0, removed, 0, 10_000);
+        System.arraycopy(basis, 15_000, removed, 10_000, basis.length - 15_000);
+
+        byte[] swapped = new byte[basis.length];
+        System.arraycopy(basis, 100_000, swapped, 0, basis.length - 100_000);
+        System.arraycopy(basis, 0, swapped, basis.length - 100_000, 100_000);
+
+        byte[] other = new byte[5_000];
+        random.nextBytes(other);
+
+        return Stream.of(
+                Arguments.of(basis, basis, 700),
+                Arguments.of(basis, inserted, 700),
+                Arguments.of(basis, removed, 1024),
+                Arguments.of(basis, swapped, 4096),
+                Arguments.of(basis, Arrays.copyOf(basis, 1_000), 700),
+                Arguments.of(basis, other, 64),
+                Arguments.of(new byte[0], other, 64),
+                Arguments.of(other, new byte[0], 64),
+                Arguments.of("abcabcabc".getBytes(), "xabcabcabcabcy".getBytes(), 3)
+        );
+    }
+}
@@ -0,0 +1,125 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+public class FileHasherTest extends JUnitTest {
+
+    public FileHasherTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/file-hasher-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void checksum(byte[] data, int parallelism) throws Exception {
+        Path path = path("data.bin");
+        create(path);
+        write(path, data);
+
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        byte[] expectedCrc = ByteBuffer.allocate(4).putInt((int) crc.getValue()).array();
+        Assertions.assertArrayEquals(expectedCrc, FileHasher.checksum(path, FileHasher.Algorithm.CRC32C, parallelism));
+        Assertions.assertArrayEquals(expectedCrc, FileHasher.checksum(data, FileHasher.Algorithm.CRC32C));
+        Assertions.assertArrayEquals(expectedCrc, FileHasher.checksum(new ByteArrayInputStream(data), FileHasher.Algorithm.CRC32C));
+
+        byte[] expectedSha = MessageDigest.getInstance("SHA-256").digest(data);
+        Assertions.assertArrayEquals(expectedSha, FileHasher.checksum(path, FileHasher.Algorithm.SHA_256, parallelism));
+        Assertions.assertArrayEquals(expectedSha, FileHasher.checksum(data, FileHasher.Algorithm.SHA_256));
+        Assertions.assertArrayEquals(expectedSha, FileHasher.checksum(new ByteArrayInputStream(data), FileHasher.Algorithm.SHA_256));
+
+        byte[] expectedTree = tree(data);
+        Assertions.assertArrayEquals(expectedTree, FileHasher.checksum(path, FileHasher.Algorithm.TREE_SHA_256, parallelism));
+        Assertions.assertArrayEquals(expectedTree, FileHasher.checksum(data, FileHasher.Algorithm.TREE_SHA_256));
+        Assertions.assertArrayEquals(expectedTree, FileHasher.checksum(new ByteArrayInputStream(data), FileHasher.Algorithm.TREE_SHA_256));
+    }
+
+    @Test
+    public void manifest() {
+        Path first = path("first");
+        Path second = path("second");
+        for (Path dir : List.of(first, second)) {
+            create(dir.resolve("sub/deep"), true);
+            create(dir.resolve("a.txt"));
+            write(dir.resolve("a.txt"), "alpha".getBytes());
+            create(dir.resolve("sub/deep/b.bin"));
+            write(dir.resolve("sub/deep/b.bin"), new byte[] {1, 2, 3});
+        }
+
+        Map<String, String> manifest = FileHasher.manifest(first, FileHasher.Algorithm.SHA_256);
+        Assertions.assertEquals(List.of("a.txt", "sub/deep/b.bin"), List.copyOf(manifest.keySet()));
+        Assertions.assertEquals(HexFormat.of().formatHex(FileHasher.checksum("alpha".getBytes(), FileHasher.Algorithm.SHA_256)),
+                manifest.get("a.txt"));
+        Assertions.assertArrayEquals(FileHasher.checksumDirectory(first, FileHasher.Algorithm.TREE_SHA_256),
+                FileHasher.checksumDirectory(second, FileHasher.Algorithm.TREE_SHA_256));
+
+        Path target = path("manifest.txt");
+        FileHasher.writeManifest(first, FileHasher.Algorithm.CRC32C, target);
+        String text = new String(read(target));
+        Assertions.assertEquals(2, text.lines().count());
+        Assertions.assertTrue(text.lines().allMatch(line -> line.matches("[0-9a-f]{8}  \\S+")));
+
+        write(second.resolve("sub/deep/b.bin"), new byte[] {1, 2, 4});
+        Assertions.assertFalse(Arrays.equals(FileHasher.checksumDirectory(first, FileHasher.Algorithm.TREE_SHA_256),
+                FileHasher.checksumDirectory(second, FileHasher.Algorithm.TREE_SHA_256)));
+    }
+
+
+    private static byte[] tree(byte[] data) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        int leaves = Math.max(1, (data.length + FileHasher.LEAF_SIZE - 1) / FileHasher.LEAF_SIZE);
+        byte[][] level = new byte[leaves][];
+        for (int i = 0; i < leaves; i++) {
+            digest.update((byte) 0);
+            digest.update(data, i * FileHasher.LEAF_SIZE, Math.min(FileHasher.LEAF_SIZE, data.length - i * FileHasher.LEAF_SIZE));
+            level[i] = digest.digest();
+        }
+        while (level.length > 1) {
+            byte[][] next = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < next.length; i++) {
+                if (2 * i + 1 < level.length) {
+                    digest.update((byte) 1);
+                    digest.update(level[2 * i]);
+                    digest.update(level[2 * i + 1]);
+                    next[i] = digest.digest();
+                } else {
+                    next[i] = level[2 * i];
+                }
+            }
+            level = next;
+        }
+        return level[0];
+    }
+
+    private static Stream<Arguments> provideTest() {
+        Random random = new Random(35);
+        byte[] small = new byte[1000];
+        random.nextBytes(small);
+        byte[] big = new byte[3 * FileHasher.LEAF_SIZE + 17];
+        random.nextBytes(big);
+        return Stream.of(
+                Arguments.of(new byte[0], 1),
+                Arguments.of(small, 1),
+                Arguments.of(small, 4),
+                Arguments.of(big, 1),
+                Arguments.of(big, 2),
+                Arguments.of(big, 8)
+        );
+    }
+}
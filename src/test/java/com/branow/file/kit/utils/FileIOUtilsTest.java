@@ -5,6 +5,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
@@ -268,6 +269,40 @@ public class FileIOUtilsTest {
         Assertions.assertEquals(expected, actual);
     }
 
+    @Test
+    public void mismatch() {
+        byte[] bytes = new byte[(8 << 20) * 2 + 100];
+        new Random(38).nextBytes(bytes);
+
+        Path path = path("mismatch.bin");
+        Path other = path("mismatch-other.bin");
+        create(path);
+        create(other);
+        write(path, bytes);
+        write(other, bytes);
+        Assertions.assertEquals(-1, FileIOUtils.mismatch(path, other, 1));
+        Assertions.assertTrue(FileIOUtils.contentEquals(path, other));
+
+        for (int pos : new int[] {(8 << 20) * 2 + 99, (8 << 20) + 5, 0}) {
+            byte[] changed = bytes.clone();
+            changed[pos] ^= 1;
+            write(other, changed);
+            Assertions.assertEquals(pos, FileIOUtils.mismatch(path, other, 1));
+            Assertions.assertEquals(pos, FileIOUtils.mismatch(other, path, 3));
+            Assertions.assertEquals(pos, FileIOUtils.mismatch(new ByteArrayInputStream(bytes), new ByteArrayInputStream(changed)));
+            Assertions.assertFalse(FileIOUtils.contentEquals(path, other));
+        }
+
+        delete(other);
+        create(other);
+        write(other, Arrays.copyOf(bytes, 1000));
+        Assertions.assertEquals(1000, FileIOUtils.mismatch(path, other));
+        Assertions.assertEquals(1000, FileIOUtils.mismatch(new ByteArrayInputStream(bytes), new ByteArrayInputStream(Arrays.copyOf(bytes, 1000))));
+        Assertions.assertEquals(-1, FileIOUtils.mismatch(new ByteArrayInputStream(bytes), new ByteArrayInputStream(bytes)));
+        Assertions.assertFalse(FileIOUtils.contentEquals(path, other));
+        Assertions.assertEquals(-1, FileIOUtils.mismatch(path, path));
+    }
+
 
     private static void create(Path path) {
         if (Files.exists(path))
@@ -0,0 +1,55 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import com.branow.file.kit.io.RuntimeIOException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileMoverTest extends JUnitTest {
+
+    public FileMoverTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/file-mover-test"));
+    }
+
+    @Test
+    public void moveDirectory() {
+        for (int i = 0; i < 3; i++) {
+            Path dir = path("src/d" + i + "/sub");
+            create(dir, true);
+            create(dir.resolve("file"));
+            write(dir.resolve("file"), new byte[]{(byte) i, 1, 2});
+        }
+        create(path("src/empty"), true);
+
+        Assertions.assertEquals(FileMover.Method.RENAME, FileMover.move(path("src"), path("target")));
+        Assertions.assertTrue(Files.notExists(path("src")));
+        Assertions.assertTrue(Files.isDirectory(path("target/empty")));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertArrayEquals(new byte[]{(byte) i, 1, 2}, read(path("target/d" + i + "/sub/file")));
+        }
+    }
+
+    @Test
+    public void moveFile() {
+        create(path("file"));
+        write(path("file"), new byte[]{1, 2, 3});
+
+        Assertions.assertEquals(FileMover.Method.RENAME, FileMover.move(path("file"), path("moved")));
+        Assertions.assertTrue(Files.notExists(path("file")));
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3}, read(path("moved")));
+    }
+
+    @Test
+    public void moveToExistingTarget() {
+        create(path("src/file"));
+        create(path("target"), true);
+
+        Assertions.assertThrows(RuntimeIOException.class, () -> FileMover.move(path("src"), path("target")));
+        Assertions.assertTrue(Files.exists(path("src/file")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileMover.move(path("src"), path("other"), 0));
+        Assertions.assertThrows(NullPointerException.class, () -> FileMover.move(null, path("other")));
+    }
+}
@@ -0,0 +1,73 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileSynchronizerTest extends JUnitTest {
+
+    public FileSynchronizerTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/file-synchronizer-test"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void sync(int parallelism) throws IOException {
+        for (int i = 0; i < 3; i++) {
+            create(path("src/d" + i + "/file"));
+            write(path("src/d" + i + "/file"), new byte[]{(byte) i, 1, 2});
+        }
+        create(path("src/empty"), true);
+        SyncOptions options = new SyncOptions().parallelism(parallelism);
+
+        FileSynchronizer.Report first = FileUtils.sync(path("src"), path("dst"), options);
+        Assertions.assertEquals(3, first.copied());
+        Assertions.assertEquals(9, first.copiedBytes());
+        Assertions.assertTrue(Files.isDirectory(path("dst/empty")));
+
+        FileSynchronizer.Report second = FileUtils.sync(path("src"), path("dst"), options);
+        Assertions.assertEquals(0, second.copied());
+        Assertions.assertEquals(3, second.unchanged());
+
+        write(path("src/d1/file"), new byte[]{9, 9, 9, 9});
+        create(path("src/d2/new"));
+        FileSynchronizer.Report third = FileUtils.sync(path("src"), path("dst"), options);
+        Assertions.assertEquals(2, third.copied());
+        Assertions.assertArrayEquals(new byte[]{9, 9, 9, 9}, read(path("dst/d1/file")));
+        Assertions.assertTrue(Files.exists(path("dst/d2/new")));
+    }
+
+    @Test
+    public void syncContentAndExtraneous() throws IOException {
+        create(path("src/file"));
+        write(path("src/file"), new byte[]{1, 2, 3});
+        create(path("src/dir/file"));
+        create(path("dst/file"));
+        write(path("dst/file"), new byte[]{1, 2, 4});
+        Files.setLastModifiedTime(path("dst/file"), Files.getLastModifiedTime(path("src/file")));
+        create(path("dst/extra/nested"));
+        create(path("dst/dir"));
+
+        FileSynchronizer.Report kept = FileUtils.sync(path("src"), path("dst"), new SyncOptions());
+        Assertions.assertEquals(1, kept.unchanged());
+        Assertions.assertTrue(Files.exists(path("dst/extra/nested")));
+        Assertions.assertTrue(Files.isDirectory(path("dst/dir")));
+        Assertions.assertEquals(1, kept.deleted());
+
+        FileSynchronizer.Report mirrored = FileUtils.sync(path("src"), path("dst"),
+                new SyncOptions().compareContent(true).deleteExtraneous(true));
+        Assertions.assertEquals(1, mirrored.copied());
+        Assertions.assertEquals(1, mirrored.deleted());
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3}, read(path("dst/file")));
+        Assertions.assertTrue(Files.notExists(path("dst/extra")));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileUtils.sync(path("src"), path("src/inner"), new SyncOptions()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileUtils.sync(path("src/dir"), path("src"), new SyncOptions()));
+    }
+}
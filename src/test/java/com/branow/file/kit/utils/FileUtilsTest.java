@@ -12,6 +12,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class FileUtilsTest {
@@ -409,6 +411,36 @@ public class FileUtilsTest {
     }
 
 
+    @Test
+    public void childrenStreamAndPages() {
+        Path dir = path("spool");
+        create(dir, true);
+        for (int i = 0; i < 25; i++) {
+            create(path("spool/file-" + i + (i % 5 == 0 ? ".log" : ".txt")), false);
+        }
+
+        List<Path> all;
+        try (Stream<Path> stream = FileUtils.childrenStream(dir)) {
+            all = stream.toList();
+        }
+        Assertions.assertEquals(Set.copyOf(FileUtils.children(dir)), Set.copyOf(all));
+
+        try (Stream<Path> stream = FileUtils.childrenStream(dir, "*.log")) {
+            Assertions.assertEquals(5, stream.peek(e -> Assertions.assertTrue(e.toString().endsWith(".log"))).count());
+        }
+
+        List<Path> paged = new ArrayList<>();
+        for (long cursor = 0; ; ) {
+            List<Path> page = FileUtils.children(dir, cursor, 10);
+            paged.addAll(page);
+            cursor += page.size();
+            if (page.size() < 10)
+                break;
+        }
+        Assertions.assertEquals(all, paged);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FileUtils.children(dir, -1, 10));
+    }
+
     @ParameterizedTest
     @MethodSource("provideChildAtDirNotExistOrNotDirectoryOrPositionIsMinus")
     public void childAtDirNotExistOrNotDirectoryOrPositionIsMinus(Path dir, int pos, boolean create) {
@@ -488,7 +520,77 @@ public class FileUtilsTest {
 
         List<Path> expectedPaths = expected.stream().map(FileUtilsTest::path).toList();
         List<Path> actual = FileUtils.goInBreadthStream(rootPath).toList();
-        Assertions.assertEquals(expectedPaths, actual);
+        Assertions.assertEquals(expectedPaths.size(), actual.size());
+        Assertions.assertEquals(new HashSet<>(expectedPaths), new HashSet<>(actual));
+
+        List<Path> sequential = FileUtils.goInBreadthStream(rootPath).sequential().toList();
+        Assertions.assertEquals(FileUtils.goInBreadth(rootPath), sequential);
+    }
+
+    @Test
+    public void goInBreadthStreamSplits() {
+        List<Path> leaves = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                leaves.add(path("root/dir-" + i + "/leave-" + j + ".txt"));
+            }
+        }
+        create(leaves);
+
+        Spliterator<Path> spliterator = FileUtils.goInBreadthStream(path("root")).spliterator();
+        Spliterator<Path> handed = spliterator.trySplit();
+        Assertions.assertNotNull(handed);
+        Set<Path> first = new HashSet<>();
+        Set<Path> second = new HashSet<>();
+        spliterator.forEachRemaining(first::add);
+        handed.forEachRemaining(second::add);
+        Assertions.assertFalse(first.isEmpty());
+        Assertions.assertFalse(second.isEmpty());
+        Assertions.assertTrue(Collections.disjoint(first, second));
+        first.addAll(second);
+        Assertions.assertEquals(new HashSet<>(FileUtils.goInBreadth(path("root"))), first);
+        Assertions.assertEquals(1 + 8 + 64, first.size());
+    }
+
+    @Test
+    public void goInBreadthWithOptions() {
+        create(List.of(path("root/a.txt"), path("root/b.bin"), path("root/dir-1/c.txt"),
+                path("root/dir-1/dir-2/d.txt"), path("root/skip/e.txt")));
+        Path root = path("root");
+
+        Assertions.assertEquals(Set.of(root, path("root/a.txt"), path("root/b.bin"), path("root/dir-1"),
+                        path("root/skip")),
+                new HashSet<>(FileUtils.goInBreadth(root, new TraversalOptions().maxDepth(1))));
+        Assertions.assertEquals(List.of(root), FileUtils.goInBreadth(root, new TraversalOptions().maxDepth(0)));
+        Assertions.assertEquals(Set.of(path("root/a.txt"), path("root/dir-1/c.txt"), path("root/dir-1/dir-2/d.txt")),
+                FileUtils.goInBreadthStream(root, new TraversalOptions()
+                        .glob("*.txt")
+                        .prune(e -> e.getFileName().toString().equals("skip"))).collect(Collectors.toSet()));
+        Assertions.assertEquals(Set.of(path("root/a.txt"), path("root/dir-1/c.txt")),
+                new HashSet<>(FileUtils.goInBreadth(root, new TraversalOptions().regex("[ac]\\.txt"))));
+        Assertions.assertEquals(Set.of(path("root/dir-1"), path("root/dir-1/dir-2"), path("root/skip")),
+                new HashSet<>(FileUtils.goInBreadth(root, new TraversalOptions()
+                        .filter((e, attrs) -> attrs.isDirectory() && !e.equals(root)))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TraversalOptions().maxDepth(-1));
+    }
+
+    @Test
+    public void goInBreadthStreamStopsEarly() {
+        List<Path> leaves = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            leaves.add(path("root/dir-" + i + "/dir/dir/leave.bin"));
+        }
+        leaves.add(path("root/found.txt"));
+        create(leaves);
+
+        AtomicInteger listed = new AtomicInteger();
+        Optional<Path> found = FileUtils.goInBreadthStream(path("root"), new TraversalOptions()
+                        .glob("*.txt")
+                        .prune(e -> listed.incrementAndGet() < 0))
+                .sequential()
+                .findFirst();
+        Assertions.assertEquals(Optional.of(path("root/found.txt")), found);
+        Assertions.assertTrue(listed.get() <= 1 + 4);
     }
 
 
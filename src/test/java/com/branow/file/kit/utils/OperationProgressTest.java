@@ -0,0 +1,115 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OperationProgressTest extends JUnitTest {
+
+    public OperationProgressTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/operation-progress-test"));
+    }
+
+    @Test
+    public void copyWithProgress() {
+        createTree();
+        List<String> events = new CopyOnWriteArrayList<>();
+        AtomicInteger progressed = new AtomicInteger();
+        OperationProgress progress = new OperationProgress(new OperationListener() {
+            @Override
+            public void phaseStarted(OperationProgress progress, String phase) {
+                events.add("start " + phase);
+            }
+
+            @Override
+            public void phaseEnded(OperationProgress progress, String phase, Duration duration) {
+                events.add("end " + phase);
+            }
+
+            @Override
+            public void progressed(OperationProgress progress) {
+                progressed.incrementAndGet();
+            }
+        });
+
+        FileCopier.of(2, 2).copy(path("src"), path("target"), progress);
+
+        Assertions.assertEquals(6, progress.files());
+        Assertions.assertEquals(4, progress.directories());
+        Assertions.assertEquals(6 * 100, progress.bytes());
+        Assertions.assertEquals(6, progress.discoveredFiles());
+        Assertions.assertEquals(6 * 100, progress.discoveredBytes());
+        Assertions.assertEquals(10, progressed.get());
+        Assertions.assertEquals(List.of("start copy", "end copy"), events);
+        Assertions.assertEquals(List.of("copy"), List.copyOf(progress.phases().keySet()));
+        Assertions.assertEquals(Duration.ZERO, progress.eta().orElseThrow());
+        Assertions.assertTrue(progress.throughput() > 0);
+    }
+
+    @Test
+    public void moveWithProgress() {
+        createTree();
+        create(path("target"), true);
+        OperationProgress progress = new OperationProgress();
+
+        FileUtils.move(path("src"), path("target"), false, progress);
+
+        Assertions.assertTrue(Files.isDirectory(path("target/src/d2")));
+        Assertions.assertTrue(progress.phases().containsKey("rename"));
+    }
+
+    @Test
+    public void deleteAndSizeWithProgress() {
+        createTree();
+        OperationProgress sizing = new OperationProgress();
+        Assertions.assertEquals(6 * 100,
+                DirectorySizer.size(path("src"), 2, DirectorySizer.SymlinkPolicy.SKIP, sizing));
+        Assertions.assertEquals(6, sizing.files());
+        Assertions.assertEquals(List.of("size"), List.copyOf(sizing.phases().keySet()));
+
+        OperationProgress deleting = new OperationProgress();
+        FileUtils.delete(path("src"), deleting, FileDeleter.DeleteOption.WITH_CONTENT);
+        Assertions.assertTrue(Files.notExists(path("src")));
+        Assertions.assertEquals(6, deleting.files());
+        Assertions.assertEquals(4, deleting.directories());
+        Assertions.assertEquals(List.of("delete"), List.copyOf(deleting.phases().keySet()));
+    }
+
+    @Test
+    public void cancel() {
+        createTree();
+        OperationProgress progress = new OperationProgress(new OperationListener() {
+            @Override
+            public void progressed(OperationProgress progress) {
+                progress.cancel();
+            }
+        });
+
+        Assertions.assertThrows(CancellationException.class,
+                () -> FileCopier.of(1, 1).copy(path("src"), path("target"), progress));
+        Assertions.assertTrue(progress.isCancelled());
+        Assertions.assertTrue(progress.files() < 6);
+        Assertions.assertTrue(progress.eta().isEmpty());
+        Assertions.assertThrows(CancellationException.class,
+                () -> FileUtils.delete(path("src"), progress, FileDeleter.DeleteOption.WITH_CONTENT));
+        Assertions.assertTrue(Files.exists(path("src")));
+    }
+
+    private void createTree() {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 2; j++) {
+                Path file = path("src/d" + i + "/file" + j);
+                create(file);
+                write(file, new byte[100]);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class ParallelDecoderTest extends JUnitTest {
+
+    public ParallelDecoderTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/parallel-decoder-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void decode(String src, Charset charset, int parallelism) {
+        Path path = path("decode.txt");
+        create(path);
+        write(path, src.getBytes(charset));
+
+        String actual = ParallelDecoder.decode(path, charset, parallelism);
+        Assertions.assertEquals(src, actual);
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void validate(String src, Charset charset, int parallelism) {
+        Path path = path("validate.txt");
+        create(path);
+        byte[] bytes = src.getBytes(charset);
+        write(path, bytes);
+        Assertions.assertTrue(ParallelDecoder.validate(path, charset, parallelism));
+
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            bytes[bytes.length - bytes.length / 3] = (byte) 0xFF;
+            write(path, bytes);
+            Assertions.assertFalse(ParallelDecoder.validate(path, charset, parallelism));
+        }
+    }
+
+    @Test
+    public void decodeOnlyCharset() {
+        Assumptions.assumeTrue(Charset.isSupported("x-JISAutoDetect"));
+        Charset charset = Charset.forName("x-JISAutoDetect");
+        Path path = path("decode-only.txt");
+        create(path);
+        String src = "plain text\n".repeat(200_000);
+        write(path, src.getBytes(StandardCharsets.US_ASCII));
+
+        Assertions.assertEquals(src, ParallelDecoder.decode(path, charset, 4));
+        Assertions.assertTrue(ParallelDecoder.validate(path, charset, 4));
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        return Stream.of(
+                Arguments.of(text(3_000_000), StandardCharsets.UTF_8, 1),
+                Arguments.of(text(3_000_000), StandardCharsets.UTF_8, 4),
+                Arguments.of(text(1_500_000), StandardCharsets.UTF_16LE, 4),
+                Arguments.of(text(2_500_000).replaceAll("[^\\x00-\\x7F]", "?"), StandardCharsets.US_ASCII, 3)
+        );
+    }
+
+    private static String text(int length) {
+        int[] alphabet = "abc xyz\n Ωλ ії €𝄞".codePoints().toArray();
+        Random random = new Random(length);
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+}
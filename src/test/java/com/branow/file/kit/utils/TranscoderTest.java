@@ -0,0 +1,90 @@
+package com.branow.file.kit.utils;
+
+import com.branow.file.kit.JUnitTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TranscoderTest extends JUnitTest {
+
+    public TranscoderTest() {
+        super(Path.of("src/test/java/resources/com/branow/file/kit/utils/transcoder-test"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideTest")
+    public void transcode(byte[] data, Charset sourceCharset, Charset targetCharset) {
+        Path source = path("source.txt");
+        Path target = path("target.txt");
+        create(source);
+        write(source, data);
+
+        byte[] expected = new String(data, sourceCharset).getBytes(targetCharset);
+        Transcoder.Result result = Transcoder.transcode(source, sourceCharset, target, targetCharset);
+        Assertions.assertArrayEquals(expected, read(target));
+        Assertions.assertEquals(data.length, result.bytesRead());
+        Assertions.assertEquals(expected.length, result.bytesWritten());
+        Assertions.assertTrue(result.bytesPerSecond() >= 0);
+
+        Transcoder.transcode(source, sourceCharset, targetCharset);
+        Assertions.assertArrayEquals(expected, read(source));
+    }
+
+
+    @Test
+    public void transcodeKeepsPermissions() throws IOException {
+        Path path = path("permissions.txt");
+        create(path);
+        write(path, "text ω".getBytes(StandardCharsets.UTF_8));
+        Assumptions.assumeTrue(Files.getFileAttributeView(path, PosixFileAttributeView.class) != null);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+        Files.setPosixFilePermissions(path, permissions);
+
+        Transcoder.transcode(path, StandardCharsets.UTF_8, StandardCharsets.UTF_16LE);
+        Assertions.assertArrayEquals("text ω".getBytes(StandardCharsets.UTF_16LE), read(path));
+        Assertions.assertEquals(permissions, Files.getPosixFilePermissions(path));
+    }
+
+
+    private static Stream<Arguments> provideTest() {
+        String text = new Random(8751).ints(100000, 0, 6)
+                .mapToObj(e -> switch (e) {
+                    case 0 -> "ω";
+                    case 1 -> "😀";
+                    case 2 -> "é";
+                    default -> "text ";
+                })
+                .collect(Collectors.joining());
+        String ascii = "plain ascii text\n".repeat(10000);
+        byte[] malformed = text.getBytes(StandardCharsets.UTF_8);
+        Random random = new Random(14);
+        for (int i = 0; i < 100; i++) {
+            malformed[random.nextInt(malformed.length)] = (byte) (0x80 + random.nextInt(0x80));
+        }
+        return Stream.of(
+                Arguments.of(text.getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16, StandardCharsets.UTF_8),
+                Arguments.of(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, StandardCharsets.UTF_16LE),
+                Arguments.of(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1),
+                Arguments.of(malformed, StandardCharsets.UTF_8, StandardCharsets.UTF_8),
+                Arguments.of(malformed, StandardCharsets.UTF_8, StandardCharsets.UTF_16),
+                Arguments.of(ascii.getBytes(StandardCharsets.US_ASCII), StandardCharsets.US_ASCII, StandardCharsets.UTF_8),
+                Arguments.of(new byte[0], StandardCharsets.UTF_8, StandardCharsets.UTF_16)
+        );
+    }
+}